@@ -0,0 +1,212 @@
+import benchmark.ChainblockOperations;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Default-package side of the JMH benchmarks. Query inputs are drawn up front from stored
+// transactions, so every query has at least one match and never throws; the write
+// operations keep those transactions stored.
+public class ChainblockFixture implements ChainblockOperations {
+    private static final int SAMPLES = 4096;
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values ();
+
+    private Chainblock chainblock;
+    private TransactionGenerator generator;
+    private Transaction[] samples;
+    private int[] draws;
+    private int cursor;
+    private Object ingestLock;
+    private IngestPipeline pipeline;
+    private AtomicInteger nextIngestId;
+
+    public void setUp (int size,int parties,double partySkew,long seed,boolean parallel) {
+        this.generator = new TransactionGenerator (seed).withParties (parties).withPartySkew (partySkew);
+        this.chainblock = parallel
+                ? new ChainblockImpl (ForkJoinPool.commonPool (),ChainblockImpl.DEFAULT_PARALLEL_THRESHOLD)
+                : new ChainblockImpl ();
+        List<Transaction> transactions = this.generator.generate (size);
+        this.chainblock.addAll (transactions);
+        Random random = new Random (seed + 1);
+        this.samples = new Transaction[SAMPLES];
+        this.draws = new int[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            this.samples[i] = transactions.get (random.nextInt (size));
+            this.draws[i] = random.nextInt (100);
+        }
+        this.cursor = 0;
+    }
+
+    public void useScans (String scans) {
+        ChainblockImpl chainblock = (ChainblockImpl) this.chainblock;
+        switch (scans) {
+            case "object":
+                break;
+            case "scalar":
+                chainblock.withColumnarScans (new ScalarAmountScanner ());
+                break;
+            case "vector":
+                // measuring the scalar fallback under this name would be misleading
+                if (AmountScanner.BEST instanceof ScalarAmountScanner) {
+                    throw new IllegalStateException ("jdk.incubator.vector is not available");
+                }
+                chainblock.withColumnarScans (AmountScanner.BEST);
+                break;
+            default:
+                throw new IllegalArgumentException (scans);
+        }
+    }
+
+    public int getCount () {
+        return this.chainblock.getCount ();
+    }
+
+    public boolean contains () {
+        return this.chainblock.contains (sample ().getId ());
+    }
+
+    public Object getById () {
+        return this.chainblock.getById (sample ().getId ());
+    }
+
+    public Object getByTransactionStatus () {
+        return this.chainblock.getByTransactionStatus (sample ().getStatus ());
+    }
+
+    public Object getAllSendersWithTransactionStatus () {
+        return this.chainblock.getAllSendersWithTransactionStatus (sample ().getStatus ());
+    }
+
+    public Object getAllReceiversWithTransactionStatus () {
+        return this.chainblock.getAllReceiversWithTransactionStatus (sample ().getStatus ());
+    }
+
+    public Object getAllOrderedByAmountDescendingThenById () {
+        return this.chainblock.getAllOrderedByAmountDescendingThenById ();
+    }
+
+    public Object getBySenderOrderedByAmountDescending () {
+        return this.chainblock.getBySenderOrderedByAmountDescending (sample ().getSender ());
+    }
+
+    public Object getByReceiverOrderedByAmountThenById () {
+        return this.chainblock.getByReceiverOrderedByAmountThenById (sample ().getReceiver ());
+    }
+
+    public Object getByTransactionStatusAndMaximumAmount () {
+        Transaction sample = sample ();
+        return this.chainblock.getByTransactionStatusAndMaximumAmount (sample.getStatus (),sample.getAmount () + 1);
+    }
+
+    public Object getBySenderAndMinimumAmountDescending () {
+        Transaction sample = sample ();
+        return this.chainblock.getBySenderAndMinimumAmountDescending (sample.getSender (),sample.getAmount () - 1);
+    }
+
+    public Object getByReceiverAndAmountRange () {
+        Transaction sample = sample ();
+        return this.chainblock.getByReceiverAndAmountRange (sample.getReceiver (),sample.getAmount (),sample.getAmount () * 2 + 1);
+    }
+
+    public Object getAllInAmountRange () {
+        Transaction sample = sample ();
+        return this.chainblock.getAllInAmountRange (sample.getAmount (),sample.getAmount () * 1.1);
+    }
+
+    public int iterate () {
+        int count = 0;
+        for (Transaction transaction : this.chainblock) {
+            count += transaction.getId () & 1;
+        }
+        return count;
+    }
+
+    public void add () {
+        this.chainblock.add (this.generator.next ());
+    }
+
+    public void addAll (int batchSize) {
+        this.chainblock.addAll (this.generator.generate (batchSize));
+    }
+
+    public void changeTransactionStatus () {
+        Transaction sample = sample ();
+        this.chainblock.changeTransactionStatus (sample.getId (),STATUSES[(sample.getStatus ().ordinal () + 1) % STATUSES.length]);
+    }
+
+    public void removeAndAdd () {
+        Transaction sample = sample ();
+        this.chainblock.removeTransactionById (sample.getId ());
+        this.chainblock.add (sample);
+    }
+
+    public Object mixed (int readPercent) {
+        int draw = this.draws[this.cursor & (SAMPLES - 1)];
+        if (draw >= readPercent) {
+            if ((draw & 1) == 0) {
+                changeTransactionStatus ();
+            } else {
+                removeAndAdd ();
+            }
+            return null;
+        }
+        switch (draw % 6) {
+            case 0:
+                return getById ();
+            case 1:
+                return getBySenderOrderedByAmountDescending ();
+            case 2:
+                return getByReceiverOrderedByAmountThenById ();
+            case 3:
+                return getByReceiverAndAmountRange ();
+            case 4:
+                return getBySenderAndMinimumAmountDescending ();
+            default:
+                return getByTransactionStatusAndMaximumAmount ();
+        }
+    }
+
+    public void setUpIngest (String mode) {
+        this.chainblock = new ChainblockImpl ();
+        this.nextIngestId = new AtomicInteger ();
+        switch (mode) {
+            case "locked":
+                this.ingestLock = new Object ();
+                this.pipeline = null;
+                break;
+            case "pipeline":
+                this.ingestLock = null;
+                this.pipeline = new IngestPipeline (this.chainblock);
+                break;
+            default:
+                throw new IllegalArgumentException (mode);
+        }
+    }
+
+    public void ingest () {
+        int         id          = this.nextIngestId.getAndIncrement ();
+        Transaction transaction = new TransactionImpl (id,STATUSES[id & 3],"Sender_" + (id & 1023),"Receiver_" + (id >>> 3 & 1023),id % 10_000);
+        if (this.pipeline != null) {
+            this.pipeline.publish (transaction);
+            return;
+        }
+        synchronized (this.ingestLock) {
+            this.chainblock.add (transaction);
+        }
+    }
+
+    public void tearDownIngest () {
+        if (this.pipeline != null) {
+            this.pipeline.flush ();
+            this.pipeline.close ();
+        }
+        if (this.chainblock.getCount () != this.nextIngestId.get ()) {
+            throw new IllegalStateException ("Expected " + this.nextIngestId.get () + " transactions but found " + this.chainblock.getCount ());
+        }
+    }
+
+    private Transaction sample () {
+        return this.samples[this.cursor++ & (SAMPLES - 1)];
+    }
+}
@@ -0,0 +1,64 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// The amount range queries on transaction scans against the amount and status columns,
+// scalar and SIMD. The vector case needs the jar built with -Pbenchmark,vector.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3,time = 2)
+@Measurement(iterations = 5,time = 2)
+@Fork(value = 1,jvmArgsAppend = {"-Xmx4g","--add-modules","jdk.incubator.vector"})
+public class ChainblockColumnarBenchmark {
+    @Param({"10000","100000","1000000"})
+    public int size;
+
+    @Param("1000")
+    public int parties;
+
+    @Param("1.0")
+    public double partySkew;
+
+    @Param("42")
+    public long seed;
+
+    @Param({"object","scalar","vector"})
+    public String scans;
+
+    private ChainblockOperations operations;
+
+    @Setup
+    public void setUp () {
+        this.operations = ChainblockOperations.create ();
+        this.operations.setUp (this.size,this.parties,this.partySkew,this.seed,false);
+        this.operations.useScans (this.scans);
+    }
+
+    @Benchmark
+    public Object getAllInAmountRange () {
+        return this.operations.getAllInAmountRange ();
+    }
+
+    @Benchmark
+    public Object getByTransactionStatusAndMaximumAmount () {
+        return this.operations.getByTransactionStatusAndMaximumAmount ();
+    }
+
+    @Benchmark
+    public Object getBySenderAndMinimumAmountDescending () {
+        return this.operations.getBySenderAndMinimumAmountDescending ();
+    }
+}
@@ -0,0 +1,51 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Sustained multi-producer ingest: synchronized add per call versus the batched
+// IngestPipeline. The pipeline's ring buffer is bounded, so producers are held back to the
+// writer's pace and buffering cannot inflate the score.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3,time = 2)
+@Measurement(iterations = 5,time = 2)
+@Fork(value = 1,jvmArgsAppend = "-Xmx4g")
+@Threads(4)
+public class ChainblockIngestBenchmark {
+    @Param({"locked","pipeline"})
+    public String mode;
+
+    private ChainblockOperations operations;
+
+    @Setup(Level.Iteration)
+    public void setUp () {
+        this.operations = ChainblockOperations.create ();
+        this.operations.setUpIngest (this.mode);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown () {
+        this.operations.tearDownIngest ();
+    }
+
+    @Benchmark
+    public void ingest () {
+        this.operations.ingest ();
+    }
+}
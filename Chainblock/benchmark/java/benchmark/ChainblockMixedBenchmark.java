@@ -0,0 +1,56 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Read/write mixes over a steady-size chainblock: reads are point lookups and the party,
+// status and range queries; writes are status changes and remove/re-add pairs.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3,time = 2)
+@Measurement(iterations = 5,time = 2)
+@Fork(value = 1,jvmArgsAppend = "-Xmx4g")
+public class ChainblockMixedBenchmark {
+    @Param({"10000","100000","1000000"})
+    public int size;
+
+    @Param({"50","90","99"})
+    public int readPercent;
+
+    @Param("1000")
+    public int parties;
+
+    @Param({"0.0","1.0"})
+    public double partySkew;
+
+    @Param("42")
+    public long seed;
+
+    @Param({"false","true"})
+    public boolean parallel;
+
+    private ChainblockOperations operations;
+
+    @Setup
+    public void setUp () {
+        this.operations = ChainblockOperations.create ();
+        this.operations.setUp (this.size,this.parties,this.partySkew,this.seed,this.parallel);
+    }
+
+    @Benchmark
+    public Object mixed () {
+        return this.operations.mixed (this.readPercent);
+    }
+}
@@ -0,0 +1,74 @@
+package benchmark;
+
+// JMH refuses benchmark classes in the default package and named packages cannot refer to
+// the default-package Chainblock classes, so the benchmarks drive Chainblock through this
+// interface, implemented by ChainblockFixture and loaded reflectively. Each call is one
+// interface dispatch on a monomorphic site, which the JIT inlines.
+public interface ChainblockOperations {
+
+    static ChainblockOperations create () {
+        try {
+            return (ChainblockOperations) Class.forName ("ChainblockFixture").getDeclaredConstructor ().newInstance ();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException (e);
+        }
+    }
+
+    // Fills a fresh ChainblockImpl with size generated transactions. A parallel chainblock
+    // runs its full scans on the common fork-join pool.
+    void setUp (int size,int parties,double partySkew,long seed,boolean parallel);
+
+    // Switches the amount range scans of the chainblock set up last: "object" keeps the
+    // transaction scans, "scalar" and "vector" read the amount and status columns.
+    void useScans (String scans);
+
+    int getCount ();
+
+    boolean contains ();
+
+    Object getById ();
+
+    Object getByTransactionStatus ();
+
+    Object getAllSendersWithTransactionStatus ();
+
+    Object getAllReceiversWithTransactionStatus ();
+
+    Object getAllOrderedByAmountDescendingThenById ();
+
+    Object getBySenderOrderedByAmountDescending ();
+
+    Object getByReceiverOrderedByAmountThenById ();
+
+    Object getByTransactionStatusAndMaximumAmount ();
+
+    Object getBySenderAndMinimumAmountDescending ();
+
+    Object getByReceiverAndAmountRange ();
+
+    Object getAllInAmountRange ();
+
+    int iterate ();
+
+    void add ();
+
+    void addAll (int batchSize);
+
+    void changeTransactionStatus ();
+
+    // Removes a stored transaction and adds it back, keeping the size steady.
+    void removeAndAdd ();
+
+    // One operation of a read/write mix; readPercent of the calls are queries.
+    Object mixed (int readPercent);
+
+    // Starts an empty chainblock that several threads feed, either through one shared
+    // lock or through an IngestPipeline ("locked" or "pipeline").
+    void setUpIngest (String mode);
+
+    // Adds one new transaction from the calling thread.
+    void ingest ();
+
+    // Waits for the pipeline to drain and checks that no transaction was lost.
+    void tearDownIngest ();
+}
@@ -0,0 +1,118 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Every read method of Chainblock against a pre-filled ChainblockImpl. The size parameter
+// gives the scaling curve, e.g. -p size=1000,10000,100000,1000000,4000000.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3,time = 2)
+@Measurement(iterations = 5,time = 2)
+@Fork(value = 1,jvmArgsAppend = "-Xmx4g")
+public class ChainblockQueryBenchmark {
+    @Param({"1000","10000","100000","1000000"})
+    public int size;
+
+    @Param("1000")
+    public int parties;
+
+    @Param("1.0")
+    public double partySkew;
+
+    @Param("42")
+    public long seed;
+
+    @Param({"false","true"})
+    public boolean parallel;
+
+    private ChainblockOperations operations;
+
+    @Setup
+    public void setUp () {
+        this.operations = ChainblockOperations.create ();
+        this.operations.setUp (this.size,this.parties,this.partySkew,this.seed,this.parallel);
+    }
+
+    @Benchmark
+    public int getCount () {
+        return this.operations.getCount ();
+    }
+
+    @Benchmark
+    public boolean contains () {
+        return this.operations.contains ();
+    }
+
+    @Benchmark
+    public Object getById () {
+        return this.operations.getById ();
+    }
+
+    @Benchmark
+    public Object getByTransactionStatus () {
+        return this.operations.getByTransactionStatus ();
+    }
+
+    @Benchmark
+    public Object getAllSendersWithTransactionStatus () {
+        return this.operations.getAllSendersWithTransactionStatus ();
+    }
+
+    @Benchmark
+    public Object getAllReceiversWithTransactionStatus () {
+        return this.operations.getAllReceiversWithTransactionStatus ();
+    }
+
+    @Benchmark
+    public Object getAllOrderedByAmountDescendingThenById () {
+        return this.operations.getAllOrderedByAmountDescendingThenById ();
+    }
+
+    @Benchmark
+    public Object getBySenderOrderedByAmountDescending () {
+        return this.operations.getBySenderOrderedByAmountDescending ();
+    }
+
+    @Benchmark
+    public Object getByReceiverOrderedByAmountThenById () {
+        return this.operations.getByReceiverOrderedByAmountThenById ();
+    }
+
+    @Benchmark
+    public Object getByTransactionStatusAndMaximumAmount () {
+        return this.operations.getByTransactionStatusAndMaximumAmount ();
+    }
+
+    @Benchmark
+    public Object getBySenderAndMinimumAmountDescending () {
+        return this.operations.getBySenderAndMinimumAmountDescending ();
+    }
+
+    @Benchmark
+    public Object getByReceiverAndAmountRange () {
+        return this.operations.getByReceiverAndAmountRange ();
+    }
+
+    @Benchmark
+    public Object getAllInAmountRange () {
+        return this.operations.getAllInAmountRange ();
+    }
+
+    @Benchmark
+    public int iterate () {
+        return this.operations.iterate ();
+    }
+}
@@ -0,0 +1,73 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Write methods of Chainblock. The chainblock is rebuilt before every iteration so add
+// and addAll always start from the same size.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3,time = 2)
+@Measurement(iterations = 5,time = 2)
+@Fork(value = 1,jvmArgsAppend = "-Xmx4g")
+public class ChainblockWriteBenchmark {
+    private static final int BATCH = 1000;
+
+    @Param({"10000","1000000"})
+    public int size;
+
+    @Param("1000")
+    public int parties;
+
+    @Param("1.0")
+    public double partySkew;
+
+    @Param("42")
+    public long seed;
+
+    @Param("false")
+    public boolean parallel;
+
+    private ChainblockOperations operations;
+
+    @Setup(Level.Iteration)
+    public void setUp () {
+        this.operations = ChainblockOperations.create ();
+        this.operations.setUp (this.size,this.parties,this.partySkew,this.seed,this.parallel);
+    }
+
+    @Benchmark
+    public void add () {
+        this.operations.add ();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void addAll () {
+        this.operations.addAll (BATCH);
+    }
+
+    @Benchmark
+    public void changeTransactionStatus () {
+        this.operations.changeTransactionStatus ();
+    }
+
+    @Benchmark
+    public void removeAndAdd () {
+        this.operations.removeAndAdd ();
+    }
+}
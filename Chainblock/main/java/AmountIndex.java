@@ -0,0 +1,196 @@
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+// Transactions ordered by amount descending, then id ascending.
+public class AmountIndex implements Iterable<Transaction> {
+    public static final Comparator<Transaction> AMOUNT_DESCENDING_THEN_ID =
+            Comparator.comparingDouble (Transaction::getAmount)
+                    .reversed ()
+                    .thenComparingInt (Transaction::getId);
+
+    private final TreeSet<Transaction> transactions;
+
+    public AmountIndex () {
+        this.transactions = new TreeSet<> (AMOUNT_DESCENDING_THEN_ID);
+    }
+
+    public void add (Transaction transaction) {
+        this.transactions.add (transaction);
+    }
+
+    // Transactions already in index order go into an empty index in linear time; TreeSet
+    // builds the tree straight from a sorted set with the same comparator.
+    public void addAllSorted (List<Transaction> sorted) {
+        if (this.transactions.isEmpty ()) {
+            this.transactions.addAll (new SortedList (sorted));
+        } else {
+            this.transactions.addAll (sorted);
+        }
+    }
+
+    public void remove (Transaction transaction) {
+        this.transactions.remove (transaction);
+    }
+
+    public int size () {
+        return this.transactions.size ();
+    }
+
+    public boolean isEmpty () {
+        return this.transactions.isEmpty ();
+    }
+
+    public NavigableSet<Transaction> getAll () {
+        return Collections.unmodifiableNavigableSet (this.transactions);
+    }
+
+    // Everything strictly after the (amount, id) position in index order.
+    public NavigableSet<Transaction> after (double amount,int id) {
+        return Collections.unmodifiableNavigableSet (this.transactions.tailSet (new Probe (amount,id),false));
+    }
+
+    // Amounts strictly greater than amount, in index order.
+    public NavigableSet<Transaction> above (double amount) {
+        return Collections.unmodifiableNavigableSet (this.transactions.headSet (new Probe (amount,Integer.MIN_VALUE),false));
+    }
+
+    // Amounts in [lo, hi), in index order.
+    public NavigableSet<Transaction> range (double lo,double hi) {
+        if (!(lo < hi)) {
+            return Collections.emptyNavigableSet ();
+        }
+        return Collections.unmodifiableNavigableSet (
+                this.transactions.subSet (new Probe (hi,Integer.MAX_VALUE),false,new Probe (lo,Integer.MAX_VALUE),true));
+    }
+
+    // Amounts in [lo, hi], in index order.
+    public NavigableSet<Transaction> rangeClosed (double lo,double hi) {
+        if (!(lo <= hi)) {
+            return Collections.emptyNavigableSet ();
+        }
+        return Collections.unmodifiableNavigableSet (
+                this.transactions.subSet (new Probe (hi,Integer.MIN_VALUE),true,new Probe (lo,Integer.MAX_VALUE),true));
+    }
+
+    @Override
+    public Iterator<Transaction> iterator () {
+        return this.transactions.iterator ();
+    }
+
+    // Read-only SortedSet view of a list already in index order, so TreeSet.addAll can take
+    // its sorted fast path. Sub-views are sublists bounded by binary search.
+    private static final class SortedList extends AbstractSet<Transaction> implements SortedSet<Transaction> {
+        private final List<Transaction> sorted;
+
+        private SortedList (List<Transaction> sorted) {
+            this.sorted = sorted;
+        }
+
+        @Override
+        public Comparator<? super Transaction> comparator () {
+            return AMOUNT_DESCENDING_THEN_ID;
+        }
+
+        @Override
+        public Iterator<Transaction> iterator () {
+            return Collections.unmodifiableList (this.sorted).iterator ();
+        }
+
+        @Override
+        public int size () {
+            return this.sorted.size ();
+        }
+
+        @Override
+        public boolean contains (Object o) {
+            return o instanceof Transaction && Collections.binarySearch (this.sorted,(Transaction) o,AMOUNT_DESCENDING_THEN_ID) >= 0;
+        }
+
+        @Override
+        public Transaction first () {
+            if (this.sorted.isEmpty ()) {
+                throw new NoSuchElementException ();
+            }
+            return this.sorted.get (0);
+        }
+
+        @Override
+        public Transaction last () {
+            if (this.sorted.isEmpty ()) {
+                throw new NoSuchElementException ();
+            }
+            return this.sorted.get (this.sorted.size () - 1);
+        }
+
+        @Override
+        public SortedSet<Transaction> subSet (Transaction from,Transaction to) {
+            if (AMOUNT_DESCENDING_THEN_ID.compare (from,to) > 0) {
+                throw new IllegalArgumentException ();
+            }
+            return new SortedList (this.sorted.subList (indexOf (from),indexOf (to)));
+        }
+
+        @Override
+        public SortedSet<Transaction> headSet (Transaction to) {
+            return new SortedList (this.sorted.subList (0,indexOf (to)));
+        }
+
+        @Override
+        public SortedSet<Transaction> tailSet (Transaction from) {
+            return new SortedList (this.sorted.subList (indexOf (from),this.sorted.size ()));
+        }
+
+        // Index of the first transaction not before the given one.
+        private int indexOf (Transaction transaction) {
+            int index = Collections.binarySearch (this.sorted,transaction,AMOUNT_DESCENDING_THEN_ID);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
+    private static final class Probe implements Transaction {
+        private final double amount;
+        private final int id;
+
+        private Probe (double amount,int id) {
+            this.amount = amount;
+            this.id = id;
+        }
+
+        @Override
+        public int getId () {
+            return this.id;
+        }
+
+        @Override
+        public TransactionStatus getStatus () {
+            return null;
+        }
+
+        @Override
+        public void setStatus (TransactionStatus status) {
+            throw new UnsupportedOperationException ();
+        }
+
+        @Override
+        public double getAmount () {
+            return this.amount;
+        }
+
+        @Override
+        public String getSender () {
+            return null;
+        }
+
+        @Override
+        public String getReceiver () {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+// Evaluates an amount range and a status set over the columnar amounts and status codes
+// kept by RowIndex. Status codes are the TransactionStatus ordinal plus one, 0 for no status;
+// removed rows hold a NaN amount so no range matches them.
+public interface AmountScanner {
+    int ANY_STATUS = (1 << TransactionStatus.values ().length + 1) - 1;
+
+    // The SIMD scanner when the jdk.incubator.vector module is present, the scalar one otherwise.
+    AmountScanner BEST = load ();
+
+    static byte statusCode (TransactionStatus status) {
+        return status == null ? 0 : (byte) (status.ordinal () + 1);
+    }
+
+    static int statusMask (TransactionStatus status) {
+        return 1 << statusCode (status);
+    }
+
+    // Writes the rows in [from, to) with lo <= amount <= hi and a status in statusMask to
+    // rows, in ascending order, and returns how many were written.
+    int scan (double[] amounts,byte[] statuses,int from,int to,double lo,double hi,int statusMask,int[] rows);
+
+    private static AmountScanner load () {
+        try {
+            AmountScanner scanner = (AmountScanner) Class.forName ("VectorAmountScanner").getDeclaredConstructor ().newInstance ();
+            scanner.scan (new double[128],new byte[128],0,128,0,0,ANY_STATUS,new int[128]);
+            return scanner;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ScalarAmountScanner ();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+// Flyweight over a TransactionLayout record; wrap() re-points it without allocating.
+public class BufferTransaction implements Transaction {
+    private final PartyDictionary parties;
+    private ByteBuffer buffer;
+    private int offset;
+
+    public BufferTransaction (PartyDictionary parties) {
+        this.parties = parties;
+    }
+
+    public BufferTransaction (ByteBuffer buffer,int offset,PartyDictionary parties) {
+        this (parties);
+        wrap (buffer,offset);
+    }
+
+    public BufferTransaction wrap (ByteBuffer buffer,int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    @Override
+    public int getId () {
+        return this.buffer.getInt (this.offset + TransactionLayout.ID);
+    }
+
+    @Override
+    public TransactionStatus getStatus () {
+        return TransactionLayout.status (this.buffer.get (this.offset + TransactionLayout.STATUS));
+    }
+
+    @Override
+    public void setStatus (TransactionStatus status) {
+        this.buffer.put (this.offset + TransactionLayout.STATUS,TransactionLayout.statusByte (status));
+    }
+
+    @Override
+    public double getAmount () {
+        return this.buffer.getDouble (this.offset + TransactionLayout.AMOUNT);
+    }
+
+    @Override
+    public String getSender () {
+        return this.parties.nameOf (getSenderId ());
+    }
+
+    @Override
+    public String getReceiver () {
+        return this.parties.nameOf (getReceiverId ());
+    }
+
+    public int getSenderId () {
+        return this.buffer.getInt (this.offset + TransactionLayout.SENDER);
+    }
+
+    public int getReceiverId () {
+        return this.buffer.getInt (this.offset + TransactionLayout.RECEIVER);
+    }
+
+    @Override
+    public boolean equals (Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass () != o.getClass ()) {
+            return false;
+        }
+        BufferTransaction that = (BufferTransaction) o;
+        return getId () == that.getId ()
+                && Double.compare (that.getAmount (),getAmount ()) == 0
+                && getStatus () == that.getStatus ()
+                && Objects.equals (getSender (),that.getSender ())
+                && Objects.equals (getReceiver (),that.getReceiver ());
+    }
+
+    @Override
+    public int hashCode () {
+        int result = getId ();
+        result = 31 * result + Objects.hashCode (getStatus ());
+        result = 31 * result + Objects.hashCode (getSender ());
+        result = 31 * result + Objects.hashCode (getReceiver ());
+        result = 31 * result + Double.hashCode (getAmount ());
+        return result;
+    }
+}
@@ -0,0 +1,383 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Chainblock decorator caching query results by method and arguments in a bounded LRU map.
+// Every result depends on one version counter - its status, its sender, its receiver or,
+// for queries over all transactions, the global one - and writes only bump the counters of
+// the transactions they touch, so an entry stays valid across unrelated writes. Stale
+// entries are dropped when next looked up. Party counters are created by writes and dropped
+// with the party's last transaction; queries for a party without one depend on the global
+// counter. Transactions changed behind the decorator's back, e.g. through setStatus, are
+// not seen.
+public class CachingChainblock implements Chainblock {
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private final Chainblock delegate;
+    private final LinkedHashMap<Key, CachedResult> entries;
+    private final EnumMap<TransactionStatus, Counter> statusVersions;
+    private final Map<String, Counter> senderVersions;
+    private final Map<String, Counter> receiverVersions;
+    private final Counter nullStatusVersion;
+    private final Counter globalVersion;
+    private long hits;
+    private long misses;
+    private long invalidations;
+    private long evictions;
+
+    public CachingChainblock (Chainblock delegate) {
+        this (delegate,DEFAULT_MAX_ENTRIES);
+    }
+
+    public CachingChainblock (Chainblock delegate,int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException ();
+        }
+        this.delegate = delegate;
+        this.entries = new LinkedHashMap<> (16,0.75f,true) {
+            @Override
+            protected boolean removeEldestEntry (Map.Entry<Key, CachedResult> eldest) {
+                if (size () > maxEntries) {
+                    CachingChainblock.this.evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.statusVersions = new EnumMap<> (TransactionStatus.class);
+        for (TransactionStatus status : TransactionStatus.values ()) {
+            this.statusVersions.put (status,new Counter ());
+        }
+        this.senderVersions = new HashMap<> ();
+        this.receiverVersions = new HashMap<> ();
+        this.nullStatusVersion = new Counter ();
+        this.globalVersion = new Counter ();
+    }
+
+    public synchronized long getHitCount () {
+        return this.hits;
+    }
+
+    public synchronized long getMissCount () {
+        return this.misses;
+    }
+
+    // Misses caused by a write to the entry's status or party since it was cached.
+    public synchronized long getInvalidationCount () {
+        return this.invalidations;
+    }
+
+    public synchronized long getEvictionCount () {
+        return this.evictions;
+    }
+
+    public synchronized double getHitRatio () {
+        long lookups = this.hits + this.misses;
+        return lookups == 0 ? 0 : (double) this.hits / lookups;
+    }
+
+    public synchronized int getSize () {
+        return this.entries.size ();
+    }
+
+    // Senders and receivers with a version counter of their own.
+    public synchronized int getPartyCount () {
+        return this.senderVersions.size () + this.receiverVersions.size ();
+    }
+
+    public int getCount () {
+        return this.delegate.getCount ();
+    }
+
+    public synchronized void add (Transaction transaction) {
+        boolean added = !this.delegate.contains (transaction.getId ());
+        this.delegate.add (transaction);
+        if (added) {
+            added (transaction);
+        }
+    }
+
+    public synchronized void addAll (Iterable<Transaction> transactions) {
+        List<Transaction> batch = new ArrayList<> ();
+        List<Transaction> added = new ArrayList<> ();
+        Set<Integer>      ids   = new HashSet<> ();
+        for (Transaction transaction : transactions) {
+            batch.add (transaction);
+            if (!this.delegate.contains (transaction.getId ()) && ids.add (transaction.getId ())) {
+                added.add (transaction);
+            }
+        }
+        this.delegate.addAll (batch);
+        for (Transaction transaction : added) {
+            added (transaction);
+        }
+    }
+
+    public boolean contains (Transaction transaction) {
+        return this.delegate.contains (transaction);
+    }
+
+    public boolean contains (int id) {
+        return this.delegate.contains (id);
+    }
+
+    public synchronized void changeTransactionStatus (int id,TransactionStatus newStatus) {
+        Transaction       transaction    = this.delegate.getById (id);
+        TransactionStatus previousStatus = transaction.getStatus ();
+        this.delegate.changeTransactionStatus (id,newStatus);
+        statusVersion (previousStatus).value++;
+        statusVersion (newStatus).value++;
+        bump (this.senderVersions.get (transaction.getSender ()));
+        bump (this.receiverVersions.get (transaction.getReceiver ()));
+        this.globalVersion.value++;
+    }
+
+    public synchronized void removeTransactionById (int id) {
+        Transaction transaction = this.delegate.getById (id);
+        this.delegate.removeTransactionById (id);
+        statusVersion (transaction.getStatus ()).value++;
+        release (this.senderVersions,transaction.getSender ());
+        release (this.receiverVersions,transaction.getReceiver ());
+        this.globalVersion.value++;
+    }
+
+    public Transaction getById (int id) {
+        return this.delegate.getById (id);
+    }
+
+    public synchronized Iterable<Transaction> getByTransactionStatus (TransactionStatus status) {
+        Key          key   = new Key (Query.GET_BY_TRANSACTION_STATUS,status);
+        CachedResult entry = lookup (key);
+        if (entry != null) {
+            return entry.result ();
+        }
+        return store (key,statusVersion (status),this.delegate.getByTransactionStatus (status));
+    }
+
+    public synchronized Iterable<String> getAllSendersWithTransactionStatus (TransactionStatus status) {
+        Key          key   = new Key (Query.GET_ALL_SENDERS_WITH_TRANSACTION_STATUS,status);
+        CachedResult entry = lookup (key);
+        if (entry != null) {
+            return entry.result ();
+        }
+        return store (key,statusVersion (status),this.delegate.getAllSendersWithTransactionStatus (status));
+    }
+
+    public synchronized Iterable<String> getAllReceiversWithTransactionStatus (TransactionStatus status) {
+        Key          key   = new Key (Query.GET_ALL_RECEIVERS_WITH_TRANSACTION_STATUS,status);
+        CachedResult entry = lookup (key);
+        if (entry != null) {
+            return entry.result ();
+        }
+        return store (key,statusVersion (status),this.delegate.getAllReceiversWithTransactionStatus (status));
+    }
+
+    public synchronized Iterable<Transaction> getAllOrderedByAmountDescendingThenById () {
+        Key          key   = new Key (Query.GET_ALL_ORDERED_BY_AMOUNT_DESCENDING_THEN_BY_ID);
+        CachedResult entry = lookup (key);
+        if (entry != null) {
+            return entry.result ();
+        }
+        return store (key,this.globalVersion,this.delegate.getAllOrderedByAmountDescendingThenById ());
+    }
+
+    public synchronized Iterable<Transaction> getBySenderOrderedByAmountDescending (String sender) {
+        Key          key   = new Key (Query.GET_BY_SENDER_ORDERED_BY_AMOUNT_DESCENDING,sender);
+        CachedResult entry = lookup (key);
+        if (entry != null) {
+            return entry.result ();
+        }
+        Iterable<Transaction> result = this.delegate.getBySenderOrderedByAmountDescending (sender);
+        return store (key,partyVersion (this.senderVersions,sender),result);
+    }
+
+    public synchronized Iterable<Transaction> getByReceiverOrderedByAmountThenById (String receiver) {
+        Key          key   = new Key (Query.GET_BY_RECEIVER_ORDERED_BY_AMOUNT_THEN_BY_ID,receiver);
+        CachedResult entry = lookup (key);
+        if (entry != null) {
+            return entry.result ();
+        }
+        Iterable<Transaction> result = this.delegate.getByReceiverOrderedByAmountThenById (receiver);
+        return store (key,partyVersion (this.receiverVersions,receiver),result);
+    }
+
+    public synchronized Iterable<Transaction> getByTransactionStatusAndMaximumAmount (TransactionStatus status,double amount) {
+        Key          key   = new Key (Query.GET_BY_TRANSACTION_STATUS_AND_MAXIMUM_AMOUNT,status,amount);
+        CachedResult entry = lookup (key);
+        if (entry != null) {
+            return entry.result ();
+        }
+        return store (key,statusVersion (status),this.delegate.getByTransactionStatusAndMaximumAmount (status,amount));
+    }
+
+    public synchronized Iterable<Transaction> getBySenderAndMinimumAmountDescending (String sender,double amount) {
+        Key          key   = new Key (Query.GET_BY_SENDER_AND_MINIMUM_AMOUNT_DESCENDING,sender,amount);
+        CachedResult entry = lookup (key);
+        if (entry != null) {
+            return entry.result ();
+        }
+        Iterable<Transaction> result = this.delegate.getBySenderAndMinimumAmountDescending (sender,amount);
+        // an empty result depends on other senders too: without any amount above, it throws
+        return store (key,result.iterator ().hasNext () ? partyVersion (this.senderVersions,sender) : this.globalVersion,result);
+    }
+
+    public synchronized Iterable<Transaction> getByReceiverAndAmountRange (String receiver,double lo,double hi) {
+        Key          key   = new Key (Query.GET_BY_RECEIVER_AND_AMOUNT_RANGE,receiver,lo,hi);
+        CachedResult entry = lookup (key);
+        if (entry != null) {
+            return entry.result ();
+        }
+        Iterable<Transaction> result = this.delegate.getByReceiverAndAmountRange (receiver,lo,hi);
+        return store (key,partyVersion (this.receiverVersions,receiver),result);
+    }
+
+    public synchronized Iterable<Transaction> getAllInAmountRange (double lo,double hi) {
+        Key          key   = new Key (Query.GET_ALL_IN_AMOUNT_RANGE,lo,hi);
+        CachedResult entry = lookup (key);
+        if (entry != null) {
+            return entry.result ();
+        }
+        return store (key,this.globalVersion,this.delegate.getAllInAmountRange (lo,hi));
+    }
+
+    public Iterator<Transaction> iterator () {
+        return this.delegate.iterator ();
+    }
+
+    private void added (Transaction transaction) {
+        statusVersion (transaction.getStatus ()).value++;
+        retain (this.senderVersions,transaction.getSender ());
+        retain (this.receiverVersions,transaction.getReceiver ());
+        this.globalVersion.value++;
+    }
+
+    private Counter statusVersion (TransactionStatus status) {
+        return status == null ? this.nullStatusVersion : this.statusVersions.get (status);
+    }
+
+    // Only called once the query has returned, so reads never create counters.
+    private Counter partyVersion (Map<String, Counter> versions,String party) {
+        return versions.getOrDefault (party,this.globalVersion);
+    }
+
+    private static void retain (Map<String, Counter> versions,String party) {
+        Counter counter = versions.computeIfAbsent (party,p -> new Counter ());
+        counter.value++;
+        counter.transactions++;
+    }
+
+    // Transactions added before the decorator wrapped the delegate are not counted, so the
+    // count may run out early; dropping a counter is always safe, as the bump invalidates
+    // its entries and later queries fall back to the global counter.
+    private static void release (Map<String, Counter> versions,String party) {
+        Counter counter = versions.get (party);
+        if (counter == null) {
+            return;
+        }
+        counter.value++;
+        if (--counter.transactions <= 0) {
+            versions.remove (party);
+        }
+    }
+
+    private static void bump (Counter counter) {
+        if (counter != null) {
+            counter.value++;
+        }
+    }
+
+    private CachedResult lookup (Key key) {
+        CachedResult entry = this.entries.get (key);
+        if (entry != null && entry.version == entry.counter.value) {
+            this.hits++;
+            return entry;
+        }
+        if (entry != null) {
+            this.entries.remove (key);
+            this.invalidations++;
+        }
+        this.misses++;
+        return null;
+    }
+
+    // Failed queries throw before reaching here, so exceptions are never cached.
+    private <T> Iterable<T> store (Key key,Counter counter,Iterable<T> result) {
+        List<Object> copy = new ArrayList<> ();
+        result.forEach (copy::add);
+        CachedResult entry = new CachedResult (counter,Collections.unmodifiableList (copy));
+        this.entries.put (key,entry);
+        return entry.result ();
+    }
+
+    private static final class Counter {
+        private long value;
+        private int transactions;
+    }
+
+    private enum Query {
+        GET_BY_TRANSACTION_STATUS,
+        GET_ALL_SENDERS_WITH_TRANSACTION_STATUS,
+        GET_ALL_RECEIVERS_WITH_TRANSACTION_STATUS,
+        GET_ALL_ORDERED_BY_AMOUNT_DESCENDING_THEN_BY_ID,
+        GET_BY_SENDER_ORDERED_BY_AMOUNT_DESCENDING,
+        GET_BY_RECEIVER_ORDERED_BY_AMOUNT_THEN_BY_ID,
+        GET_BY_TRANSACTION_STATUS_AND_MAXIMUM_AMOUNT,
+        GET_BY_SENDER_AND_MINIMUM_AMOUNT_DESCENDING,
+        GET_BY_RECEIVER_AND_AMOUNT_RANGE,
+        GET_ALL_IN_AMOUNT_RANGE
+    }
+
+    private static final class Key {
+        private final Query query;
+        private final Object[] arguments;
+        private final int hash;
+
+        private Key (Query query,Object... arguments) {
+            this.query = query;
+            this.arguments = arguments;
+            this.hash = 31 * query.hashCode () + Arrays.hashCode (arguments);
+        }
+
+        @Override
+        public boolean equals (Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return this.query == that.query && Arrays.equals (this.arguments,that.arguments);
+        }
+
+        @Override
+        public int hashCode () {
+            return this.hash;
+        }
+    }
+
+    private static final class CachedResult {
+        private final Counter counter;
+        private final long version;
+        private final List<Object> result;
+
+        private CachedResult (Counter counter,List<Object> result) {
+            this.counter = counter;
+            this.version = counter.value;
+            this.result = result;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> List<T> result () {
+            return (List<T>) this.result;
+        }
+    }
+}
@@ -4,6 +4,12 @@ public interface Chainblock extends Iterable<Transaction> {
 
     void add (Transaction transaction);
 
+    default void addAll (Iterable<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            add (transaction);
+        }
+    }
+
     boolean contains (Transaction transaction);
 
     boolean contains (int id);
@@ -0,0 +1,68 @@
+// Immutable record of one change to a Chainblock. For ADDED and REMOVED the previous status
+// is null; for STATUS_CHANGED status is the new status.
+public class ChainblockEvent {
+    public enum Type {
+        ADDED,
+        REMOVED,
+        STATUS_CHANGED
+    }
+
+    private final Type type;
+    private final int id;
+    private final String sender;
+    private final String receiver;
+    private final double amount;
+    private final TransactionStatus previousStatus;
+    private final TransactionStatus status;
+
+    public ChainblockEvent (Type type,Transaction transaction,TransactionStatus previousStatus) {
+        this.type = type;
+        this.id = transaction.getId ();
+        this.sender = transaction.getSender ();
+        this.receiver = transaction.getReceiver ();
+        this.amount = transaction.getAmount ();
+        this.previousStatus = previousStatus;
+        this.status = transaction.getStatus ();
+    }
+
+    public Type getType () {
+        return this.type;
+    }
+
+    public int getId () {
+        return this.id;
+    }
+
+    public String getSender () {
+        return this.sender;
+    }
+
+    public String getReceiver () {
+        return this.receiver;
+    }
+
+    public double getAmount () {
+        return this.amount;
+    }
+
+    public TransactionStatus getPreviousStatus () {
+        return this.previousStatus;
+    }
+
+    public TransactionStatus getStatus () {
+        return this.status;
+    }
+
+    // Status predicates test the status after the change.
+    public boolean matches (TransactionFilter filter) {
+        return (filter.getStatuses ().isEmpty () || filter.getStatuses ().contains (this.status))
+                && (filter.getSenders ().isEmpty () || filter.getSenders ().contains (this.sender))
+                && (filter.getReceivers ().isEmpty () || filter.getReceivers ().contains (this.receiver))
+                && filter.matchesAmount (this.amount);
+    }
+
+    @Override
+    public String toString () {
+        return String.format ("%s %d %s -> %s",this.type,this.id,this.previousStatus,this.status);
+    }
+}
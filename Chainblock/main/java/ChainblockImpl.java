@@ -1,13 +1,61 @@
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-public class ChainblockImpl implements Chainblock {
-    private LinkedHashMap<Integer, Transaction> transactionMap;
+public class ChainblockImpl implements Chainblock, ScanStatistics {
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 64 * 1024;
+
+    private LinkedHashMap<Integer, Entry> transactionMap;
+    private PartyDictionary parties;
+    private AmountIndex amountIndex;
+    private EnumMap<TransactionStatus, AmountIndex> statusIndex;
+    private List<AmountIndex> receiverIndex;
+    private RowIndex rowIndex;
+    private List<PartyAggregate> senderAggregates;
+    private List<PartyAggregate> receiverAggregates;
+    private TreeSet<PartyAggregate> sendersByVolume;
+    private ThreadLocal<long[]> scannedRows;
+    private ParallelScan parallelScan;
+    private AmountScanner amountScanner;
 
 
     public ChainblockImpl () {
         this.transactionMap = new LinkedHashMap<> ();
+        this.parties = new PartyDictionary ();
+        this.amountIndex = new AmountIndex ();
+        this.statusIndex = new EnumMap<> (TransactionStatus.class);
+        for (TransactionStatus status : TransactionStatus.values ()) {
+            this.statusIndex.put (status,new AmountIndex ());
+        }
+        this.receiverIndex = new ArrayList<> ();
+        this.rowIndex = new RowIndex ();
+        this.senderAggregates = new ArrayList<> ();
+        this.receiverAggregates = new ArrayList<> ();
+        this.sendersByVolume = new TreeSet<> (PartyAggregate.TOTAL_DESCENDING);
+        this.scannedRows = ThreadLocal.withInitial (() -> new long[1]);
+    }
+
+    // Full scans of at least parallelThreshold transactions run in chunks on the pool.
+    // Results are identical to the sequential scans, including the order of ties.
+    public ChainblockImpl (ForkJoinPool pool,int parallelThreshold) {
+        this ();
+        this.parallelScan = new ParallelScan (pool,parallelThreshold);
+    }
+
+    // Amount range scans read the amount and status columns of the row index instead of
+    // the transactions, with SIMD where the Vector API is available.
+    public ChainblockImpl withColumnarScans () {
+        return withColumnarScans (AmountScanner.BEST);
+    }
+
+    public ChainblockImpl withColumnarScans (AmountScanner scanner) {
+        if (scanner == null) {
+            throw new IllegalArgumentException ();
+        }
+        this.amountScanner = scanner;
+        return this;
     }
 
     public int getCount () {
@@ -16,7 +64,45 @@ public class ChainblockImpl implements Chainblock {
 
     public void add (Transaction transaction) {
         if (!transactionMap.containsKey (transaction.getId ())) {
-            this.transactionMap.put (transaction.getId (),transaction);
+            int            sender          = this.parties.intern (transaction.getSender ());
+            PartyAggregate senderAggregate = aggregate (this.senderAggregates,sender);
+            this.sendersByVolume.remove (senderAggregate);
+            insert (transaction,sender,senderAggregate);
+            this.sendersByVolume.add (senderAggregate);
+        }
+    }
+
+    // Each sender's place in the volume ranking is taken out before its first transaction of
+    // the batch and restored once after the batch, instead of once per transaction. The new
+    // transactions are sorted once, like load, and go into the amount, status and receiver
+    // indexes as sorted runs; an index empty until now is built from its run in linear time.
+    public void addAll (Iterable<Transaction> transactions) {
+        Set<PartyAggregate> touched = Collections.newSetFromMap (new IdentityHashMap<> ());
+        List<Entry>         added   = new ArrayList<> ();
+        try {
+            for (Transaction transaction : transactions) {
+                if (this.transactionMap.containsKey (transaction.getId ())) {
+                    continue;
+                }
+                int            sender          = this.parties.intern (transaction.getSender ());
+                int            receiver        = this.parties.intern (transaction.getReceiver ());
+                PartyAggregate senderAggregate = aggregate (this.senderAggregates,sender);
+                if (touched.add (senderAggregate)) {
+                    this.sendersByVolume.remove (senderAggregate);
+                }
+                Entry entry = new Entry (transaction,sender,receiver,this.rowIndex.add (transaction,sender,receiver));
+                this.transactionMap.put (transaction.getId (),entry);
+                senderAggregate.add (transaction);
+                aggregate (this.receiverAggregates,receiver).add (transaction);
+                added.add (entry);
+            }
+        } finally {
+            indexSorted (added);
+            for (PartyAggregate senderAggregate : touched) {
+                if (senderAggregate.getCount () > 0) {
+                    this.sendersByVolume.add (senderAggregate);
+                }
+            }
         }
     }
 
@@ -29,31 +115,96 @@ public class ChainblockImpl implements Chainblock {
     }
 
     public void changeTransactionStatus (int id,TransactionStatus newStatus) {
-        if (!this.transactionMap.containsKey (id)) {
+        Entry       entry       = getEntry (id);
+        Transaction transaction = entry.transaction;
+        unindexStatus (transaction);
+        this.rowIndex.changeStatus (entry.row,transaction.getStatus (),newStatus);
+        changeAggregateStatus (entry,transaction.getStatus (),newStatus);
+        transaction.setStatus (newStatus);
+        indexStatus (transaction);
+    }
+
+    // Moves every listed transaction to newStatus in one pass with a single lookup per id.
+    // Missing ids are reported in the result instead of failing the batch.
+    public StatusChangeResult changeTransactionStatus (int[] ids,TransactionStatus newStatus) {
+        return changeTransactionStatus (ids,newStatus,t -> {
+        });
+    }
+
+    // beforeChange sees each transaction just before it moves, e.g. to log the change first.
+    StatusChangeResult changeTransactionStatus (int[] ids,TransactionStatus newStatus,Consumer<Transaction> beforeChange) {
+        if (ids == null || newStatus == null) {
             throw new IllegalArgumentException ();
         }
-        this.transactionMap.get (id).setStatus (newStatus);
+        AmountIndex target    = this.statusIndex.get (newStatus);
+        int[]       missing   = new int[0];
+        int         missed    = 0;
+        int         changed   = 0;
+        int         unchanged = 0;
+        for (int id : ids) {
+            Entry entry = this.transactionMap.get (id);
+            if (entry == null) {
+                if (missed == missing.length) {
+                    missing = Arrays.copyOf (missing,Math.max (missed * 2,8));
+                }
+                missing[missed++] = id;
+                continue;
+            }
+            Transaction       transaction = entry.transaction;
+            TransactionStatus oldStatus   = transaction.getStatus ();
+            if (oldStatus == newStatus) {
+                unchanged++;
+                continue;
+            }
+            beforeChange.accept (transaction);
+            unindexStatus (transaction);
+            this.rowIndex.changeStatus (entry.row,oldStatus,newStatus);
+            changeAggregateStatus (entry,oldStatus,newStatus);
+            transaction.setStatus (newStatus);
+            target.add (transaction);
+            changed++;
+        }
+        return new StatusChangeResult (changed,unchanged,Arrays.copyOf (missing,missed));
     }
 
     public void removeTransactionById (int id) {
-        if (!this.transactionMap.containsKey (id)) {
+        Entry entry = this.transactionMap.remove (id);
+        if (entry == null) {
             throw new IllegalArgumentException ();
         }
-        this.transactionMap.remove (id);
+        this.amountIndex.remove (entry.transaction);
+        unindexStatus (entry.transaction);
+        this.receiverIndex.get (entry.receiver).remove (entry.transaction);
+        this.rowIndex.remove (entry.row,entry.sender,entry.receiver);
+        PartyAggregate senderAggregate = this.senderAggregates.get (entry.sender);
+        this.sendersByVolume.remove (senderAggregate);
+        senderAggregate.remove (entry.transaction);
+        if (senderAggregate.getCount () > 0) {
+            this.sendersByVolume.add (senderAggregate);
+        }
+        this.receiverAggregates.get (entry.receiver).remove (entry.transaction);
+        if (this.rowIndex.needsRenumbering ()) {
+            this.rowIndex = new RowIndex ();
+            for (Entry e : this.transactionMap.values ()) {
+                e.row = this.rowIndex.add (e.transaction,e.sender,e.receiver);
+            }
+        }
     }
 
     public Transaction getById (int id) {
-        if (!this.transactionMap.containsKey (id)) {
-            throw new IllegalArgumentException ();
-        }
-        return this.transactionMap.get (id);
+        return getEntry (id).transaction;
     }
 
     public Iterable<Transaction> getByTransactionStatus (TransactionStatus status) {
+        scanned (this.transactionMap.size ());
+        if (parallel ()) {
+            return nonEmpty (this.parallelScan.run (this.rowIndex.rows (),t -> t.getStatus () == status,
+                    Comparator.comparing (Transaction::getAmount).reversed ()));
+        }
         List<Transaction> transactionList = new ArrayList<> ();
-        for (Transaction t : this.transactionMap.values ()) {
-            if (t.getStatus () == status) {
-                transactionList.add (t);
+        for (Entry e : this.transactionMap.values ()) {
+            if (e.transaction.getStatus () == status) {
+                transactionList.add (e.transaction);
             }
         }
         if (transactionList.isEmpty ()) {
@@ -86,7 +237,12 @@ public class ChainblockImpl implements Chainblock {
 
     public Iterable<Transaction> getAllOrderedByAmountDescendingThenById () {
 //TODO there should be more elegant way to to this
-        List<Transaction> transactionList1 = this.transactionMap.values ().stream ()
+        scanned (this.transactionMap.size ());
+        if (parallel ()) {
+            // the second stable sort by id decides the order on its own
+            return this.parallelScan.run (this.rowIndex.rows (),t -> true,Comparator.comparing (Transaction::getId).reversed ());
+        }
+        List<Transaction> transactionList1 = transactions ()
                 .sorted (Comparator.comparingDouble (Transaction::getAmount)
                         .reversed ()).collect (Collectors.toList ());
 
@@ -96,10 +252,15 @@ public class ChainblockImpl implements Chainblock {
     }
 
     public Iterable<Transaction> getBySenderOrderedByAmountDescending (String sender) {
+        int               senderId        = this.parties.idOf (sender);
         List<Transaction> transactionList = new ArrayList<> ();
-        for (Transaction t : this.transactionMap.values ()) {
-            if (t.getSender ().equals (sender)) {
-                transactionList.add (t);
+        scanned (this.transactionMap.size ());
+        if (parallel ()) {
+            return nonEmpty (this.parallelScan.run (sentBy (senderId),t -> true,Comparator.comparing (Transaction::getAmount).reversed ()));
+        }
+        for (Entry e : this.transactionMap.values ()) {
+            if (e.sender == senderId) {
+                transactionList.add (e.transaction);
             }
         }
         if (transactionList.isEmpty ()) {
@@ -112,18 +273,28 @@ public class ChainblockImpl implements Chainblock {
     }
 
     public Iterable<Transaction> getByReceiverOrderedByAmountThenById (String receiver) {
-        if (this.transactionMap.values ().stream ().noneMatch (t -> t.getReceiver ().equals (receiver))) {
+        AmountIndex index = receiverIndex (receiver);
+        scanned (index.size ());
+        if (index.isEmpty ()) {
             throw new IllegalArgumentException ();
         }
-        return this.transactionMap.values ().stream ()
-                .filter (t -> t.getReceiver ().equals (receiver))
-                .sorted (Comparator.comparingDouble (Transaction::getAmount)
-                        .reversed ()
-                        .thenComparingInt (Transaction::getId))
-                .collect (Collectors.toList ());
+        return new ArrayList<> (index.getAll ());
     }
 
     public Iterable<Transaction> getByTransactionStatusAndMaximumAmount (TransactionStatus status,double amount) {
+        if (this.amountScanner != null && status != null) {
+            scanned (this.transactionMap.size ());
+            if (statusIndex (status).isEmpty ()) {
+                throw new IllegalArgumentException ();
+            }
+            if (!(amount > Double.NEGATIVE_INFINITY)) {
+                return Collections.emptyList ();
+            }
+            List<Transaction> transactionList = this.rowIndex.selectAmounts (this.amountScanner,Double.NEGATIVE_INFINITY,
+                    Math.nextDown (amount),AmountScanner.statusMask (status));
+            transactionList.sort (Comparator.comparingDouble (Transaction::getAmount).reversed ());
+            return transactionList;
+        }
         List<Transaction>     transactionList     = new ArrayList<> ();
         Iterable<Transaction> byTransactionStatus = getByTransactionStatus (status);
         for (Transaction transaction : byTransactionStatus) {
@@ -140,33 +311,47 @@ public class ChainblockImpl implements Chainblock {
     }
 
     public Iterable<Transaction> getBySenderAndMinimumAmountDescending (String sender,double amount) {
-        if (this.transactionMap
-                .values ()
-                .stream ()
-                .noneMatch (v -> v.getSender ().equals (sender))
-                || this.transactionMap
-                .values ()
-                .stream ()
-                .noneMatch (v -> v.getAmount () > amount)) {
+        int               senderId        = this.parties.idOf (sender);
+        boolean           senderFound     = false;
+        boolean           amountFound     = false;
+        List<Transaction> transactionList = new ArrayList<> ();
+        scanned (this.transactionMap.size ());
+        if (this.amountScanner != null) {
+            if (this.rowIndex.senderCount (senderId) == 0 || this.amountIndex.above (amount).isEmpty ()) {
+                throw new IllegalArgumentException ();
+            }
+            transactionList = this.rowIndex.selectWithSenderAbove (senderId,amount);
+            transactionList.sort (Comparator.comparingDouble (Transaction::getAmount).reversed ());
+            return transactionList;
+        }
+        if (parallel ()) {
+            if (this.rowIndex.senderCount (senderId) == 0 || this.amountIndex.above (amount).isEmpty ()) {
+                throw new IllegalArgumentException ();
+            }
+            return this.parallelScan.run (sentBy (senderId),t -> t.getAmount () > amount,
+                    Comparator.comparingDouble (Transaction::getAmount).reversed ());
+        }
+        for (Entry e : this.transactionMap.values ()) {
+            boolean above = e.transaction.getAmount () > amount;
+            amountFound |= above;
+            if (e.sender == senderId) {
+                senderFound = true;
+                if (above) {
+                    transactionList.add (e.transaction);
+                }
+            }
+        }
+        if (!senderFound || !amountFound) {
             throw new IllegalArgumentException ();
         }
-
-        return this.transactionMap.values ().stream ()
-                .filter (v -> v.getSender ().equals (sender))
-                .filter (v -> v.getAmount () > amount)
-                .sorted (Comparator.comparingDouble (Transaction::getAmount).reversed ())
-                .collect (Collectors.toList ());
+        transactionList.sort (Comparator.comparingDouble (Transaction::getAmount).reversed ());
+        return transactionList;
     }
 
 
     public Iterable<Transaction> getByReceiverAndAmountRange (String receiver,double lo,double hi) {
-        List<Transaction> collect = this.transactionMap.values ().stream ()
-                .filter (v -> v.getReceiver ().equals (receiver))
-                .filter (v -> v.getAmount () >= lo)
-                .filter (v -> v.getAmount () < hi)
-                .sorted (Comparator.comparingDouble (Transaction::getAmount).reversed ())
-                .sorted (Comparator.comparingInt (Transaction::getId))
-                .collect (Collectors.toList ());
+        List<Transaction> collect = new ArrayList<> (receiverIndex (receiver).range (lo,hi));
+        scanned (collect.size ());
         if (collect.isEmpty ()) {
             throw new IllegalArgumentException ();
         }
@@ -174,14 +359,394 @@ public class ChainblockImpl implements Chainblock {
     }
 
     public Iterable<Transaction> getAllInAmountRange (double lo,double hi) {
-        List<Transaction> collect = this.transactionMap.values ().stream ().filter (v -> v.getAmount () >= lo && v.getAmount () <= hi).collect (Collectors.toList ());
+        scanned (this.transactionMap.size ());
+        if (this.amountScanner != null) {
+            List<Transaction> collect = this.rowIndex.selectAmounts (this.amountScanner,lo,hi,AmountScanner.ANY_STATUS);
+            return collect.isEmpty () ? Collections.emptyList () : collect;
+        }
+        if (parallel ()) {
+            List<Transaction> collect = this.parallelScan.run (this.rowIndex.rows (),v -> v.getAmount () >= lo && v.getAmount () <= hi,null);
+            return collect.isEmpty () ? Collections.emptyList () : collect;
+        }
+        List<Transaction> collect = transactions ().filter (v -> v.getAmount () >= lo && v.getAmount () <= hi).collect (Collectors.toList ());
         if (collect.isEmpty ()) {
             return Collections.emptyList ();
         }
         return collect;
     }
 
+    // Limited variants return the first limit transactions of the unlimited query, in the
+    // same order, without ordering the whole match set.
+    public Iterable<Transaction> getByTransactionStatus (TransactionStatus status,int limit) {
+        AmountIndex index = statusIndex (status);
+        if (index.isEmpty ()) {
+            throw new IllegalArgumentException ();
+        }
+        return firstByAmount (index,limit);
+    }
+
+    public Iterable<Transaction> getByTransactionStatusAndMaximumAmount (TransactionStatus status,double amount,int limit) {
+        AmountIndex index = statusIndex (status);
+        if (index.isEmpty ()) {
+            throw new IllegalArgumentException ();
+        }
+        return firstByAmount (index.range (Double.NEGATIVE_INFINITY,amount),limit);
+    }
+
+    public Iterable<Transaction> getBySenderOrderedByAmountDescending (String sender,int limit) {
+        int senderId = this.parties.idOf (sender);
+        int matches  = this.rowIndex.senderCount (senderId);
+        if (matches == 0) {
+            throw new IllegalArgumentException ();
+        }
+        TopK top = new TopK (limit,matches);
+        scanned (matches);
+        this.rowIndex.forEachWithSender (senderId,top::offer);
+        return top.drain ();
+    }
+
+    public Iterable<Transaction> getBySenderAndMinimumAmountDescending (String sender,double amount,int limit) {
+        int senderId = this.parties.idOf (sender);
+        int matches  = this.rowIndex.senderCount (senderId);
+        if (matches == 0 || this.amountIndex.above (amount).isEmpty ()) {
+            throw new IllegalArgumentException ();
+        }
+        TopK top = new TopK (limit,matches);
+        scanned (matches);
+        this.rowIndex.forEachWithSender (senderId,t -> {
+            if (t.getAmount () > amount) {
+                top.offer (t);
+            }
+        });
+        return top.drain ();
+    }
+
+    public Iterable<Transaction> getByReceiverOrderedByAmountThenById (String receiver,int limit) {
+        checkLimit (limit);
+        AmountIndex index = receiverIndex (receiver);
+        if (index.isEmpty ()) {
+            throw new IllegalArgumentException ();
+        }
+        List<Transaction> transactionList = new ArrayList<> (Math.min (limit,index.size ()));
+        for (Transaction transaction : index) {
+            if (transactionList.size () == limit) {
+                break;
+            }
+            transactionList.add (transaction);
+        }
+        scanned (transactionList.size ());
+        return transactionList;
+    }
+
+    public Page<Transaction> getAllOrderedByAmountDescending (int pageSize,String token) {
+        return page (this.amountIndex,pageSize,token);
+    }
+
+    public Page<Transaction> getByTransactionStatus (TransactionStatus status,int pageSize,String token) {
+        return page (statusIndex (status),pageSize,token);
+    }
+
+    // Evaluates all predicates of the filter on the bitmap indexes, in insertion order.
+    public Iterable<Transaction> filter (TransactionFilter filter) {
+        List<Transaction> transactionList = this.rowIndex.select (filter,this.parties);
+        scanned (transactionList.size ());
+        return transactionList;
+    }
+
+    // Count, total and per-status breakdown of what the party sent, read without a scan.
+    public PartyAggregate getSenderAggregate (String sender) {
+        return aggregateOf (this.senderAggregates,sender);
+    }
+
+    public PartyAggregate getReceiverAggregate (String receiver) {
+        return aggregateOf (this.receiverAggregates,receiver);
+    }
+
+    public List<PartyAggregate> getTopSendersByVolume (int limit) {
+        checkLimit (limit);
+        List<PartyAggregate> senders = new ArrayList<> (Math.min (limit,this.sendersByVolume.size ()));
+        for (PartyAggregate aggregate : this.sendersByVolume) {
+            if (senders.size () == limit) {
+                break;
+            }
+            senders.add (aggregate.copy ());
+        }
+        return senders;
+    }
+
+    // Whether nothing was ever added. Removing every transaction leaves the parties, their
+    // aggregates and the row index behind, so being empty is not enough for load.
+    boolean isUnused () {
+        return this.parties.size () == 0;
+    }
+
+    // Bulk build for Checkpoint: the primary map, row index and aggregates in one pass in
+    // insertion order, then one sort for all amount indexes, which are built from sorted
+    // runs instead of one tree insertion per transaction. senders and receivers hold the
+    // parties' ids in the given dictionary.
+    void load (PartyDictionary parties,Transaction[] transactions,int[] senders,int[] receivers) {
+        if (!isUnused ()) {
+            throw new IllegalStateException ();
+        }
+        LinkedHashMap<Integer, Entry> transactionMap = new LinkedHashMap<> (Math.max (16,(int) (transactions.length / 0.75f) + 1));
+        Entry[]                       entries        = new Entry[transactions.length];
+        for (int i = 0; i < transactions.length; i++) {
+            entries[i] = new Entry (transactions[i],senders[i],receivers[i],i);
+            if (transactionMap.put (transactions[i].getId (),entries[i]) != null) {
+                throw new IllegalArgumentException ();
+            }
+        }
+        this.parties = parties;
+        this.transactionMap = transactionMap;
+        for (Entry entry : entries) {
+            entry.row = this.rowIndex.add (entry.transaction,entry.sender,entry.receiver);
+            aggregate (this.senderAggregates,entry.sender).add (entry.transaction);
+            aggregate (this.receiverAggregates,entry.receiver).add (entry.transaction);
+        }
+        for (PartyAggregate aggregate : this.senderAggregates) {
+            if (aggregate.getCount () > 0) {
+                this.sendersByVolume.add (aggregate);
+            }
+        }
+        Arrays.sort (entries,(a,b) -> AmountIndex.AMOUNT_DESCENDING_THEN_ID.compare (a.transaction,b.transaction));
+        List<Transaction>                             sorted     = new ArrayList<> (entries.length);
+        EnumMap<TransactionStatus, List<Transaction>> byStatus   = new EnumMap<> (TransactionStatus.class);
+        List<List<Transaction>>                       byReceiver = new ArrayList<> ();
+        for (Entry entry : entries) {
+            sorted.add (entry.transaction);
+            if (entry.transaction.getStatus () != null) {
+                byStatus.computeIfAbsent (entry.transaction.getStatus (),s -> new ArrayList<> ()).add (entry.transaction);
+            }
+            while (byReceiver.size () <= entry.receiver) {
+                byReceiver.add (new ArrayList<> ());
+            }
+            byReceiver.get (entry.receiver).add (entry.transaction);
+        }
+        this.amountIndex.addAllSorted (sorted);
+        byStatus.forEach ((status,run) -> this.statusIndex.get (status).addAllSorted (run));
+        for (List<Transaction> run : byReceiver) {
+            AmountIndex index = new AmountIndex ();
+            index.addAllSorted (run);
+            this.receiverIndex.add (index);
+        }
+    }
+
+    public TransactionQuery query () {
+        return new TransactionQuery (this);
+    }
+
     public Iterator<Transaction> iterator () {
-        return null;
+        return transactions ().iterator ();
+    }
+
+    // Counted per thread, since concurrent readers share one instance behind a read lock.
+    public long getScannedRows () {
+        return this.scannedRows.get ()[0];
+    }
+
+    void scanned (int rows) {
+        this.scannedRows.get ()[0] += rows;
+    }
+
+    AmountIndex getAmountIndex () {
+        return this.amountIndex;
+    }
+
+    AmountIndex getStatusIndex (TransactionStatus status) {
+        return this.statusIndex.get (status);
+    }
+
+    AmountIndex getReceiverIndex (String receiver) {
+        return receiverIndex (receiver);
+    }
+
+    RowIndex getRowIndex () {
+        return this.rowIndex;
+    }
+
+    PartyDictionary getParties () {
+        return this.parties;
+    }
+
+    // Rows are handed out in insertion order and renumbering keeps it.
+    Comparator<Transaction> insertionOrder () {
+        return Comparator.comparingInt (t -> getEntry (t.getId ()).row);
+    }
+
+    // Pages are ordered by amount descending then id; the token is the position of the
+    // previous page's last transaction, so resuming is a tail lookup in the index.
+    private Page<Transaction> page (AmountIndex index,int pageSize,String token) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException ();
+        }
+        Iterable<Transaction> remaining = index;
+        if (token != null) {
+            PageCursor cursor = PageCursor.decode (token);
+            remaining = index.after (cursor.getAmount (),cursor.getId ());
+        }
+        List<Transaction>     items    = new ArrayList<> (Math.min (pageSize,index.size ()));
+        Iterator<Transaction> iterator = remaining.iterator ();
+        while (items.size () < pageSize && iterator.hasNext ()) {
+            items.add (iterator.next ());
+        }
+        scanned (items.size ());
+        String next = iterator.hasNext () ? PageCursor.of (items.get (items.size () - 1)).encode () : null;
+        return new Page<> (items,next);
+    }
+
+    // The amount indexes break ties by id while the unlimited queries keep insertion order
+    // for equal amounts, so the walk also goes through the run of equal amounts at the cut,
+    // keeping the first limit transactions by amount and row in a bounded heap.
+    private List<Transaction> firstByAmount (Iterable<Transaction> ordered,int limit) {
+        checkLimit (limit);
+        TopK   top      = new TopK (limit);
+        int    examined = 0;
+        double cut      = 0;
+        for (Transaction transaction : ordered) {
+            if (examined >= limit && Double.compare (transaction.getAmount (),cut) != 0) {
+                break;
+            }
+            top.offer (transaction,getEntry (transaction.getId ()).row);
+            cut = transaction.getAmount ();
+            examined++;
+        }
+        scanned (examined);
+        return top.drain ();
+    }
+
+    // Everything add does except ranking the sender, which the caller handles.
+    private void insert (Transaction transaction,int sender,PartyAggregate senderAggregate) {
+        int receiver = this.parties.intern (transaction.getReceiver ());
+        this.transactionMap.put (transaction.getId (),new Entry (transaction,sender,receiver,
+                this.rowIndex.add (transaction,sender,receiver)));
+        this.amountIndex.add (transaction);
+        indexStatus (transaction);
+        while (this.receiverIndex.size () <= receiver) {
+            this.receiverIndex.add (new AmountIndex ());
+        }
+        this.receiverIndex.get (receiver).add (transaction);
+        senderAggregate.add (transaction);
+        aggregate (this.receiverAggregates,receiver).add (transaction);
+    }
+
+    private void indexSorted (List<Entry> entries) {
+        entries.sort ((a,b) -> AmountIndex.AMOUNT_DESCENDING_THEN_ID.compare (a.transaction,b.transaction));
+        List<Transaction>                             sorted     = new ArrayList<> (entries.size ());
+        EnumMap<TransactionStatus, List<Transaction>> byStatus   = new EnumMap<> (TransactionStatus.class);
+        Map<Integer, List<Transaction>>               byReceiver = new HashMap<> ();
+        for (Entry entry : entries) {
+            sorted.add (entry.transaction);
+            if (entry.transaction.getStatus () != null) {
+                byStatus.computeIfAbsent (entry.transaction.getStatus (),s -> new ArrayList<> ()).add (entry.transaction);
+            }
+            byReceiver.computeIfAbsent (entry.receiver,r -> new ArrayList<> ()).add (entry.transaction);
+        }
+        this.amountIndex.addAllSorted (sorted);
+        byStatus.forEach ((status,run) -> this.statusIndex.get (status).addAllSorted (run));
+        byReceiver.forEach ((receiver,run) -> {
+            while (this.receiverIndex.size () <= receiver) {
+                this.receiverIndex.add (new AmountIndex ());
+            }
+            this.receiverIndex.get (receiver).addAllSorted (run);
+        });
+    }
+
+    private PartyAggregate aggregate (List<PartyAggregate> aggregates,int party) {
+        while (aggregates.size () <= party) {
+            aggregates.add (new PartyAggregate (this.parties.nameOf (aggregates.size ()),aggregates.size ()));
+        }
+        return aggregates.get (party);
+    }
+
+    private PartyAggregate aggregateOf (List<PartyAggregate> aggregates,String party) {
+        int id = this.parties.idOf (party);
+        if (id == PartyDictionary.UNKNOWN || id >= aggregates.size () || aggregates.get (id).getCount () == 0) {
+            throw new IllegalArgumentException ();
+        }
+        return aggregates.get (id).copy ();
+    }
+
+    private void changeAggregateStatus (Entry entry,TransactionStatus from,TransactionStatus to) {
+        double amount = entry.transaction.getAmount ();
+        this.senderAggregates.get (entry.sender).changeStatus (amount,from,to);
+        this.receiverAggregates.get (entry.receiver).changeStatus (amount,from,to);
+    }
+
+    private boolean parallel () {
+        return this.parallelScan != null && this.transactionMap.size () >= this.parallelScan.getThreshold ();
+    }
+
+    // The sender bitmap already holds exactly the sender's rows, in insertion order.
+    private List<Transaction> sentBy (int senderId) {
+        List<Transaction> transactionList = new ArrayList<> (this.rowIndex.senderCount (senderId));
+        this.rowIndex.forEachWithSender (senderId,transactionList::add);
+        return transactionList;
+    }
+
+    private static List<Transaction> nonEmpty (List<Transaction> transactions) {
+        if (transactions.isEmpty ()) {
+            throw new IllegalArgumentException ();
+        }
+        return transactions;
+    }
+
+    private static void checkLimit (int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException ();
+        }
+    }
+
+    private AmountIndex statusIndex (TransactionStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException ();
+        }
+        return this.statusIndex.get (status);
+    }
+
+    private AmountIndex receiverIndex (String receiver) {
+        int id = this.parties.idOf (receiver);
+        if (id == PartyDictionary.UNKNOWN || id >= this.receiverIndex.size ()) {
+            return new AmountIndex ();
+        }
+        return this.receiverIndex.get (id);
+    }
+
+    private void indexStatus (Transaction transaction) {
+        if (transaction.getStatus () != null) {
+            this.statusIndex.get (transaction.getStatus ()).add (transaction);
+        }
+    }
+
+    private void unindexStatus (Transaction transaction) {
+        if (transaction.getStatus () != null) {
+            this.statusIndex.get (transaction.getStatus ()).remove (transaction);
+        }
+    }
+
+    private Entry getEntry (int id) {
+        Entry entry = this.transactionMap.get (id);
+        if (entry == null) {
+            throw new IllegalArgumentException ();
+        }
+        return entry;
+    }
+
+    private Stream<Transaction> transactions () {
+        return this.transactionMap.values ().stream ().map (e -> e.transaction);
+    }
+
+    // Parties are kept as PartyDictionary ids so sender/receiver scans compare ints.
+    private static final class Entry {
+        private final Transaction transaction;
+        private final int sender;
+        private final int receiver;
+        private int row;
+
+        private Entry (Transaction transaction,int sender,int receiver,int row) {
+            this.transaction = transaction;
+            this.sender = sender;
+            this.receiver = receiver;
+            this.row = row;
+        }
     }
 }
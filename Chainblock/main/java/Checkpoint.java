@@ -0,0 +1,222 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+// Binary snapshot of a ChainblockImpl, streamed through a FileChannel in 1 MB buffers:
+//   header:     magic(4) version(4) transactions(8) parties(4) record size(4)
+//   dictionary: per party, UTF-8 length(4, -1 for null) and bytes, in id order
+//   records:    one TransactionLayout record per transaction, in insertion order
+//   trailer:    CRC32C(4) of everything before it
+// Restoring bulk-builds the chainblock with ChainblockImpl.load instead of calling add.
+public final class Checkpoint {
+    static final String TEMP_SUFFIX = ".writing";
+
+    private static final int MAGIC = 0x4342434B;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private Checkpoint () {
+    }
+
+    // Written to a temporary file first and moved over path once complete.
+    public static void write (ChainblockImpl chainblock,Path path) throws IOException {
+        PartyDictionary parties = chainblock.getParties ();
+        Path            temp    = path.resolveSibling (path.getFileName () + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open (temp,StandardOpenOption.CREATE,StandardOpenOption.TRUNCATE_EXISTING,StandardOpenOption.WRITE)) {
+            ByteBuffer out = ByteBuffer.allocateDirect (BUFFER_SIZE);
+            CRC32C     crc = new CRC32C ();
+            out.putInt (MAGIC);
+            out.putInt (VERSION);
+            out.putLong (chainblock.getCount ());
+            out.putInt (parties.size ());
+            out.putInt (TransactionLayout.SIZE);
+            for (int id = 0; id < parties.size (); id++) {
+                String name = parties.nameOf (id);
+                byte[] utf8 = name == null ? null : name.getBytes (StandardCharsets.UTF_8);
+                if (out.remaining () < Integer.BYTES) {
+                    writeFully (channel,out,crc);
+                }
+                out.putInt (utf8 == null ? -1 : utf8.length);
+                for (int from = 0; utf8 != null && from < utf8.length; ) {
+                    if (!out.hasRemaining ()) {
+                        writeFully (channel,out,crc);
+                    }
+                    int length = Math.min (out.remaining (),utf8.length - from);
+                    out.put (utf8,from,length);
+                    from += length;
+                }
+            }
+            for (Transaction transaction : chainblock) {
+                if (out.remaining () < TransactionLayout.SIZE) {
+                    writeFully (channel,out,crc);
+                }
+                TransactionLayout.write (out,out.position (),transaction,parties);
+                out.position (out.position () + TransactionLayout.SIZE);
+            }
+            writeFully (channel,out,crc);
+            out.putInt ((int) crc.getValue ());
+            out.flip ();
+            while (out.hasRemaining ()) {
+                channel.write (out);
+            }
+            channel.force (true);
+        }
+        Files.move (temp,path,StandardCopyOption.ATOMIC_MOVE,StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static ChainblockImpl read (Path path) throws IOException {
+        return read (path,new ChainblockImpl ());
+    }
+
+    // Restores into a chainblock nothing was ever added to, e.g. one set up for parallel or
+    // columnar scans.
+    public static ChainblockImpl read (Path path,ChainblockImpl into) throws IOException {
+        if (!into.isUnused ()) {
+            throw new IllegalArgumentException ();
+        }
+        try (FileChannel channel = FileChannel.open (path,StandardOpenOption.READ)) {
+            Reader in = new Reader (channel,path);
+            in.require (HEADER_SIZE);
+            if (in.buffer.getInt () != MAGIC || in.buffer.getInt () != VERSION) {
+                throw new IOException ("Not a chainblock checkpoint: " + path);
+            }
+            long count      = in.buffer.getLong ();
+            int  partyCount = in.buffer.getInt ();
+            int  recordSize = in.buffer.getInt ();
+            if (count < 0 || count > Integer.MAX_VALUE || partyCount < 0 || recordSize != TransactionLayout.SIZE
+                    || count * TransactionLayout.SIZE > in.bodyEnd) {
+                throw new IOException ("Corrupt checkpoint header: " + path);
+            }
+            PartyDictionary parties = new PartyDictionary ();
+            for (int id = 0; id < partyCount; id++) {
+                in.require (Integer.BYTES);
+                int length = in.buffer.getInt ();
+                if (length < -1 || length > in.bodyEnd) {
+                    throw new IOException ("Corrupt checkpoint dictionary: " + path);
+                }
+                String name = length < 0 ? null : in.string (length);
+                if (parties.intern (name) != id) {
+                    throw new IOException ("Duplicate party in checkpoint: " + path);
+                }
+            }
+            Transaction[] transactions = new Transaction[(int) count];
+            int[]         senders      = new int[transactions.length];
+            int[]         receivers    = new int[transactions.length];
+            for (int i = 0; i < transactions.length; i++) {
+                in.require (TransactionLayout.SIZE);
+                ByteBuffer buffer = in.buffer;
+                int        offset = buffer.position ();
+                senders[i] = buffer.getInt (offset + TransactionLayout.SENDER);
+                receivers[i] = buffer.getInt (offset + TransactionLayout.RECEIVER);
+                byte status = buffer.get (offset + TransactionLayout.STATUS);
+                if (senders[i] < 0 || senders[i] >= partyCount || receivers[i] < 0 || receivers[i] >= partyCount
+                        || status < -1 || status >= TransactionStatus.values ().length) {
+                    throw new IOException ("Corrupt checkpoint record " + i + ": " + path);
+                }
+                transactions[i] = new TransactionImpl (buffer.getInt (offset + TransactionLayout.ID),TransactionLayout.status (status),
+                        parties.nameOf (senders[i]),parties.nameOf (receivers[i]),buffer.getDouble (offset + TransactionLayout.AMOUNT));
+                buffer.position (offset + TransactionLayout.SIZE);
+            }
+            in.verify ();
+            try {
+                into.load (parties,transactions,senders,receivers);
+            } catch (IllegalArgumentException e) {
+                throw new IOException ("Duplicate transaction id in checkpoint: " + path);
+            }
+            return into;
+        }
+    }
+
+    private static void writeFully (FileChannel channel,ByteBuffer out,CRC32C crc) throws IOException {
+        out.flip ();
+        crc.update (out.duplicate ());
+        while (out.hasRemaining ()) {
+            channel.write (out);
+        }
+        out.clear ();
+    }
+
+    // Buffered sequential reads of everything before the trailer, checksummed as they come in.
+    private static final class Reader {
+        private final FileChannel channel;
+        private final Path path;
+        private final ByteBuffer buffer;
+        private final CRC32C crc;
+        private final long bodyEnd;
+        private long read;
+
+        private Reader (FileChannel channel,Path path) throws IOException {
+            this.channel = channel;
+            this.path = path;
+            this.buffer = ByteBuffer.allocateDirect (BUFFER_SIZE).limit (0);
+            this.crc = new CRC32C ();
+            this.bodyEnd = channel.size () - Integer.BYTES;
+            if (this.bodyEnd < HEADER_SIZE) {
+                throw new IOException ("Not a chainblock checkpoint: " + path);
+            }
+        }
+
+        private void require (int bytes) throws IOException {
+            if (this.buffer.remaining () >= bytes) {
+                return;
+            }
+            this.buffer.compact ();
+            while (this.buffer.position () < bytes) {
+                long left = this.bodyEnd - this.read;
+                if (left == 0) {
+                    throw new EOFException ("Truncated checkpoint: " + this.path);
+                }
+                int start = this.buffer.position ();
+                this.buffer.limit ((int) Math.min (this.buffer.capacity (),start + left));
+                int count = this.channel.read (this.buffer);
+                if (count < 0) {
+                    throw new EOFException ("Truncated checkpoint: " + this.path);
+                }
+                this.crc.update (this.buffer.duplicate ().flip ().position (start));
+                this.read += count;
+            }
+            this.buffer.flip ();
+        }
+
+        private String string (int length) throws IOException {
+            if (length <= this.buffer.capacity ()) {
+                require (length);
+                byte[] utf8 = new byte[length];
+                this.buffer.get (utf8);
+                return new String (utf8,StandardCharsets.UTF_8);
+            }
+            byte[] utf8 = new byte[length];
+            for (int from = 0; from < length; ) {
+                require (1);
+                int chunk = Math.min (this.buffer.remaining (),length - from);
+                this.buffer.get (utf8,from,chunk);
+                from += chunk;
+            }
+            return new String (utf8,StandardCharsets.UTF_8);
+        }
+
+        // The whole body must have been consumed and match the trailer.
+        private void verify () throws IOException {
+            if (this.buffer.hasRemaining () || this.read != this.bodyEnd) {
+                throw new IOException ("Trailing data in checkpoint: " + this.path);
+            }
+            ByteBuffer trailer = ByteBuffer.allocate (Integer.BYTES);
+            while (trailer.hasRemaining ()) {
+                if (this.channel.read (trailer,this.bodyEnd + trailer.position ()) < 0) {
+                    throw new EOFException ("Truncated checkpoint: " + this.path);
+                }
+            }
+            if (trailer.getInt (0) != (int) this.crc.getValue ()) {
+                throw new IOException ("Checkpoint checksum mismatch: " + this.path);
+            }
+        }
+    }
+}
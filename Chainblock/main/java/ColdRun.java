@@ -0,0 +1,293 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+
+// Immutable, read-only mapped file of transactions sorted by id, for TieredChainblock's
+// cold tier. Each record is a TransactionLayout record followed by the transaction's
+// insertion sequence(8). Removed rows are only marked in memory, a merge drops them.
+// The amount bounds and party bitmaps let scans skip runs that cannot match, and the rows
+// are also kept in sequence and in amount order so queries can merge runs without sorting.
+public class ColdRun implements Closeable {
+    static final int RECORD_SIZE = TransactionLayout.SIZE + Long.BYTES;
+    static final int HEADER_SIZE = RECORD_SIZE;
+    static final String SUFFIX = ".cold";
+    static final String TEMP_SUFFIX = ".writing";
+
+    private static final int MAGIC = 0x43484344;
+    private static final int VERSION = 1;
+    private static final int SEQUENCE = TransactionLayout.SIZE;
+    private static final int COPY_BUFFER_SIZE = 1024 * 1024;
+    private static final int MAX_RECORDS = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final RowBitmap removed;
+    private final RowBitmap senders;
+    private final RowBitmap receivers;
+    private final int[] bySequence;
+    private final int[] byAmount;
+    private double minAmount;
+    private double maxAmount;
+
+    private ColdRun (Path path,FileChannel channel,MappedByteBuffer buffer,int count) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.count = count;
+        this.removed = new RowBitmap ();
+        this.senders = new RowBitmap ();
+        this.receivers = new RowBitmap ();
+        this.minAmount = Double.POSITIVE_INFINITY;
+        this.maxAmount = Double.NEGATIVE_INFINITY;
+        for (int row = 0; row < count; row++) {
+            this.senders.add (sender (row));
+            this.receivers.add (receiver (row));
+            double amount = amount (row);
+            if (amount == amount) {
+                this.minAmount = Math.min (this.minAmount,amount);
+                this.maxAmount = Math.max (this.maxAmount,amount);
+            }
+        }
+        this.bySequence = order (Comparator.comparingLong (this::sequence));
+        this.byAmount = order (Comparator.comparingDouble ((Integer row) -> amount (row)).reversed ().thenComparingLong (this::sequence));
+    }
+
+    static Writer writer (Path directory,long index) throws IOException {
+        return new Writer (directory,index);
+    }
+
+    // The live rows of both runs in one new run, still sorted by id.
+    static ColdRun merge (Path directory,long index,ColdRun a,ColdRun b) throws IOException {
+        Writer writer = writer (directory,index);
+        int    i      = a.nextLive (0);
+        int    j      = b.nextLive (0);
+        while (i < a.count || j < b.count) {
+            if (j == b.count || i < a.count && a.id (i) < b.id (j)) {
+                writer.copy (a,i);
+                i = a.nextLive (i + 1);
+            } else {
+                writer.copy (b,j);
+                j = b.nextLive (j + 1);
+            }
+        }
+        return writer.finish ();
+    }
+
+    static String fileName (long index) {
+        return String.format ("%016d%s",index,SUFFIX);
+    }
+
+    int getRowCount () {
+        return this.count;
+    }
+
+    int getLiveCount () {
+        return this.count - this.removed.cardinality ();
+    }
+
+    // Every row, live or not, by insertion sequence. Not to be modified.
+    int[] rowsBySequence () {
+        return this.bySequence;
+    }
+
+    // Every row, live or not, by amount descending then insertion sequence. Not to be modified.
+    int[] rowsByAmount () {
+        return this.byAmount;
+    }
+
+    // Row of the live transaction with the given id, or -1.
+    int find (int id) {
+        int lo = 0;
+        int hi = this.count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int at  = id (mid);
+            if (at < id) {
+                lo = mid + 1;
+            } else if (at > id) {
+                hi = mid - 1;
+            } else {
+                return isLive (mid) ? mid : -1;
+            }
+        }
+        return -1;
+    }
+
+    boolean isLive (int row) {
+        return !this.removed.contains (row);
+    }
+
+    void remove (int row) {
+        this.removed.add (row);
+    }
+
+    boolean mayContainSender (int sender) {
+        return sender != PartyDictionary.UNKNOWN && this.senders.contains (sender);
+    }
+
+    boolean mayContainReceiver (int receiver) {
+        return receiver != PartyDictionary.UNKNOWN && this.receivers.contains (receiver);
+    }
+
+    // Whether some row, live or not, has an amount in [lo, hi]. NaN amounts never match.
+    boolean mayContainAmounts (double lo,double hi) {
+        return this.count > 0 && this.maxAmount >= lo && this.minAmount <= hi;
+    }
+
+    int id (int row) {
+        return this.buffer.getInt (offset (row) + TransactionLayout.ID);
+    }
+
+    TransactionStatus status (int row) {
+        return TransactionLayout.status (this.buffer.get (offset (row) + TransactionLayout.STATUS));
+    }
+
+    int sender (int row) {
+        return this.buffer.getInt (offset (row) + TransactionLayout.SENDER);
+    }
+
+    int receiver (int row) {
+        return this.buffer.getInt (offset (row) + TransactionLayout.RECEIVER);
+    }
+
+    double amount (int row) {
+        return this.buffer.getDouble (offset (row) + TransactionLayout.AMOUNT);
+    }
+
+    long sequence (int row) {
+        return this.buffer.getLong (offset (row) + SEQUENCE);
+    }
+
+    // A detached copy: the run itself never changes.
+    Transaction read (int row,PartyDictionary parties) {
+        return new TransactionImpl (id (row),status (row),parties.nameOf (sender (row)),parties.nameOf (receiver (row)),amount (row));
+    }
+
+    void delete () throws IOException {
+        close ();
+        Files.deleteIfExists (this.path);
+    }
+
+    @Override
+    public void close () throws IOException {
+        this.channel.close ();
+    }
+
+    private int[] order (Comparator<Integer> comparator) {
+        Integer[] rows = new Integer[this.count];
+        for (int row = 0; row < this.count; row++) {
+            rows[row] = row;
+        }
+        Arrays.sort (rows,comparator);
+        int[] order = new int[this.count];
+        for (int i = 0; i < this.count; i++) {
+            order[i] = rows[i];
+        }
+        return order;
+    }
+
+    private int nextLive (int row) {
+        while (row < this.count && !isLive (row)) {
+            row++;
+        }
+        return row;
+    }
+
+    private static int offset (int row) {
+        return HEADER_SIZE + row * RECORD_SIZE;
+    }
+
+    // Streams records, which must come in ascending id order, to a temporary file that
+    // becomes the run's file once finished.
+    static final class Writer {
+        private final Path directory;
+        private final long index;
+        private final Path temp;
+        private final FileChannel channel;
+        private final ByteBuffer out;
+        private int count;
+        private int lastId;
+
+        private Writer (Path directory,long index) throws IOException {
+            this.directory = directory;
+            this.index = index;
+            this.temp = directory.resolve (fileName (index) + TEMP_SUFFIX);
+            this.channel = FileChannel.open (this.temp,StandardOpenOption.CREATE,StandardOpenOption.TRUNCATE_EXISTING,StandardOpenOption.WRITE);
+            this.out = ByteBuffer.allocateDirect (COPY_BUFFER_SIZE);
+            this.out.position (HEADER_SIZE);
+        }
+
+        void add (int id,TransactionStatus status,int sender,int receiver,double amount,long sequence) throws IOException {
+            ensureRoom (id);
+            TransactionLayout.write (this.out,this.out.position (),id,status,sender,receiver,amount);
+            this.out.putLong (this.out.position () + SEQUENCE,sequence);
+            this.out.position (this.out.position () + RECORD_SIZE);
+        }
+
+        void copy (ColdRun run,int row) throws IOException {
+            ensureRoom (run.id (row));
+            ByteBuffer source = run.buffer.duplicate ();
+            int        offset = offset (row);
+            source.limit (offset + RECORD_SIZE).position (offset);
+            this.out.put (source);
+        }
+
+        ColdRun finish () throws IOException {
+            try {
+                writeFully ();
+                ByteBuffer header = ByteBuffer.allocate (HEADER_SIZE);
+                header.putInt (0,MAGIC);
+                header.putInt (4,VERSION);
+                header.putInt (8,this.count);
+                while (header.hasRemaining ()) {
+                    this.channel.write (header,header.position ());
+                }
+            } finally {
+                this.channel.close ();
+            }
+            Path path = this.directory.resolve (fileName (this.index));
+            Files.move (this.temp,path,StandardCopyOption.ATOMIC_MOVE,StandardCopyOption.REPLACE_EXISTING);
+            FileChannel channel = FileChannel.open (path,StandardOpenOption.READ);
+            try {
+                return new ColdRun (path,channel,channel.map (FileChannel.MapMode.READ_ONLY,0,channel.size ()),this.count);
+            } catch (IOException | RuntimeException e) {
+                channel.close ();
+                throw e;
+            }
+        }
+
+        void abort () throws IOException {
+            this.channel.close ();
+            Files.deleteIfExists (this.temp);
+        }
+
+        private void ensureRoom (int id) throws IOException {
+            if (this.count > 0 && id <= this.lastId || this.count == MAX_RECORDS) {
+                throw new IllegalArgumentException ();
+            }
+            if (this.out.remaining () < RECORD_SIZE) {
+                writeFully ();
+            }
+            this.lastId = id;
+            this.count++;
+        }
+
+        private void writeFully () throws IOException {
+            this.out.flip ();
+            while (this.out.hasRemaining ()) {
+                this.channel.write (this.out);
+            }
+            this.out.clear ();
+        }
+    }
+}
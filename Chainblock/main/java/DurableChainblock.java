@@ -0,0 +1,465 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class DurableChainblock implements Chainblock, ScanStatistics, Closeable {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ChainblockImpl view;
+    private final List<Segment> segments;
+    private final ReadWriteLock lock;
+    private final Lock compactionLock;
+    private Segment active;
+    private long sequence;
+    private long totalRecords;
+    private long deadRecords;
+    private ScheduledExecutorService compactor;
+    private volatile RuntimeException lastCompactionFailure;
+
+    public DurableChainblock (Path directory) {
+        this (directory,DEFAULT_SEGMENT_SIZE);
+    }
+
+    public DurableChainblock (Path directory,int segmentSize) {
+        if (segmentSize < Segment.HEADER_SIZE + LogRecord.SIZE) {
+            throw new IllegalArgumentException ();
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.view = new ChainblockImpl ();
+        this.segments = new ArrayList<> ();
+        this.lock = new ReentrantReadWriteLock ();
+        this.compactionLock = new ReentrantLock ();
+        try {
+            Files.createDirectories (directory);
+            recover ();
+        } catch (IOException e) {
+            throw new UncheckedIOException (e);
+        }
+    }
+
+    public int getCount () {
+        this.lock.readLock ().lock ();
+        try {
+            return this.view.getCount ();
+        } finally {
+            this.lock.readLock ().unlock ();
+        }
+    }
+
+    public void add (Transaction transaction) {
+        LogRecord.validate (transaction);
+        this.lock.writeLock ().lock ();
+        try {
+            addLocked (transaction);
+        } finally {
+            this.lock.writeLock ().unlock ();
+        }
+    }
+
+    public void addAll (Iterable<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            LogRecord.validate (transaction);
+        }
+        this.lock.writeLock ().lock ();
+        try {
+            for (Transaction transaction : transactions) {
+                addLocked (transaction);
+            }
+        } finally {
+            this.lock.writeLock ().unlock ();
+        }
+    }
+
+    public boolean contains (Transaction transaction) {
+        return contains (transaction.getId ());
+    }
+
+    public boolean contains (int id) {
+        this.lock.readLock ().lock ();
+        try {
+            return this.view.contains (id);
+        } finally {
+            this.lock.readLock ().unlock ();
+        }
+    }
+
+    public void changeTransactionStatus (int id,TransactionStatus newStatus) {
+        if (newStatus == null) {
+            throw new IllegalArgumentException ();
+        }
+        this.lock.writeLock ().lock ();
+        try {
+            Transaction transaction = this.view.getById (id);
+            appendPut (id,newStatus,transaction.getSender (),transaction.getReceiver (),transaction.getAmount ());
+            this.view.changeTransactionStatus (id,newStatus);
+            this.deadRecords++;
+        } finally {
+            this.lock.writeLock ().unlock ();
+        }
+    }
+
+    public StatusChangeResult changeTransactionStatus (int[] ids,TransactionStatus newStatus) {
+        this.lock.writeLock ().lock ();
+        try {
+            StatusChangeResult result = this.view.changeTransactionStatus (ids,newStatus,t ->
+                    appendPut (t.getId (),newStatus,t.getSender (),t.getReceiver (),t.getAmount ()));
+            this.deadRecords += result.getChangedCount ();
+            return result;
+        } finally {
+            this.lock.writeLock ().unlock ();
+        }
+    }
+
+    public void removeTransactionById (int id) {
+        this.lock.writeLock ().lock ();
+        try {
+            if (!this.view.contains (id)) {
+                throw new IllegalArgumentException ();
+            }
+            appendRemove (id);
+            this.view.removeTransactionById (id);
+            this.deadRecords += 2;
+        } finally {
+            this.lock.writeLock ().unlock ();
+        }
+    }
+
+    public Transaction getById (int id) {
+        this.lock.readLock ().lock ();
+        try {
+            return this.view.getById (id);
+        } finally {
+            this.lock.readLock ().unlock ();
+        }
+    }
+
+    public Iterable<Transaction> getByTransactionStatus (TransactionStatus status) {
+        this.lock.readLock ().lock ();
+        try {
+            return this.view.getByTransactionStatus (status);
+        } finally {
+            this.lock.readLock ().unlock ();
+        }
+    }
+
+    public Iterable<String> getAllSendersWithTransactionStatus (TransactionStatus status) {
+        this.lock.readLock ().lock ();
+        try {
+            return this.view.getAllSendersWithTransactionStatus (status);
+        } finally {
+            this.lock.readLock ().unlock ();
+        }
+    }
+
+    public Iterable<String> getAllReceiversWithTransactionStatus (TransactionStatus status) {
+        this.lock.readLock ().lock ();
+        try {
+            return this.view.getAllReceiversWithTransactionStatus (status);
+        } finally {
+            this.lock.readLock ().unlock ();
+        }
+    }
+
+    public Iterable<Transaction> getAllOrderedByAmountDescendingThenById () {
+        this.lock.readLock ().lock ();
+        try {
+            return this.view.getAllOrderedByAmountDescendingThenById ();
+        } finally {
+            this.lock.readLock ().unlock ();
+        }
+    }
+
+    public Iterable<Transaction> getBySenderOrderedByAmountDescending (String sender) {
+        this.lock.readLock ().lock ();
+        try {
+            return this.view.getBySenderOrderedByAmountDescending (sender);
+        } finally {
+            this.lock.readLock ().unlock ();
+        }
+    }
+
+    public Iterable<Transaction> getByReceiverOrderedByAmountThenById (String receiver) {
+        this.lock.readLock ().lock ();
+        try {
+            return this.view.getByReceiverOrderedByAmountThenById (receiver);
+        } finally {
+            this.lock.readLock ().unlock ();
+        }
+    }
+
+    public Iterable<Transaction> getByTransactionStatusAndMaximumAmount (TransactionStatus status,double amount) {
+        this.lock.readLock ().lock ();
+        try {
+            return this.view.getByTransactionStatusAndMaximumAmount (status,amount);
+        } finally {
+            this.lock.readLock ().unlock ();
+        }
+    }
+
+    public Iterable<Transaction> getBySenderAndMinimumAmountDescending (String sender,double amount) {
+        this.lock.readLock ().lock ();
+        try {
+            return this.view.getBySenderAndMinimumAmountDescending (sender,amount);
+        } finally {
+            this.lock.readLock ().unlock ();
+        }
+    }
+
+    public Iterable<Transaction> getByReceiverAndAmountRange (String receiver,double lo,double hi) {
+        this.lock.readLock ().lock ();
+        try {
+            return this.view.getByReceiverAndAmountRange (receiver,lo,hi);
+        } finally {
+            this.lock.readLock ().unlock ();
+        }
+    }
+
+    public Iterable<Transaction> getAllInAmountRange (double lo,double hi) {
+        this.lock.readLock ().lock ();
+        try {
+            return this.view.getAllInAmountRange (lo,hi);
+        } finally {
+            this.lock.readLock ().unlock ();
+        }
+    }
+
+    public Iterator<Transaction> iterator () {
+        this.lock.readLock ().lock ();
+        try {
+            List<Transaction> snapshot = new ArrayList<> ();
+            for (Transaction transaction : this.view) {
+                snapshot.add (transaction);
+            }
+            return snapshot.iterator ();
+        } finally {
+            this.lock.readLock ().unlock ();
+        }
+    }
+
+    public long getScannedRows () {
+        return this.view.getScannedRows ();
+    }
+
+    public void sync () {
+        this.lock.writeLock ().lock ();
+        try {
+            this.active.force ();
+        } finally {
+            this.lock.writeLock ().unlock ();
+        }
+    }
+
+    public double getDeadRecordRatio () {
+        this.lock.readLock ().lock ();
+        try {
+            return this.totalRecords == 0 ? 0 : (double) this.deadRecords / this.totalRecords;
+        } finally {
+            this.lock.readLock ().unlock ();
+        }
+    }
+
+    public RuntimeException getLastCompactionFailure () {
+        return this.lastCompactionFailure;
+    }
+
+    public synchronized void startCompaction (long period,TimeUnit unit,double deadRecordRatio) {
+        if (this.compactor != null) {
+            throw new IllegalStateException ();
+        }
+        this.compactor = Executors.newSingleThreadScheduledExecutor (r -> {
+            Thread thread = new Thread (r,"chainblock-compaction");
+            thread.setDaemon (true);
+            return thread;
+        });
+        this.compactor.scheduleWithFixedDelay (() -> {
+            try {
+                if (getDeadRecordRatio () >= deadRecordRatio) {
+                    compact ();
+                }
+            } catch (RuntimeException e) {
+                this.lastCompactionFailure = e;
+            }
+        },period,period,unit);
+    }
+
+    // Rewrites the live records of every sealed segment into one compacted segment.
+    // Sealed segments are immutable, so only the final swap needs the write lock.
+    public void compact () {
+        this.compactionLock.lock ();
+        try {
+            List<Segment> sealed;
+            this.lock.readLock ().lock ();
+            try {
+                sealed = new ArrayList<> (this.segments.subList (0,this.segments.size () - 1));
+            } finally {
+                this.lock.readLock ().unlock ();
+            }
+            if (sealed.isEmpty () || sealed.size () == 1 && sealed.get (0).isCompacted ()) {
+                return;
+            }
+            LinkedHashMap<Integer, Long> live          = new LinkedHashMap<> ();
+            long                         sealedRecords = 0;
+            for (int i = 0; i < sealed.size (); i++) {
+                Segment    segment = sealed.get (i);
+                ByteBuffer buffer  = segment.getBuffer ();
+                for (int offset = Segment.HEADER_SIZE; offset < segment.getEnd (); offset += LogRecord.SIZE) {
+                    if (LogRecord.type (buffer,offset) == LogRecord.PUT) {
+                        live.put (LogRecord.id (buffer,offset),(long) i << 32 | offset);
+                    } else {
+                        live.remove (LogRecord.id (buffer,offset));
+                    }
+                }
+                sealedRecords += segment.getRecordCount ();
+            }
+            Segment last      = sealed.get (sealed.size () - 1);
+            Segment compacted = Segment.writeCompacted (this.directory,last.getIndex (),sealed,live.values ());
+            this.lock.writeLock ().lock ();
+            try {
+                this.segments.subList (0,sealed.size ()).clear ();
+                this.segments.add (0,compacted);
+                this.totalRecords -= sealedRecords - live.size ();
+                this.deadRecords -= sealedRecords - live.size ();
+            } finally {
+                this.lock.writeLock ().unlock ();
+            }
+            last.close ();
+            for (Segment segment : sealed.subList (0,sealed.size () - 1)) {
+                segment.delete ();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException (e);
+        } finally {
+            this.compactionLock.unlock ();
+        }
+    }
+
+    @Override
+    public void close () throws IOException {
+        synchronized (this) {
+            if (this.compactor != null) {
+                this.compactor.shutdownNow ();
+                try {
+                    this.compactor.awaitTermination (1,TimeUnit.MINUTES);
+                } catch (InterruptedException e) {
+                    Thread.currentThread ().interrupt ();
+                }
+            }
+        }
+        this.compactionLock.lock ();
+        this.lock.writeLock ().lock ();
+        try {
+            this.active.force ();
+            for (Segment segment : this.segments) {
+                segment.close ();
+            }
+        } finally {
+            this.lock.writeLock ().unlock ();
+            this.compactionLock.unlock ();
+        }
+    }
+
+    private void recover () throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list (this.directory)) {
+            files = list.sorted ().collect (Collectors.toList ());
+        }
+        for (Path file : files) {
+            String name = file.getFileName ().toString ();
+            if (name.endsWith (Segment.TEMP_SUFFIX)) {
+                Files.delete (file);
+            } else if (name.endsWith (Segment.SUFFIX)) {
+                Segment segment = Segment.open (file);
+                if (segment.isCompacted ()) {
+                    for (Segment superseded : this.segments) {
+                        superseded.delete ();
+                    }
+                    this.segments.clear ();
+                }
+                this.segments.add (segment);
+            }
+        }
+        for (Segment segment : this.segments) {
+            replay (segment);
+        }
+        if (this.segments.isEmpty ()) {
+            this.segments.add (Segment.create (this.directory,0,this.segmentSize));
+        }
+        this.active = this.segments.get (this.segments.size () - 1);
+    }
+
+    private void replay (Segment segment) {
+        ByteBuffer buffer = segment.getBuffer ();
+        for (int offset = Segment.HEADER_SIZE; offset < segment.getEnd (); offset += LogRecord.SIZE) {
+            int id = LogRecord.id (buffer,offset);
+            if (LogRecord.type (buffer,offset) == LogRecord.PUT) {
+                if (this.view.contains (id)) {
+                    this.view.changeTransactionStatus (id,LogRecord.status (buffer,offset));
+                    this.deadRecords++;
+                } else {
+                    this.view.add (LogRecord.toTransaction (buffer,offset));
+                }
+            } else {
+                if (this.view.contains (id)) {
+                    this.view.removeTransactionById (id);
+                    this.deadRecords++;
+                }
+                this.deadRecords++;
+            }
+            this.totalRecords++;
+            this.sequence = Math.max (this.sequence,LogRecord.sequence (buffer,offset));
+        }
+    }
+
+    private void addLocked (Transaction transaction) {
+        if (this.view.contains (transaction.getId ())) {
+            return;
+        }
+        appendPut (transaction.getId (),transaction.getStatus (),
+                transaction.getSender (),transaction.getReceiver (),transaction.getAmount ());
+        this.view.add (transaction);
+    }
+
+    private void appendPut (int id,TransactionStatus status,String sender,String receiver,double amount) {
+        ensureRoom ();
+        this.active.appendPut (++this.sequence,id,status,sender,receiver,amount);
+        this.totalRecords++;
+    }
+
+    private void appendRemove (int id) {
+        ensureRoom ();
+        this.active.appendRemove (++this.sequence,id);
+        this.totalRecords++;
+    }
+
+    private void ensureRoom () {
+        if (this.active.hasRoom ()) {
+            return;
+        }
+        try {
+            this.active.force ();
+            this.active = Segment.create (this.directory,this.active.getIndex () + 1,this.segmentSize);
+            this.segments.add (this.active);
+        } catch (IOException e) {
+            throw new UncheckedIOException (e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Multi-producer ring buffer in front of a Chainblock. Producers claim a slot with a single
+// atomic increment; one writer thread drains published slots and applies them with addAll.
+// The target is only touched by the writer thread, so readers need flush() or a thread-safe target.
+public class IngestPipeline implements Closeable {
+    public static final int DEFAULT_CAPACITY = 64 * 1024;
+    public static final int DEFAULT_MAX_BATCH = 4 * 1024;
+
+    private static final long IDLE_PARK_NANOS = 50_000;
+
+    private final Chainblock target;
+    private final Transaction[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final int maxBatch;
+    private final AtomicLong claimed;
+    private final AtomicLong batches;
+    private final AtomicLong failedBatches;
+    private final Thread writer;
+    private volatile long consumed;
+    private volatile boolean running;
+    private volatile RuntimeException lastFailure;
+
+    public IngestPipeline (Chainblock target) {
+        this (target,DEFAULT_CAPACITY,DEFAULT_MAX_BATCH);
+    }
+
+    public IngestPipeline (Chainblock target,int capacity,int maxBatch) {
+        if (capacity < 2 || Integer.bitCount (capacity) != 1 || maxBatch < 1) {
+            throw new IllegalArgumentException ();
+        }
+        this.target = target;
+        this.slots = new Transaction[capacity];
+        this.published = new AtomicLongArray (capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.published.set (i,-1);
+        }
+        this.mask = capacity - 1;
+        this.maxBatch = maxBatch;
+        this.claimed = new AtomicLong ();
+        this.consumed = -1;
+        this.running = true;
+        this.batches = new AtomicLong ();
+        this.failedBatches = new AtomicLong ();
+        this.writer = new Thread (this::drain,"chainblock-ingest");
+        this.writer.setDaemon (true);
+        this.writer.start ();
+    }
+
+    public void publish (Transaction transaction) {
+        if (transaction == null) {
+            throw new IllegalArgumentException ();
+        }
+        if (!this.running) {
+            throw new IllegalStateException ("Pipeline is closed");
+        }
+        long sequence = this.claimed.getAndIncrement ();
+        // close() may have run since the check above, and the writer may already have
+        // stopped without waiting for this slot: fill it with an empty tombstone and fail
+        boolean closed = !this.running;
+        while (sequence - this.consumed > this.mask) {
+            Thread.onSpinWait ();
+            if (!this.writer.isAlive ()) {
+                throw new IllegalStateException ("Pipeline is closed");
+            }
+        }
+        int index = (int) sequence & this.mask;
+        this.slots[index] = closed ? null : transaction;
+        this.published.lazySet (index,sequence);
+        if (closed) {
+            throw new IllegalStateException ("Pipeline is closed");
+        }
+    }
+
+    // Blocks until everything published before the call has been applied to the target.
+    public void flush () {
+        long last = this.claimed.get () - 1;
+        while (this.consumed < last) {
+            if (!this.writer.isAlive ()) {
+                return;
+            }
+            LockSupport.parkNanos (IDLE_PARK_NANOS);
+        }
+    }
+
+    public long getBatchCount () {
+        return this.batches.get ();
+    }
+
+    public long getFailedBatchCount () {
+        return this.failedBatches.get ();
+    }
+
+    public RuntimeException getLastFailure () {
+        return this.lastFailure;
+    }
+
+    @Override
+    public void close () {
+        this.running = false;
+        try {
+            this.writer.join ();
+        } catch (InterruptedException e) {
+            Thread.currentThread ().interrupt ();
+        }
+    }
+
+    private void drain () {
+        List<Transaction> batch = new ArrayList<> (this.maxBatch);
+        long              next  = 0;
+        while (true) {
+            while (batch.size () < this.maxBatch) {
+                int index = (int) next & this.mask;
+                if (this.published.get (index) != next) {
+                    break;
+                }
+                if (this.slots[index] != null) {
+                    batch.add (this.slots[index]);
+                    this.slots[index] = null;
+                }
+                next++;
+            }
+            if (batch.isEmpty ()) {
+                this.consumed = next - 1;
+                if (!this.running && next == this.claimed.get ()) {
+                    return;
+                }
+                LockSupport.parkNanos (IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                this.target.addAll (batch);
+            } catch (RuntimeException e) {
+                this.lastFailure = e;
+                this.failedBatches.incrementAndGet ();
+            }
+            this.batches.incrementAndGet ();
+            this.consumed = next - 1;
+            batch.clear ();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Chainblock decorator recording per-method call counts, failures, latency histograms,
+// returned rows and, when the delegate implements ScanStatistics, rows visited. Recording
+// allocates nothing, so it can stay on in production; snapshot() copies the current totals.
+public class InstrumentedChainblock implements Chainblock {
+    public enum Method {
+        GET_COUNT,
+        ADD,
+        ADD_ALL,
+        CONTAINS,
+        CONTAINS_ID,
+        CHANGE_TRANSACTION_STATUS,
+        REMOVE_TRANSACTION_BY_ID,
+        GET_BY_ID,
+        GET_BY_TRANSACTION_STATUS,
+        GET_ALL_SENDERS_WITH_TRANSACTION_STATUS,
+        GET_ALL_RECEIVERS_WITH_TRANSACTION_STATUS,
+        GET_ALL_ORDERED_BY_AMOUNT_DESCENDING_THEN_BY_ID,
+        GET_BY_SENDER_ORDERED_BY_AMOUNT_DESCENDING,
+        GET_BY_RECEIVER_ORDERED_BY_AMOUNT_THEN_BY_ID,
+        GET_BY_TRANSACTION_STATUS_AND_MAXIMUM_AMOUNT,
+        GET_BY_SENDER_AND_MINIMUM_AMOUNT_DESCENDING,
+        GET_BY_RECEIVER_AND_AMOUNT_RANGE,
+        GET_ALL_IN_AMOUNT_RANGE
+    }
+
+    private final Chainblock delegate;
+    private final ScanStatistics scans;
+    private final Recorder[] recorders;
+
+    public InstrumentedChainblock (Chainblock delegate) {
+        this.delegate = delegate;
+        this.scans = delegate instanceof ScanStatistics ? (ScanStatistics) delegate : null;
+        this.recorders = new Recorder[Method.values ().length];
+        for (int i = 0; i < this.recorders.length; i++) {
+            this.recorders[i] = new Recorder ();
+        }
+    }
+
+    public Map<Method, MethodStatistics> snapshot () {
+        Map<Method, MethodStatistics> snapshot = new EnumMap<> (Method.class);
+        for (Method method : Method.values ()) {
+            Recorder recorder = this.recorders[method.ordinal ()];
+            if (recorder.latency.getCount () > 0) {
+                snapshot.put (method,recorder.snapshot (method.name ()));
+            }
+        }
+        return snapshot;
+    }
+
+    public MethodStatistics getStatistics (Method method) {
+        return this.recorders[method.ordinal ()].snapshot (method.name ());
+    }
+
+    public int getCount () {
+        long scanned = scannedRows ();
+        long start   = System.nanoTime ();
+        try {
+            int result = this.delegate.getCount ();
+            completed (Method.GET_COUNT,start,scanned,0);
+            return result;
+        } catch (RuntimeException e) {
+            failed (Method.GET_COUNT,start,scanned);
+            throw e;
+        }
+    }
+
+    public void add (Transaction transaction) {
+        long scanned = scannedRows ();
+        long start   = System.nanoTime ();
+        try {
+            this.delegate.add (transaction);
+            completed (Method.ADD,start,scanned,0);
+        } catch (RuntimeException e) {
+            failed (Method.ADD,start,scanned);
+            throw e;
+        }
+    }
+
+    public void addAll (Iterable<Transaction> transactions) {
+        long scanned = scannedRows ();
+        long start   = System.nanoTime ();
+        try {
+            this.delegate.addAll (transactions);
+            completed (Method.ADD_ALL,start,scanned,0);
+        } catch (RuntimeException e) {
+            failed (Method.ADD_ALL,start,scanned);
+            throw e;
+        }
+    }
+
+    public boolean contains (Transaction transaction) {
+        long scanned = scannedRows ();
+        long start   = System.nanoTime ();
+        try {
+            boolean result = this.delegate.contains (transaction);
+            completed (Method.CONTAINS,start,scanned,0);
+            return result;
+        } catch (RuntimeException e) {
+            failed (Method.CONTAINS,start,scanned);
+            throw e;
+        }
+    }
+
+    public boolean contains (int id) {
+        long scanned = scannedRows ();
+        long start   = System.nanoTime ();
+        try {
+            boolean result = this.delegate.contains (id);
+            completed (Method.CONTAINS_ID,start,scanned,0);
+            return result;
+        } catch (RuntimeException e) {
+            failed (Method.CONTAINS_ID,start,scanned);
+            throw e;
+        }
+    }
+
+    public void changeTransactionStatus (int id,TransactionStatus newStatus) {
+        long scanned = scannedRows ();
+        long start   = System.nanoTime ();
+        try {
+            this.delegate.changeTransactionStatus (id,newStatus);
+            completed (Method.CHANGE_TRANSACTION_STATUS,start,scanned,0);
+        } catch (RuntimeException e) {
+            failed (Method.CHANGE_TRANSACTION_STATUS,start,scanned);
+            throw e;
+        }
+    }
+
+    public void removeTransactionById (int id) {
+        long scanned = scannedRows ();
+        long start   = System.nanoTime ();
+        try {
+            this.delegate.removeTransactionById (id);
+            completed (Method.REMOVE_TRANSACTION_BY_ID,start,scanned,0);
+        } catch (RuntimeException e) {
+            failed (Method.REMOVE_TRANSACTION_BY_ID,start,scanned);
+            throw e;
+        }
+    }
+
+    public Transaction getById (int id) {
+        long scanned = scannedRows ();
+        long start   = System.nanoTime ();
+        try {
+            Transaction transaction = this.delegate.getById (id);
+            completed (Method.GET_BY_ID,start,scanned,1);
+            return transaction;
+        } catch (RuntimeException e) {
+            failed (Method.GET_BY_ID,start,scanned);
+            throw e;
+        }
+    }
+
+    public Iterable<Transaction> getByTransactionStatus (TransactionStatus status) {
+        long scanned = scannedRows ();
+        long start   = System.nanoTime ();
+        try {
+            return returned (Method.GET_BY_TRANSACTION_STATUS,start,scanned,this.delegate.getByTransactionStatus (status));
+        } catch (RuntimeException e) {
+            failed (Method.GET_BY_TRANSACTION_STATUS,start,scanned);
+            throw e;
+        }
+    }
+
+    public Iterable<String> getAllSendersWithTransactionStatus (TransactionStatus status) {
+        long scanned = scannedRows ();
+        long start   = System.nanoTime ();
+        try {
+            return returned (Method.GET_ALL_SENDERS_WITH_TRANSACTION_STATUS,start,scanned,this.delegate.getAllSendersWithTransactionStatus (status));
+        } catch (RuntimeException e) {
+            failed (Method.GET_ALL_SENDERS_WITH_TRANSACTION_STATUS,start,scanned);
+            throw e;
+        }
+    }
+
+    public Iterable<String> getAllReceiversWithTransactionStatus (TransactionStatus status) {
+        long scanned = scannedRows ();
+        long start   = System.nanoTime ();
+        try {
+            return returned (Method.GET_ALL_RECEIVERS_WITH_TRANSACTION_STATUS,start,scanned,this.delegate.getAllReceiversWithTransactionStatus (status));
+        } catch (RuntimeException e) {
+            failed (Method.GET_ALL_RECEIVERS_WITH_TRANSACTION_STATUS,start,scanned);
+            throw e;
+        }
+    }
+
+    public Iterable<Transaction> getAllOrderedByAmountDescendingThenById () {
+        long scanned = scannedRows ();
+        long start   = System.nanoTime ();
+        try {
+            return returned (Method.GET_ALL_ORDERED_BY_AMOUNT_DESCENDING_THEN_BY_ID,start,scanned,this.delegate.getAllOrderedByAmountDescendingThenById ());
+        } catch (RuntimeException e) {
+            failed (Method.GET_ALL_ORDERED_BY_AMOUNT_DESCENDING_THEN_BY_ID,start,scanned);
+            throw e;
+        }
+    }
+
+    public Iterable<Transaction> getBySenderOrderedByAmountDescending (String sender) {
+        long scanned = scannedRows ();
+        long start   = System.nanoTime ();
+        try {
+            return returned (Method.GET_BY_SENDER_ORDERED_BY_AMOUNT_DESCENDING,start,scanned,this.delegate.getBySenderOrderedByAmountDescending (sender));
+        } catch (RuntimeException e) {
+            failed (Method.GET_BY_SENDER_ORDERED_BY_AMOUNT_DESCENDING,start,scanned);
+            throw e;
+        }
+    }
+
+    public Iterable<Transaction> getByReceiverOrderedByAmountThenById (String receiver) {
+        long scanned = scannedRows ();
+        long start   = System.nanoTime ();
+        try {
+            return returned (Method.GET_BY_RECEIVER_ORDERED_BY_AMOUNT_THEN_BY_ID,start,scanned,this.delegate.getByReceiverOrderedByAmountThenById (receiver));
+        } catch (RuntimeException e) {
+            failed (Method.GET_BY_RECEIVER_ORDERED_BY_AMOUNT_THEN_BY_ID,start,scanned);
+            throw e;
+        }
+    }
+
+    public Iterable<Transaction> getByTransactionStatusAndMaximumAmount (TransactionStatus status,double amount) {
+        long scanned = scannedRows ();
+        long start   = System.nanoTime ();
+        try {
+            return returned (Method.GET_BY_TRANSACTION_STATUS_AND_MAXIMUM_AMOUNT,start,scanned,this.delegate.getByTransactionStatusAndMaximumAmount (status,amount));
+        } catch (RuntimeException e) {
+            failed (Method.GET_BY_TRANSACTION_STATUS_AND_MAXIMUM_AMOUNT,start,scanned);
+            throw e;
+        }
+    }
+
+    public Iterable<Transaction> getBySenderAndMinimumAmountDescending (String sender,double amount) {
+        long scanned = scannedRows ();
+        long start   = System.nanoTime ();
+        try {
+            return returned (Method.GET_BY_SENDER_AND_MINIMUM_AMOUNT_DESCENDING,start,scanned,this.delegate.getBySenderAndMinimumAmountDescending (sender,amount));
+        } catch (RuntimeException e) {
+            failed (Method.GET_BY_SENDER_AND_MINIMUM_AMOUNT_DESCENDING,start,scanned);
+            throw e;
+        }
+    }
+
+    public Iterable<Transaction> getByReceiverAndAmountRange (String receiver,double lo,double hi) {
+        long scanned = scannedRows ();
+        long start   = System.nanoTime ();
+        try {
+            return returned (Method.GET_BY_RECEIVER_AND_AMOUNT_RANGE,start,scanned,this.delegate.getByReceiverAndAmountRange (receiver,lo,hi));
+        } catch (RuntimeException e) {
+            failed (Method.GET_BY_RECEIVER_AND_AMOUNT_RANGE,start,scanned);
+            throw e;
+        }
+    }
+
+    public Iterable<Transaction> getAllInAmountRange (double lo,double hi) {
+        long scanned = scannedRows ();
+        long start   = System.nanoTime ();
+        try {
+            return returned (Method.GET_ALL_IN_AMOUNT_RANGE,start,scanned,this.delegate.getAllInAmountRange (lo,hi));
+        } catch (RuntimeException e) {
+            failed (Method.GET_ALL_IN_AMOUNT_RANGE,start,scanned);
+            throw e;
+        }
+    }
+
+    public Iterator<Transaction> iterator () {
+        return this.delegate.iterator ();
+    }
+
+    private long scannedRows () {
+        return this.scans == null ? 0 : this.scans.getScannedRows ();
+    }
+
+    // Result sizes are only counted for collections; other iterables may be single-use.
+    private <T> Iterable<T> returned (Method method,long start,long scanned,Iterable<T> result) {
+        completed (method,start,scanned,result instanceof Collection ? ((Collection<?>) result).size () : 0);
+        return result;
+    }
+
+    private void completed (Method method,long start,long scanned,int returned) {
+        Recorder recorder = this.recorders[method.ordinal ()];
+        recorder.latency.record (System.nanoTime () - start);
+        recorder.returned.add (returned);
+        recorder.scanned.add (scannedRows () - scanned);
+    }
+
+    private void failed (Method method,long start,long scanned) {
+        this.recorders[method.ordinal ()].failures.increment ();
+        completed (method,start,scanned,0);
+    }
+
+    private static final class Recorder {
+        private final LatencyHistogram latency = new LatencyHistogram ();
+        private final LongAdder failures = new LongAdder ();
+        private final LongAdder returned = new LongAdder ();
+        private final LongAdder scanned = new LongAdder ();
+
+        private MethodStatistics snapshot (String method) {
+            return new MethodStatistics (method,this.latency.getCount (),this.failures.sum (),this.latency.getTotalNanos (),
+                    this.latency.getMaxNanos (),this.latency.getPercentileNanos (50),this.latency.getPercentileNanos (99),
+                    this.returned.sum (),this.scanned.sum ());
+        }
+    }
+}
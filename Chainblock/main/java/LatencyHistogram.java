@@ -0,0 +1,90 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Log-linear histogram of nanosecond latencies: values below 8 get their own bucket and
+// every power of two above is split into 4 buckets, so a reported percentile is at most
+// 25% above the true value. Recording is a few atomic adds and never allocates.
+public class LatencyHistogram {
+    private static final int SUB_BUCKETS = 4;
+    private static final int LINEAR_LIMIT = 8;
+    private static final int BUCKETS = LINEAR_LIMIT + (63 - 3) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong count;
+    private final AtomicLong totalNanos;
+    private final AtomicLong maxNanos;
+
+    public LatencyHistogram () {
+        this.counts = new AtomicLongArray (BUCKETS);
+        this.count = new AtomicLong ();
+        this.totalNanos = new AtomicLong ();
+        this.maxNanos = new AtomicLong ();
+    }
+
+    static int bucket (long nanos) {
+        if (nanos < LINEAR_LIMIT) {
+            return (int) Math.max (nanos,0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros (nanos);
+        int sub      = (int) (nanos >>> (exponent - 2)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - 3) * SUB_BUCKETS + sub;
+    }
+
+    // Largest value that falls into the bucket.
+    static long upperBound (int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int  exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 3;
+        int  sub      = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        long width    = 1L << (exponent - 2);
+        return (SUB_BUCKETS + sub) * width + width - 1;
+    }
+
+    public void record (long nanos) {
+        this.counts.incrementAndGet (bucket (nanos));
+        this.count.incrementAndGet ();
+        this.totalNanos.addAndGet (nanos);
+        long max = this.maxNanos.get ();
+        while (nanos > max && !this.maxNanos.compareAndSet (max,nanos)) {
+            max = this.maxNanos.get ();
+        }
+    }
+
+    public long getCount () {
+        return this.count.get ();
+    }
+
+    public long getTotalNanos () {
+        return this.totalNanos.get ();
+    }
+
+    public long getMaxNanos () {
+        return this.maxNanos.get ();
+    }
+
+    // Upper bound of the bucket holding the given percentile (0 - 100), 0 when empty.
+    public long getPercentileNanos (double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException ();
+        }
+        long[] snapshot = new long[BUCKETS];
+        long   total    = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = this.counts.get (i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max (1,(long) Math.ceil (percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min (upperBound (i),getMaxNanos ());
+            }
+        }
+        return getMaxNanos ();
+    }
+}
@@ -0,0 +1,134 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+// Fixed-width 128 byte log record:
+// type(1) status(1) pad(2) id(4) amount(8) sender(48) receiver(48) sequence(8) pad(4) crc(4)
+// names are stored as a length byte followed by at most 47 bytes of UTF-8.
+public final class LogRecord {
+    public static final int SIZE = 128;
+    public static final int MAX_NAME_BYTES = 47;
+
+    static final byte PUT = 1;
+    static final byte REMOVE = 2;
+
+    private static final int TYPE = 0;
+    private static final int STATUS = 1;
+    private static final int ID = 4;
+    private static final int AMOUNT = 8;
+    private static final int SENDER = 16;
+    private static final int RECEIVER = 64;
+    private static final int SEQUENCE = 112;
+    private static final int CHECKSUM = 124;
+
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values ();
+
+    private LogRecord () {
+    }
+
+    static void writePut (ByteBuffer buffer,int offset,long sequence,int id,TransactionStatus status,
+                          String sender,String receiver,double amount) {
+        if (status == null) {
+            throw new IllegalArgumentException ();
+        }
+        byte[] senderBytes   = encodeName (sender);
+        byte[] receiverBytes = encodeName (receiver);
+        clear (buffer,offset);
+        buffer.put (offset + TYPE,PUT);
+        buffer.put (offset + STATUS,(byte) status.ordinal ());
+        buffer.putInt (offset + ID,id);
+        buffer.putDouble (offset + AMOUNT,amount);
+        putName (buffer,offset + SENDER,senderBytes);
+        putName (buffer,offset + RECEIVER,receiverBytes);
+        buffer.putLong (offset + SEQUENCE,sequence);
+        buffer.putInt (offset + CHECKSUM,checksum (buffer,offset));
+    }
+
+    static void writeRemove (ByteBuffer buffer,int offset,long sequence,int id) {
+        clear (buffer,offset);
+        buffer.put (offset + TYPE,REMOVE);
+        buffer.putInt (offset + ID,id);
+        buffer.putLong (offset + SEQUENCE,sequence);
+        buffer.putInt (offset + CHECKSUM,checksum (buffer,offset));
+    }
+
+    static void validate (Transaction transaction) {
+        if (transaction.getStatus () == null) {
+            throw new IllegalArgumentException ();
+        }
+        encodeName (transaction.getSender ());
+        encodeName (transaction.getReceiver ());
+    }
+
+    static boolean isValid (ByteBuffer buffer,int offset) {
+        byte type = buffer.get (offset + TYPE);
+        if (type != PUT && type != REMOVE) {
+            return false;
+        }
+        return buffer.getInt (offset + CHECKSUM) == checksum (buffer,offset);
+    }
+
+    static byte type (ByteBuffer buffer,int offset) {
+        return buffer.get (offset + TYPE);
+    }
+
+    static int id (ByteBuffer buffer,int offset) {
+        return buffer.getInt (offset + ID);
+    }
+
+    static TransactionStatus status (ByteBuffer buffer,int offset) {
+        return STATUSES[buffer.get (offset + STATUS)];
+    }
+
+    static long sequence (ByteBuffer buffer,int offset) {
+        return buffer.getLong (offset + SEQUENCE);
+    }
+
+    static Transaction toTransaction (ByteBuffer buffer,int offset) {
+        return new TransactionImpl (id (buffer,offset),
+                status (buffer,offset),
+                getName (buffer,offset + SENDER),
+                getName (buffer,offset + RECEIVER),
+                buffer.getDouble (offset + AMOUNT));
+    }
+
+    private static byte[] encodeName (String name) {
+        if (name == null) {
+            throw new IllegalArgumentException ();
+        }
+        byte[] bytes = name.getBytes (StandardCharsets.UTF_8);
+        if (bytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException ("Name longer than " + MAX_NAME_BYTES + " bytes: " + name);
+        }
+        return bytes;
+    }
+
+    private static void putName (ByteBuffer buffer,int offset,byte[] bytes) {
+        buffer.put (offset,(byte) bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            buffer.put (offset + 1 + i,bytes[i]);
+        }
+    }
+
+    private static String getName (ByteBuffer buffer,int offset) {
+        byte[] bytes = new byte[buffer.get (offset) & 0xFF];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get (offset + 1 + i);
+        }
+        return new String (bytes,StandardCharsets.UTF_8);
+    }
+
+    private static void clear (ByteBuffer buffer,int offset) {
+        for (int i = 0; i < SIZE; i += Long.BYTES) {
+            buffer.putLong (offset + i,0L);
+        }
+    }
+
+    private static int checksum (ByteBuffer buffer,int offset) {
+        ByteBuffer record = buffer.duplicate ();
+        record.limit (offset + CHECKSUM).position (offset);
+        CRC32 crc = new CRC32 ();
+        crc.update (record);
+        return (int) crc.getValue ();
+    }
+}
@@ -0,0 +1,74 @@
+// Point-in-time copy of what InstrumentedChainblock recorded for one method.
+public class MethodStatistics {
+    private final String method;
+    private final long calls;
+    private final long failures;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long returnedRows;
+    private final long scannedRows;
+
+    public MethodStatistics (String method,long calls,long failures,long totalNanos,long maxNanos,
+                             long p50Nanos,long p99Nanos,long returnedRows,long scannedRows) {
+        this.method = method;
+        this.calls = calls;
+        this.failures = failures;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.returnedRows = returnedRows;
+        this.scannedRows = scannedRows;
+    }
+
+    public String getMethod () {
+        return this.method;
+    }
+
+    public long getCalls () {
+        return this.calls;
+    }
+
+    public long getFailures () {
+        return this.failures;
+    }
+
+    public long getTotalNanos () {
+        return this.totalNanos;
+    }
+
+    public long getMaxNanos () {
+        return this.maxNanos;
+    }
+
+    public long getP50Nanos () {
+        return this.p50Nanos;
+    }
+
+    public long getP99Nanos () {
+        return this.p99Nanos;
+    }
+
+    public long getReturnedRows () {
+        return this.returnedRows;
+    }
+
+    public long getScannedRows () {
+        return this.scannedRows;
+    }
+
+    // Transactions visited per transaction returned; high values point at queries that
+    // scan far more than they need.
+    public double getScanRatio () {
+        return this.returnedRows == 0 ? this.scannedRows : (double) this.scannedRows / this.returnedRows;
+    }
+
+    @Override
+    public String toString () {
+        return String.format ("%s calls=%d failures=%d total=%.3fms p50=%dns p99=%dns max=%dns returned=%d scanned=%d ratio=%.2f",
+                this.method,this.calls,this.failures,this.totalNanos / 1e6,this.p50Nanos,this.p99Nanos,this.maxNanos,
+                this.returnedRows,this.scannedRows,getScanRatio ());
+    }
+}
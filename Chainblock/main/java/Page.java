@@ -0,0 +1,30 @@
+import java.util.Iterator;
+import java.util.List;
+
+public class Page<T> implements Iterable<T> {
+    private final List<T> items;
+    private final String nextToken;
+
+    public Page (List<T> items,String nextToken) {
+        this.items = items;
+        this.nextToken = nextToken;
+    }
+
+    public List<T> getItems () {
+        return this.items;
+    }
+
+    // Continuation token for the following page, null on the last page.
+    public String getNextToken () {
+        return this.nextToken;
+    }
+
+    public boolean hasNext () {
+        return this.nextToken != null;
+    }
+
+    @Override
+    public Iterator<T> iterator () {
+        return this.items.iterator ();
+    }
+}
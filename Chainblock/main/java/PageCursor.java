@@ -0,0 +1,46 @@
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+// Opaque continuation token holding the (amount, id) of the last transaction of a page.
+public final class PageCursor {
+    private static final int SIZE = Double.BYTES + Integer.BYTES;
+
+    private final double amount;
+    private final int id;
+
+    public PageCursor (double amount,int id) {
+        this.amount = amount;
+        this.id = id;
+    }
+
+    public static PageCursor of (Transaction transaction) {
+        return new PageCursor (transaction.getAmount (),transaction.getId ());
+    }
+
+    public static PageCursor decode (String token) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder ().decode (token);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException ("Invalid page token: " + token,e);
+        }
+        if (bytes.length != SIZE) {
+            throw new IllegalArgumentException ("Invalid page token: " + token);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap (bytes);
+        return new PageCursor (buffer.getDouble (),buffer.getInt ());
+    }
+
+    public String encode () {
+        ByteBuffer buffer = ByteBuffer.allocate (SIZE).putDouble (this.amount).putInt (this.id);
+        return Base64.getUrlEncoder ().withoutPadding ().encodeToString (buffer.array ());
+    }
+
+    public double getAmount () {
+        return this.amount;
+    }
+
+    public int getId () {
+        return this.id;
+    }
+}
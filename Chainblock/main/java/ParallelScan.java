@@ -0,0 +1,125 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
+
+// Splits a list of transactions in insertion order into contiguous chunks, filters and
+// stable-sorts each chunk on a fork-join pool and k-way merges the sorted chunks. Ties go
+// to the earlier chunk, so the result is exactly what a sequential filter followed by a
+// stable sort gives. Lists shorter than the threshold are handled on the calling thread.
+public class ParallelScan {
+    private static final int MIN_CHUNK_ROWS = 4096;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public ParallelScan (ForkJoinPool pool,int threshold) {
+        if (pool == null || threshold < 1) {
+            throw new IllegalArgumentException ();
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    public int getThreshold () {
+        return this.threshold;
+    }
+
+    // Null rows are skipped and a null order keeps the insertion order.
+    public List<Transaction> run (List<Transaction> rows,Predicate<Transaction> filter,Comparator<Transaction> order) {
+        int rowCount = rows.size ();
+        if (rowCount < this.threshold) {
+            return chunk (rows,0,rowCount,filter,order);
+        }
+        int chunks = Math.max (1,Math.min (this.pool.getParallelism () * CHUNKS_PER_THREAD,rowCount / MIN_CHUNK_ROWS));
+
+        List<ForkJoinTask<List<Transaction>>> tasks = new ArrayList<> (chunks);
+        for (int c = 0; c < chunks; c++) {
+            int from = (int) ((long) rowCount * c / chunks);
+            int to   = (int) ((long) rowCount * (c + 1) / chunks);
+            tasks.add (this.pool.submit (() -> chunk (rows,from,to,filter,order)));
+        }
+        List<List<Transaction>> sorted = new ArrayList<> (chunks);
+        int                     total  = 0;
+        for (ForkJoinTask<List<Transaction>> task : tasks) {
+            List<Transaction> chunk = task.join ();
+            sorted.add (chunk);
+            total += chunk.size ();
+        }
+        if (order == null) {
+            List<Transaction> result = new ArrayList<> (total);
+            for (List<Transaction> chunk : sorted) {
+                result.addAll (chunk);
+            }
+            return result;
+        }
+        return merge (sorted,order,total);
+    }
+
+    private static List<Transaction> chunk (List<Transaction> rows,int from,int to,Predicate<Transaction> filter,Comparator<Transaction> order) {
+        List<Transaction> chunk = new ArrayList<> ();
+        for (int row = from; row < to; row++) {
+            Transaction transaction = rows.get (row);
+            if (transaction != null && filter.test (transaction)) {
+                chunk.add (transaction);
+            }
+        }
+        if (order != null) {
+            chunk.sort (order);
+        }
+        return chunk;
+    }
+
+    // Heap of chunk numbers ordered by each chunk's next transaction, ties by chunk number.
+    private static List<Transaction> merge (List<List<Transaction>> chunks,Comparator<Transaction> order,int total) {
+        List<Transaction> result    = new ArrayList<> (total);
+        int[]             positions = new int[chunks.size ()];
+        int[]             heap      = new int[chunks.size ()];
+        int               size      = 0;
+        for (int c = 0; c < chunks.size (); c++) {
+            if (!chunks.get (c).isEmpty ()) {
+                heap[size++] = c;
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown (heap,i,size,chunks,positions,order);
+        }
+        while (size > 0) {
+            int chunk = heap[0];
+            result.add (chunks.get (chunk).get (positions[chunk]++));
+            if (positions[chunk] == chunks.get (chunk).size ()) {
+                heap[0] = heap[--size];
+            }
+            siftDown (heap,0,size,chunks,positions,order);
+        }
+        return result;
+    }
+
+    private static void siftDown (int[] heap,int index,int size,List<List<Transaction>> chunks,int[] positions,Comparator<Transaction> order) {
+        while (true) {
+            int left     = 2 * index + 1;
+            int smallest = index;
+            if (left < size && before (heap[left],heap[smallest],chunks,positions,order)) {
+                smallest = left;
+            }
+            if (left + 1 < size && before (heap[left + 1],heap[smallest],chunks,positions,order)) {
+                smallest = left + 1;
+            }
+            if (smallest == index) {
+                return;
+            }
+            int swap = heap[index];
+            heap[index] = heap[smallest];
+            heap[smallest] = swap;
+            index = smallest;
+        }
+    }
+
+    private static boolean before (int a,int b,List<List<Transaction>> chunks,int[] positions,Comparator<Transaction> order) {
+        int compare = order.compare (chunks.get (a).get (positions[a]),chunks.get (b).get (positions[b]));
+        return compare < 0 || compare == 0 && a < b;
+    }
+}
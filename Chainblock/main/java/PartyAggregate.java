@@ -0,0 +1,84 @@
+import java.util.Comparator;
+
+// Running totals for one sender or receiver, maintained by ChainblockImpl as transactions
+// are added, removed and change status. Readers get copies.
+public class PartyAggregate {
+    static final Comparator<PartyAggregate> TOTAL_DESCENDING =
+            Comparator.comparingDouble ((PartyAggregate a) -> a.totalAmount)
+                    .reversed ()
+                    .thenComparingInt (a -> a.partyId);
+
+    private final String party;
+    private final int partyId;
+    private final int[] statusCounts;
+    private final double[] statusAmounts;
+    private int count;
+    private double totalAmount;
+
+    PartyAggregate (String party,int partyId) {
+        this.party = party;
+        this.partyId = partyId;
+        this.statusCounts = new int[TransactionStatus.values ().length];
+        this.statusAmounts = new double[TransactionStatus.values ().length];
+    }
+
+    public String getParty () {
+        return this.party;
+    }
+
+    public int getCount () {
+        return this.count;
+    }
+
+    public double getTotalAmount () {
+        return this.totalAmount;
+    }
+
+    public int getCount (TransactionStatus status) {
+        return this.statusCounts[status.ordinal ()];
+    }
+
+    public double getTotalAmount (TransactionStatus status) {
+        return this.statusAmounts[status.ordinal ()];
+    }
+
+    void add (Transaction transaction) {
+        this.count++;
+        this.totalAmount += transaction.getAmount ();
+        addStatus (transaction.getStatus (),transaction.getAmount (),1);
+    }
+
+    void remove (Transaction transaction) {
+        this.count--;
+        // summing and subtracting doubles drifts, so an emptied aggregate starts over at zero
+        this.totalAmount = this.count == 0 ? 0 : this.totalAmount - transaction.getAmount ();
+        addStatus (transaction.getStatus (),-transaction.getAmount (),-1);
+    }
+
+    void changeStatus (double amount,TransactionStatus from,TransactionStatus to) {
+        addStatus (from,-amount,-1);
+        addStatus (to,amount,1);
+    }
+
+    PartyAggregate copy () {
+        PartyAggregate copy = new PartyAggregate (this.party,this.partyId);
+        System.arraycopy (this.statusCounts,0,copy.statusCounts,0,this.statusCounts.length);
+        System.arraycopy (this.statusAmounts,0,copy.statusAmounts,0,this.statusAmounts.length);
+        copy.count = this.count;
+        copy.totalAmount = this.totalAmount;
+        return copy;
+    }
+
+    private void addStatus (TransactionStatus status,double amount,int count) {
+        if (status != null) {
+            int index = status.ordinal ();
+            this.statusCounts[index] += count;
+            this.statusAmounts[index] = this.statusCounts[index] == 0 ? 0 : this.statusAmounts[index] + amount;
+        }
+    }
+
+    @Override
+    public String toString () {
+        return String.format ("%s: count=%d, total=%.2f",this.party,this.count,this.totalAmount);
+    }
+}
@@ -0,0 +1,39 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PartyDictionary {
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> ids;
+    private final List<String> names;
+
+    public PartyDictionary () {
+        this.ids = new HashMap<> ();
+        this.names = new ArrayList<> ();
+    }
+
+    public int intern (String name) {
+        Integer id = this.ids.get (name);
+        if (id == null) {
+            id = this.names.size ();
+            this.ids.put (name,id);
+            this.names.add (name);
+        }
+        return id;
+    }
+
+    public int idOf (String name) {
+        Integer id = this.ids.get (name);
+        return id == null ? UNKNOWN : id;
+    }
+
+    public String nameOf (int id) {
+        return this.names.get (id);
+    }
+
+    public int size () {
+        return this.names.size ();
+    }
+}
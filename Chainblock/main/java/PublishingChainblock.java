@@ -0,0 +1,268 @@
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Chainblock decorator that publishes every add, remove and status change as a
+// ChainblockEvent. Mutations are serialized and queue their events in the order they
+// applied; the events are submitted after the lock is released, by one writer at a time,
+// so a subscriber may call back into mutating methods from onNext. Each subscriber has a
+// bounded buffer; once one is full the writer submitting blocks until it catches up, so
+// slow consumers throttle writers rather than losing events. Events caused from onNext are
+// submitted from the common pool instead, as the delivering thread may be the one that has
+// to make room.
+public class PublishingChainblock implements Chainblock, Flow.Publisher<ChainblockEvent>, Closeable {
+    private final Chainblock delegate;
+    private final SubmissionPublisher<ChainblockEvent> publisher;
+    private final ConcurrentLinkedQueue<ChainblockEvent> pending;
+    private final AtomicBoolean submitting;
+    private final ThreadLocal<Boolean> delivering;
+
+    public PublishingChainblock (Chainblock delegate) {
+        this (delegate,ForkJoinPool.commonPool (),Flow.defaultBufferSize ());
+    }
+
+    public PublishingChainblock (Chainblock delegate,Executor executor,int bufferCapacity) {
+        this.delegate = delegate;
+        this.publisher = new SubmissionPublisher<> (executor,bufferCapacity);
+        this.pending = new ConcurrentLinkedQueue<> ();
+        this.submitting = new AtomicBoolean ();
+        this.delivering = ThreadLocal.withInitial (() -> false);
+    }
+
+    @Override
+    public void subscribe (Flow.Subscriber<? super ChainblockEvent> subscriber) {
+        this.publisher.subscribe (new DeliveringSubscriber (subscriber));
+    }
+
+    // Only events matching the filter are delivered and count against the subscriber's demand.
+    public void subscribe (Flow.Subscriber<? super ChainblockEvent> subscriber,TransactionFilter filter) {
+        this.publisher.subscribe (new DeliveringSubscriber (new FilteringSubscriber (subscriber,filter)));
+    }
+
+    public int getSubscriberCount () {
+        return this.publisher.getNumberOfSubscribers ();
+    }
+
+    public int getCount () {
+        return this.delegate.getCount ();
+    }
+
+    public void add (Transaction transaction) {
+        synchronized (this) {
+            boolean added = !this.delegate.contains (transaction.getId ());
+            this.delegate.add (transaction);
+            if (added) {
+                publish (ChainblockEvent.Type.ADDED,transaction,null);
+            }
+        }
+        submitPending ();
+    }
+
+    public void addAll (Iterable<Transaction> transactions) {
+        synchronized (this) {
+            List<Transaction> added = new ArrayList<> ();
+            Set<Integer>      ids   = new HashSet<> ();
+            for (Transaction transaction : transactions) {
+                if (!this.delegate.contains (transaction.getId ()) && ids.add (transaction.getId ())) {
+                    added.add (transaction);
+                }
+            }
+            this.delegate.addAll (transactions);
+            for (Transaction transaction : added) {
+                publish (ChainblockEvent.Type.ADDED,transaction,null);
+            }
+        }
+        submitPending ();
+    }
+
+    public boolean contains (Transaction transaction) {
+        return this.delegate.contains (transaction);
+    }
+
+    public boolean contains (int id) {
+        return this.delegate.contains (id);
+    }
+
+    public void changeTransactionStatus (int id,TransactionStatus newStatus) {
+        synchronized (this) {
+            Transaction       transaction    = this.delegate.getById (id);
+            TransactionStatus previousStatus = transaction.getStatus ();
+            this.delegate.changeTransactionStatus (id,newStatus);
+            publish (ChainblockEvent.Type.STATUS_CHANGED,this.delegate.getById (id),previousStatus);
+        }
+        submitPending ();
+    }
+
+    public void removeTransactionById (int id) {
+        synchronized (this) {
+            Transaction transaction = this.delegate.getById (id);
+            this.delegate.removeTransactionById (id);
+            publish (ChainblockEvent.Type.REMOVED,transaction,null);
+        }
+        submitPending ();
+    }
+
+    public Transaction getById (int id) {
+        return this.delegate.getById (id);
+    }
+
+    public Iterable<Transaction> getByTransactionStatus (TransactionStatus status) {
+        return this.delegate.getByTransactionStatus (status);
+    }
+
+    public Iterable<String> getAllSendersWithTransactionStatus (TransactionStatus status) {
+        return this.delegate.getAllSendersWithTransactionStatus (status);
+    }
+
+    public Iterable<String> getAllReceiversWithTransactionStatus (TransactionStatus status) {
+        return this.delegate.getAllReceiversWithTransactionStatus (status);
+    }
+
+    public Iterable<Transaction> getAllOrderedByAmountDescendingThenById () {
+        return this.delegate.getAllOrderedByAmountDescendingThenById ();
+    }
+
+    public Iterable<Transaction> getBySenderOrderedByAmountDescending (String sender) {
+        return this.delegate.getBySenderOrderedByAmountDescending (sender);
+    }
+
+    public Iterable<Transaction> getByReceiverOrderedByAmountThenById (String receiver) {
+        return this.delegate.getByReceiverOrderedByAmountThenById (receiver);
+    }
+
+    public Iterable<Transaction> getByTransactionStatusAndMaximumAmount (TransactionStatus status,double amount) {
+        return this.delegate.getByTransactionStatusAndMaximumAmount (status,amount);
+    }
+
+    public Iterable<Transaction> getBySenderAndMinimumAmountDescending (String sender,double amount) {
+        return this.delegate.getBySenderAndMinimumAmountDescending (sender,amount);
+    }
+
+    public Iterable<Transaction> getByReceiverAndAmountRange (String receiver,double lo,double hi) {
+        return this.delegate.getByReceiverAndAmountRange (receiver,lo,hi);
+    }
+
+    public Iterable<Transaction> getAllInAmountRange (double lo,double hi) {
+        return this.delegate.getAllInAmountRange (lo,hi);
+    }
+
+    public Iterator<Transaction> iterator () {
+        return this.delegate.iterator ();
+    }
+
+    // Completes every subscription once the events already published have been delivered.
+    // Writers still running may find the publisher closed.
+    @Override
+    public void close () {
+        submitPending ();
+        this.publisher.close ();
+    }
+
+    // Called with the lock held, so the queue is in the order the mutations applied. A
+    // delivery thread skips hasSubscribers, which waits while a writer is blocked in submit.
+    private void publish (ChainblockEvent.Type type,Transaction transaction,TransactionStatus previousStatus) {
+        if (this.delivering.get () || this.publisher.hasSubscribers ()) {
+            this.pending.add (new ChainblockEvent (type,transaction,previousStatus));
+        }
+    }
+
+    // Called without the lock. Whoever gets to submit takes everything queued, including
+    // events queued meanwhile by other writers or by subscribers calling back from onNext,
+    // and checks again after letting go, so no event is left behind.
+    private void submitPending () {
+        if (this.delivering.get ()) {
+            ForkJoinPool.commonPool ().execute (this::submitPending);
+            return;
+        }
+        while (!this.pending.isEmpty () && this.submitting.compareAndSet (false,true)) {
+            try {
+                for (ChainblockEvent event = this.pending.poll (); event != null; event = this.pending.poll ()) {
+                    this.publisher.submit (event);
+                }
+            } finally {
+                this.submitting.set (false);
+            }
+        }
+    }
+
+    // Marks the thread as delivering while onNext runs.
+    private final class DeliveringSubscriber implements Flow.Subscriber<ChainblockEvent> {
+        private final Flow.Subscriber<? super ChainblockEvent> downstream;
+
+        private DeliveringSubscriber (Flow.Subscriber<? super ChainblockEvent> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe (Flow.Subscription subscription) {
+            this.downstream.onSubscribe (subscription);
+        }
+
+        @Override
+        public void onNext (ChainblockEvent event) {
+            delivering.set (true);
+            try {
+                this.downstream.onNext (event);
+            } finally {
+                delivering.set (false);
+            }
+        }
+
+        @Override
+        public void onError (Throwable throwable) {
+            this.downstream.onError (throwable);
+        }
+
+        @Override
+        public void onComplete () {
+            this.downstream.onComplete ();
+        }
+    }
+
+    // Drops non-matching events and asks upstream for a replacement, so the downstream
+    // demand is only spent on events it actually receives.
+    private static final class FilteringSubscriber implements Flow.Subscriber<ChainblockEvent> {
+        private final Flow.Subscriber<? super ChainblockEvent> downstream;
+        private final TransactionFilter filter;
+        private Flow.Subscription subscription;
+
+        private FilteringSubscriber (Flow.Subscriber<? super ChainblockEvent> downstream,TransactionFilter filter) {
+            this.downstream = downstream;
+            this.filter = filter;
+        }
+
+        @Override
+        public void onSubscribe (Flow.Subscription subscription) {
+            this.subscription = subscription;
+            this.downstream.onSubscribe (subscription);
+        }
+
+        @Override
+        public void onNext (ChainblockEvent event) {
+            if (event.matches (this.filter)) {
+                this.downstream.onNext (event);
+            } else {
+                this.subscription.request (1);
+            }
+        }
+
+        @Override
+        public void onError (Throwable throwable) {
+            this.downstream.onError (throwable);
+        }
+
+        @Override
+        public void onComplete () {
+            this.downstream.onComplete ();
+        }
+    }
+}
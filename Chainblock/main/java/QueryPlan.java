@@ -0,0 +1,57 @@
+// Which access path a TransactionQuery used, what the planner expected it to visit and,
+// once executed, what it actually visited and returned.
+public class QueryPlan {
+    public enum Strategy {
+        RECEIVER_INDEX,
+        STATUS_INDEX,
+        AMOUNT_INDEX,
+        BITMAP_INDEX,
+        SCAN
+    }
+
+    private final Strategy strategy;
+    private final int estimatedRows;
+    private final int examinedRows;
+    private final int returnedRows;
+
+    public QueryPlan (Strategy strategy,int estimatedRows) {
+        this (strategy,estimatedRows,-1,-1);
+    }
+
+    private QueryPlan (Strategy strategy,int estimatedRows,int examinedRows,int returnedRows) {
+        this.strategy = strategy;
+        this.estimatedRows = estimatedRows;
+        this.examinedRows = examinedRows;
+        this.returnedRows = returnedRows;
+    }
+
+    public QueryPlan executed (int examinedRows,int returnedRows) {
+        return new QueryPlan (this.strategy,this.estimatedRows,examinedRows,returnedRows);
+    }
+
+    public Strategy getStrategy () {
+        return this.strategy;
+    }
+
+    public int getEstimatedRows () {
+        return this.estimatedRows;
+    }
+
+    // -1 until the plan has been executed.
+    public int getExaminedRows () {
+        return this.examinedRows;
+    }
+
+    public int getReturnedRows () {
+        return this.returnedRows;
+    }
+
+    @Override
+    public String toString () {
+        if (this.examinedRows < 0) {
+            return String.format ("%s(estimated=%d)",this.strategy,this.estimatedRows);
+        }
+        return String.format ("%s(estimated=%d, examined=%d, returned=%d)",
+                this.strategy,this.estimatedRows,this.examinedRows,this.returnedRows);
+    }
+}
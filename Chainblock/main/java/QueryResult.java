@@ -0,0 +1,25 @@
+import java.util.Iterator;
+import java.util.List;
+
+public class QueryResult implements Iterable<Transaction> {
+    private final List<Transaction> transactions;
+    private final QueryPlan plan;
+
+    public QueryResult (List<Transaction> transactions,QueryPlan plan) {
+        this.transactions = transactions;
+        this.plan = plan;
+    }
+
+    public List<Transaction> getTransactions () {
+        return this.transactions;
+    }
+
+    public QueryPlan getPlan () {
+        return this.plan;
+    }
+
+    @Override
+    public Iterator<Transaction> iterator () {
+        return this.transactions.iterator ();
+    }
+}
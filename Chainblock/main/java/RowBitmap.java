@@ -0,0 +1,395 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Compressed set of non-negative ints in the style of Roaring bitmaps: values are split by
+// their high 16 bits into containers holding the low 16 bits, either as a sorted array
+// (up to 4096 values) or as a 65536 bit bitmap.
+public class RowBitmap {
+    private static final int ARRAY_LIMIT = 4096;
+
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+
+    public RowBitmap () {
+        this.keys = new char[4];
+        this.containers = new Container[4];
+    }
+
+    public static RowBitmap and (RowBitmap a,RowBitmap b) {
+        RowBitmap result = new RowBitmap ();
+        int       i      = 0;
+        int       j      = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Container container = a.containers[i].and (b.containers[j]);
+                if (container.cardinality () > 0) {
+                    result.append (a.keys[i],container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public static RowBitmap or (RowBitmap a,RowBitmap b) {
+        RowBitmap result = new RowBitmap ();
+        int       i      = 0;
+        int       j      = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || i < a.size && a.keys[i] < b.keys[j]) {
+                result.append (a.keys[i],a.containers[i].copy ());
+                i++;
+            } else if (i == a.size || a.keys[i] > b.keys[j]) {
+                result.append (b.keys[j],b.containers[j].copy ());
+                j++;
+            } else {
+                result.append (a.keys[i],a.containers[i].or (b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public void add (int value) {
+        checkValue (value);
+        char high  = (char) (value >>> 16);
+        int  index = find (high);
+        if (index < 0) {
+            index = -index - 1;
+            insert (index,high,new ArrayContainer ());
+        }
+        this.containers[index] = this.containers[index].add ((char) value);
+    }
+
+    public void remove (int value) {
+        if (value < 0) {
+            return;
+        }
+        int index = find ((char) (value >>> 16));
+        if (index < 0) {
+            return;
+        }
+        Container container = this.containers[index].remove ((char) value);
+        if (container.cardinality () == 0) {
+            System.arraycopy (this.keys,index + 1,this.keys,index,this.size - index - 1);
+            System.arraycopy (this.containers,index + 1,this.containers,index,this.size - index - 1);
+            this.containers[--this.size] = null;
+        } else {
+            this.containers[index] = container;
+        }
+    }
+
+    public boolean contains (int value) {
+        if (value < 0) {
+            return false;
+        }
+        int index = find ((char) (value >>> 16));
+        return index >= 0 && this.containers[index].contains ((char) value);
+    }
+
+    public int cardinality () {
+        int cardinality = 0;
+        for (int i = 0; i < this.size; i++) {
+            cardinality += this.containers[i].cardinality ();
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty () {
+        return this.size == 0;
+    }
+
+    // Visits values in ascending order.
+    public void forEach (IntConsumer consumer) {
+        for (int i = 0; i < this.size; i++) {
+            this.containers[i].forEach (this.keys[i] << 16,consumer);
+        }
+    }
+
+    public int[] toArray () {
+        int[] values = new int[cardinality ()];
+        int[] next   = new int[1];
+        forEach (v -> values[next[0]++] = v);
+        return values;
+    }
+
+    private static void checkValue (int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException ();
+        }
+    }
+
+    private int find (char key) {
+        return Arrays.binarySearch (this.keys,0,this.size,key);
+    }
+
+    private void append (char key,Container container) {
+        insert (this.size,key,container);
+    }
+
+    private void insert (int index,char key,Container container) {
+        if (this.size == this.keys.length) {
+            this.keys = Arrays.copyOf (this.keys,this.size * 2);
+            this.containers = Arrays.copyOf (this.containers,this.size * 2);
+        }
+        System.arraycopy (this.keys,index,this.keys,index + 1,this.size - index);
+        System.arraycopy (this.containers,index,this.containers,index + 1,this.size - index);
+        this.keys[index] = key;
+        this.containers[index] = container;
+        this.size++;
+    }
+
+    private abstract static class Container {
+        abstract Container add (char value);
+
+        abstract Container remove (char value);
+
+        abstract boolean contains (char value);
+
+        abstract int cardinality ();
+
+        abstract Container and (Container other);
+
+        abstract Container or (Container other);
+
+        abstract Container copy ();
+
+        abstract void forEach (int high,IntConsumer consumer);
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int cardinality;
+
+        private ArrayContainer () {
+            this (new char[4],0);
+        }
+
+        private ArrayContainer (char[] values,int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add (char value) {
+            int index = Arrays.binarySearch (this.values,0,this.cardinality,value);
+            if (index >= 0) {
+                return this;
+            }
+            if (this.cardinality == ARRAY_LIMIT) {
+                return toBitmap ().add (value);
+            }
+            index = -index - 1;
+            if (this.cardinality == this.values.length) {
+                this.values = Arrays.copyOf (this.values,Math.min (Math.max (this.cardinality * 2,4),ARRAY_LIMIT));
+            }
+            System.arraycopy (this.values,index,this.values,index + 1,this.cardinality - index);
+            this.values[index] = value;
+            this.cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove (char value) {
+            int index = Arrays.binarySearch (this.values,0,this.cardinality,value);
+            if (index >= 0) {
+                System.arraycopy (this.values,index + 1,this.values,index,this.cardinality - index - 1);
+                this.cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains (char value) {
+            return Arrays.binarySearch (this.values,0,this.cardinality,value) >= 0;
+        }
+
+        @Override
+        int cardinality () {
+            return this.cardinality;
+        }
+
+        @Override
+        Container and (Container other) {
+            char[] result = new char[Math.min (this.cardinality,other.cardinality ())];
+            int    count  = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer that = (ArrayContainer) other;
+                int            i    = 0;
+                int            j    = 0;
+                while (i < this.cardinality && j < that.cardinality) {
+                    if (this.values[i] < that.values[j]) {
+                        i++;
+                    } else if (this.values[i] > that.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = this.values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < this.cardinality; i++) {
+                    if (other.contains (this.values[i])) {
+                        result[count++] = this.values[i];
+                    }
+                }
+            }
+            return new ArrayContainer (result,count);
+        }
+
+        @Override
+        Container or (Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or (this);
+            }
+            ArrayContainer that   = (ArrayContainer) other;
+            char[]         result = new char[this.cardinality + that.cardinality];
+            int            count  = 0;
+            int            i      = 0;
+            int            j      = 0;
+            while (i < this.cardinality || j < that.cardinality) {
+                if (j == that.cardinality || i < this.cardinality && this.values[i] < that.values[j]) {
+                    result[count++] = this.values[i++];
+                } else if (i == this.cardinality || this.values[i] > that.values[j]) {
+                    result[count++] = that.values[j++];
+                } else {
+                    result[count++] = this.values[i];
+                    i++;
+                    j++;
+                }
+            }
+            ArrayContainer union = new ArrayContainer (result,count);
+            return count > ARRAY_LIMIT ? union.toBitmap () : union;
+        }
+
+        @Override
+        Container copy () {
+            return new ArrayContainer (Arrays.copyOf (this.values,Math.max (this.cardinality,1)),this.cardinality);
+        }
+
+        @Override
+        void forEach (int high,IntConsumer consumer) {
+            for (int i = 0; i < this.cardinality; i++) {
+                consumer.accept (high | this.values[i]);
+            }
+        }
+
+        private BitmapContainer toBitmap () {
+            BitmapContainer bitmap = new BitmapContainer ();
+            for (int i = 0; i < this.cardinality; i++) {
+                bitmap.add (this.values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+
+        private BitmapContainer () {
+            this (new long[1024],0);
+        }
+
+        private BitmapContainer (long[] words,int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add (char value) {
+            long before = this.words[value >>> 6];
+            this.words[value >>> 6] = before | 1L << value;
+            if (before != this.words[value >>> 6]) {
+                this.cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove (char value) {
+            long before = this.words[value >>> 6];
+            this.words[value >>> 6] = before & ~(1L << value);
+            if (before != this.words[value >>> 6]) {
+                this.cardinality--;
+            }
+            return this.cardinality <= ARRAY_LIMIT ? toArray () : this;
+        }
+
+        @Override
+        boolean contains (char value) {
+            return (this.words[value >>> 6] & 1L << value) != 0;
+        }
+
+        @Override
+        int cardinality () {
+            return this.cardinality;
+        }
+
+        @Override
+        Container and (Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and (this);
+            }
+            BitmapContainer that        = (BitmapContainer) other;
+            long[]          result      = new long[this.words.length];
+            int             cardinality = 0;
+            for (int i = 0; i < result.length; i++) {
+                result[i] = this.words[i] & that.words[i];
+                cardinality += Long.bitCount (result[i]);
+            }
+            BitmapContainer intersection = new BitmapContainer (result,cardinality);
+            return cardinality <= ARRAY_LIMIT ? intersection.toArray () : intersection;
+        }
+
+        @Override
+        Container or (Container other) {
+            BitmapContainer union = (BitmapContainer) copy ();
+            if (other instanceof ArrayContainer) {
+                ArrayContainer that = (ArrayContainer) other;
+                for (int i = 0; i < that.cardinality; i++) {
+                    union.add (that.values[i]);
+                }
+                return union;
+            }
+            BitmapContainer that = (BitmapContainer) other;
+            union.cardinality = 0;
+            for (int i = 0; i < union.words.length; i++) {
+                union.words[i] |= that.words[i];
+                union.cardinality += Long.bitCount (union.words[i]);
+            }
+            return union;
+        }
+
+        @Override
+        Container copy () {
+            return new BitmapContainer (this.words.clone (),this.cardinality);
+        }
+
+        @Override
+        void forEach (int high,IntConsumer consumer) {
+            for (int i = 0; i < this.words.length; i++) {
+                long word = this.words[i];
+                while (word != 0) {
+                    consumer.accept (high | i << 6 | Long.numberOfTrailingZeros (word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        private ArrayContainer toArray () {
+            char[] values = new char[Math.max (this.cardinality,1)];
+            int[]  count  = new int[1];
+            forEach (0,v -> values[count[0]++] = (char) v);
+            return new ArrayContainer (values,this.cardinality);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+// Dense row numbers for the transactions of a ChainblockImpl with bitmap indexes over
+// status, sender, receiver and amount bucket, plus amounts and status codes as columns for
+// AmountScanner. Rows are handed out in insertion order and removed rows leave holes
+// until the owner renumbers.
+public class RowIndex {
+    private static final int SCAN_BLOCK = 4096;
+
+    private final List<Transaction> rows;
+    private final EnumMap<TransactionStatus, RowBitmap> statusRows;
+    private final List<RowBitmap> senderRows;
+    private final List<RowBitmap> receiverRows;
+    private final TreeMap<Integer, RowBitmap> amountRows;
+    private double[] amounts;
+    private byte[] statuses;
+    private int count;
+
+    public RowIndex () {
+        this.rows = new ArrayList<> ();
+        this.statusRows = new EnumMap<> (TransactionStatus.class);
+        for (TransactionStatus status : TransactionStatus.values ()) {
+            this.statusRows.put (status,new RowBitmap ());
+        }
+        this.senderRows = new ArrayList<> ();
+        this.receiverRows = new ArrayList<> ();
+        this.amountRows = new TreeMap<> ();
+        this.amounts = new double[16];
+        this.statuses = new byte[16];
+    }
+
+    // Buckets grow by powers of two and keep amount order, so a range maps to a bucket range.
+    static int amountBucket (double amount) {
+        if (Double.isNaN (amount)) {
+            return Integer.MAX_VALUE;
+        }
+        if (amount == 0) {
+            return 0;
+        }
+        int magnitude = Math.getExponent (amount) + Double.MAX_EXPONENT + 2;
+        return amount > 0 ? magnitude : -magnitude;
+    }
+
+    public int add (Transaction transaction,int sender,int receiver) {
+        int row = this.rows.size ();
+        this.rows.add (transaction);
+        if (transaction.getStatus () != null) {
+            this.statusRows.get (transaction.getStatus ()).add (row);
+        }
+        partyRows (this.senderRows,sender).add (row);
+        partyRows (this.receiverRows,receiver).add (row);
+        this.amountRows.computeIfAbsent (amountBucket (transaction.getAmount ()),b -> new RowBitmap ()).add (row);
+        if (row == this.amounts.length) {
+            this.amounts = Arrays.copyOf (this.amounts,row * 2);
+            this.statuses = Arrays.copyOf (this.statuses,row * 2);
+        }
+        this.amounts[row] = transaction.getAmount ();
+        this.statuses[row] = AmountScanner.statusCode (transaction.getStatus ());
+        this.count++;
+        return row;
+    }
+
+    public void remove (int row,int sender,int receiver) {
+        Transaction transaction = this.rows.set (row,null);
+        if (transaction.getStatus () != null) {
+            this.statusRows.get (transaction.getStatus ()).remove (row);
+        }
+        this.senderRows.get (sender).remove (row);
+        this.receiverRows.get (receiver).remove (row);
+        int       bucket = amountBucket (transaction.getAmount ());
+        RowBitmap amount = this.amountRows.get (bucket);
+        amount.remove (row);
+        if (amount.isEmpty ()) {
+            this.amountRows.remove (bucket);
+        }
+        this.amounts[row] = Double.NaN;
+        this.statuses[row] = 0;
+        this.count--;
+    }
+
+    public void changeStatus (int row,TransactionStatus from,TransactionStatus to) {
+        if (from != null) {
+            this.statusRows.get (from).remove (row);
+        }
+        if (to != null) {
+            this.statusRows.get (to).add (row);
+        }
+        this.statuses[row] = AmountScanner.statusCode (to);
+    }
+
+    public boolean needsRenumbering () {
+        return this.rows.size () > 1024 && this.rows.size () > 2 * this.count;
+    }
+
+    // In row order, with null for removed rows.
+    public List<Transaction> rows () {
+        return Collections.unmodifiableList (this.rows);
+    }
+
+    public int senderCount (int sender) {
+        return sender >= 0 && sender < this.senderRows.size () ? this.senderRows.get (sender).cardinality () : 0;
+    }
+
+    // Visits the sender's transactions in row (insertion) order.
+    public void forEachWithSender (int sender,Consumer<Transaction> consumer) {
+        if (sender >= 0 && sender < this.senderRows.size ()) {
+            this.senderRows.get (sender).forEach (row -> consumer.accept (this.rows.get (row)));
+        }
+    }
+
+    // Rows with lo <= amount <= hi and a status in statusMask, in row order, evaluated on
+    // the amount and status columns.
+    public List<Transaction> selectAmounts (AmountScanner scanner,double lo,double hi,int statusMask) {
+        List<Transaction> result = new ArrayList<> ();
+        int[]             buffer = new int[SCAN_BLOCK];
+        for (int from = 0; from < this.rows.size (); from += SCAN_BLOCK) {
+            int matches = scanner.scan (this.amounts,this.statuses,from,Math.min (from + SCAN_BLOCK,this.rows.size ()),
+                    lo,hi,statusMask,buffer);
+            for (int i = 0; i < matches; i++) {
+                result.add (this.rows.get (buffer[i]));
+            }
+        }
+        return result;
+    }
+
+    // The sender's rows with an amount above the given one, in row order.
+    public List<Transaction> selectWithSenderAbove (int sender,double amount) {
+        List<Transaction> result = new ArrayList<> ();
+        if (sender >= 0 && sender < this.senderRows.size ()) {
+            this.senderRows.get (sender).forEach (row -> {
+                if (this.amounts[row] > amount) {
+                    result.add (this.rows.get (row));
+                }
+            });
+        }
+        return result;
+    }
+
+    // Upper bound on the rows select() would visit: the smallest predicate, each predicate
+    // counted as the sum of its alternatives. Without predicates every row is visited.
+    public int estimate (TransactionFilter filter,PartyDictionary parties) {
+        int estimate = this.count;
+        if (!filter.getStatuses ().isEmpty ()) {
+            int rows = 0;
+            for (TransactionStatus status : filter.getStatuses ()) {
+                rows += this.statusRows.get (status).cardinality ();
+            }
+            estimate = Math.min (estimate,rows);
+        }
+        if (!filter.getSenders ().isEmpty ()) {
+            estimate = Math.min (estimate,partyCardinality (this.senderRows,filter.getSenders (),parties));
+        }
+        if (!filter.getReceivers ().isEmpty ()) {
+            estimate = Math.min (estimate,partyCardinality (this.receiverRows,filter.getReceivers (),parties));
+        }
+        if (filter.hasAmountRange ()) {
+            estimate = Math.min (estimate,estimateAmountRange (filter.getMinAmount (),filter.getMaxAmount ()));
+        }
+        return estimate;
+    }
+
+    public int estimateAmountRange (double lo,double hi) {
+        int rows = 0;
+        if (lo <= hi) {
+            for (RowBitmap bucket : this.amountRows.subMap (amountBucket (lo),true,amountBucket (hi),true).values ()) {
+                rows += bucket.cardinality ();
+            }
+        }
+        return rows;
+    }
+
+    // Rows matching every predicate of the filter, in row (insertion) order.
+    public List<Transaction> select (TransactionFilter filter,PartyDictionary parties) {
+        List<RowBitmap> predicates = new ArrayList<> ();
+        if (!filter.getStatuses ().isEmpty ()) {
+            RowBitmap rows = new RowBitmap ();
+            for (TransactionStatus status : filter.getStatuses ()) {
+                rows = RowBitmap.or (rows,this.statusRows.get (status));
+            }
+            predicates.add (rows);
+        }
+        if (!filter.getSenders ().isEmpty ()) {
+            predicates.add (partyUnion (this.senderRows,filter.getSenders (),parties));
+        }
+        if (!filter.getReceivers ().isEmpty ()) {
+            predicates.add (partyUnion (this.receiverRows,filter.getReceivers (),parties));
+        }
+        if (filter.hasAmountRange ()) {
+            RowBitmap rows = new RowBitmap ();
+            if (filter.getMinAmount () <= filter.getMaxAmount ()) {
+                for (RowBitmap bucket : this.amountRows.subMap (amountBucket (filter.getMinAmount ()),true,
+                        amountBucket (filter.getMaxAmount ()),true).values ()) {
+                    rows = RowBitmap.or (rows,bucket);
+                }
+            }
+            predicates.add (rows);
+        }
+        List<Transaction> result = new ArrayList<> ();
+        if (predicates.isEmpty ()) {
+            for (Transaction transaction : this.rows) {
+                if (transaction != null) {
+                    result.add (transaction);
+                }
+            }
+            return result;
+        }
+        predicates.sort (Comparator.comparingInt (RowBitmap::cardinality));
+        RowBitmap matches = predicates.get (0);
+        for (int i = 1; i < predicates.size () && !matches.isEmpty (); i++) {
+            matches = RowBitmap.and (matches,predicates.get (i));
+        }
+        // amount buckets are coarse, so rows from the boundary buckets are checked exactly
+        matches.forEach (row -> {
+            Transaction transaction = this.rows.get (row);
+            if (filter.matchesAmount (transaction.getAmount ())) {
+                result.add (transaction);
+            }
+        });
+        return result;
+    }
+
+    private static RowBitmap partyRows (List<RowBitmap> partyRows,int party) {
+        while (partyRows.size () <= party) {
+            partyRows.add (new RowBitmap ());
+        }
+        return partyRows.get (party);
+    }
+
+    private static int partyCardinality (List<RowBitmap> partyRows,Iterable<String> names,PartyDictionary parties) {
+        int rows = 0;
+        for (String name : names) {
+            int party = parties.idOf (name);
+            if (party != PartyDictionary.UNKNOWN && party < partyRows.size ()) {
+                rows += partyRows.get (party).cardinality ();
+            }
+        }
+        return rows;
+    }
+
+    private static RowBitmap partyUnion (List<RowBitmap> partyRows,Iterable<String> names,PartyDictionary parties) {
+        RowBitmap rows = new RowBitmap ();
+        for (String name : names) {
+            int party = parties.idOf (name);
+            if (party != PartyDictionary.UNKNOWN && party < partyRows.size ()) {
+                rows = RowBitmap.or (rows,partyRows.get (party));
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,13 @@
+public class ScalarAmountScanner implements AmountScanner {
+
+    public int scan (double[] amounts,byte[] statuses,int from,int to,double lo,double hi,int statusMask,int[] rows) {
+        int count = 0;
+        for (int row = from; row < to; row++) {
+            double amount = amounts[row];
+            if (amount >= lo && amount <= hi && (statusMask & 1 << statuses[row]) != 0) {
+                rows[count++] = row;
+            }
+        }
+        return count;
+    }
+}
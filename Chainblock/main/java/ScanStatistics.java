@@ -0,0 +1,7 @@
+// Implemented by Chainblocks that can tell how many stored transactions their queries
+// visited, so callers can compare it with how many they returned.
+public interface ScanStatistics {
+
+    // Running total of transactions visited by queries made on the calling thread.
+    long getScannedRows ();
+}
@@ -0,0 +1,183 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Append-only memory-mapped log file. The first record slot holds the header,
+// transaction records follow back to back until the first invalid slot.
+// A compacted segment replaces every segment with a lower index.
+public class Segment implements Closeable {
+    static final int HEADER_SIZE = LogRecord.SIZE;
+    static final String SUFFIX = ".seg";
+    static final String TEMP_SUFFIX = ".compacting";
+
+    private static final int MAGIC = 0x43484C47;
+    private static final int VERSION = 1;
+    private static final int COMPACTED = 1;
+    private static final int COPY_BUFFER_SIZE = 1024 * 1024;
+
+    private final long index;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int end;
+
+    private Segment (long index,Path path,FileChannel channel,MappedByteBuffer buffer) {
+        this.index = index;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.end = HEADER_SIZE;
+    }
+
+    static Segment create (Path directory,long index,int capacity) throws IOException {
+        if (capacity < HEADER_SIZE + LogRecord.SIZE) {
+            throw new IllegalArgumentException ();
+        }
+        Path        path    = directory.resolve (fileName (index));
+        FileChannel channel = FileChannel.open (path,StandardOpenOption.CREATE_NEW,StandardOpenOption.READ,StandardOpenOption.WRITE);
+        Segment     segment = new Segment (index,path,channel,channel.map (FileChannel.MapMode.READ_WRITE,0,capacity));
+        segment.buffer.putInt (0,MAGIC);
+        segment.buffer.putInt (4,VERSION);
+        return segment;
+    }
+
+    static Segment open (Path path) throws IOException {
+        FileChannel channel = FileChannel.open (path,StandardOpenOption.READ,StandardOpenOption.WRITE);
+        long        size    = channel.size ();
+        if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+            channel.close ();
+            throw new IOException ("Invalid segment size " + size + ": " + path);
+        }
+        Segment segment = new Segment (indexOf (path),path,channel,channel.map (FileChannel.MapMode.READ_WRITE,0,size));
+        if (segment.buffer.getInt (0) != MAGIC || segment.buffer.getInt (4) != VERSION) {
+            segment.close ();
+            throw new IOException ("Not a chainblock segment: " + path);
+        }
+        while (segment.end + LogRecord.SIZE <= segment.buffer.capacity ()
+                && LogRecord.isValid (segment.buffer,segment.end)) {
+            segment.end += LogRecord.SIZE;
+        }
+        segment.clearTail ();
+        return segment;
+    }
+
+    // Copies the records at the given locations (source position << 32 | offset)
+    // into a new compacted segment that atomically takes over the file of the given index.
+    static Segment writeCompacted (Path directory,long index,List<Segment> sources,Iterable<Long> locations) throws IOException {
+        Path temp = directory.resolve (fileName (index) + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open (temp,StandardOpenOption.CREATE,StandardOpenOption.TRUNCATE_EXISTING,StandardOpenOption.WRITE)) {
+            ByteBuffer out = ByteBuffer.allocateDirect (COPY_BUFFER_SIZE);
+            out.putInt (0,MAGIC);
+            out.putInt (4,VERSION);
+            out.putInt (8,COMPACTED);
+            out.position (HEADER_SIZE);
+            for (long location : locations) {
+                if (out.remaining () < LogRecord.SIZE) {
+                    writeFully (channel,out);
+                }
+                ByteBuffer source = sources.get ((int) (location >>> 32)).buffer.duplicate ();
+                int        offset = (int) location;
+                source.limit (offset + LogRecord.SIZE).position (offset);
+                out.put (source);
+            }
+            writeFully (channel,out);
+            channel.force (true);
+        }
+        Path path = directory.resolve (fileName (index));
+        Files.move (temp,path,StandardCopyOption.ATOMIC_MOVE,StandardCopyOption.REPLACE_EXISTING);
+        return open (path);
+    }
+
+    static String fileName (long index) {
+        return String.format ("%016d%s",index,SUFFIX);
+    }
+
+    static long indexOf (Path path) {
+        String name = path.getFileName ().toString ();
+        return Long.parseLong (name.substring (0,name.length () - SUFFIX.length ()));
+    }
+
+    long getIndex () {
+        return this.index;
+    }
+
+    Path getPath () {
+        return this.path;
+    }
+
+    boolean isCompacted () {
+        return (this.buffer.getInt (8) & COMPACTED) != 0;
+    }
+
+    ByteBuffer getBuffer () {
+        return this.buffer;
+    }
+
+    int getEnd () {
+        return this.end;
+    }
+
+    int getRecordCount () {
+        return (this.end - HEADER_SIZE) / LogRecord.SIZE;
+    }
+
+    boolean hasRoom () {
+        return this.end + LogRecord.SIZE <= this.buffer.capacity ();
+    }
+
+    void appendPut (long sequence,int id,TransactionStatus status,String sender,String receiver,double amount) {
+        LogRecord.writePut (this.buffer,this.end,sequence,id,status,sender,receiver,amount);
+        this.end += LogRecord.SIZE;
+    }
+
+    void appendRemove (long sequence,int id) {
+        LogRecord.writeRemove (this.buffer,this.end,sequence,id);
+        this.end += LogRecord.SIZE;
+    }
+
+    void force () {
+        this.buffer.force ();
+    }
+
+    void delete () throws IOException {
+        close ();
+        Files.deleteIfExists (this.path);
+    }
+
+    // Zeroes whatever follows the last valid record. A torn record can be followed by
+    // records that are still valid on disk; once new records are appended over the torn
+    // slot, the next recovery would otherwise scan on into them and replay them.
+    private void clearTail () {
+        int from = this.end;
+        while (from < this.buffer.capacity () && this.buffer.get (from) == 0) {
+            from++;
+        }
+        if (from == this.buffer.capacity ()) {
+            return;
+        }
+        for (int offset = this.end; offset < this.buffer.capacity (); offset++) {
+            this.buffer.put (offset,(byte) 0);
+        }
+        this.buffer.force ();
+    }
+
+    private static void writeFully (FileChannel channel,ByteBuffer buffer) throws IOException {
+        buffer.flip ();
+        while (buffer.hasRemaining ()) {
+            channel.write (buffer);
+        }
+        buffer.clear ();
+    }
+
+    @Override
+    public void close () throws IOException {
+        this.channel.close ();
+    }
+}
@@ -0,0 +1,38 @@
+import java.util.Arrays;
+
+// Outcome of a bulk status change: how many transactions moved, how many already had the
+// target status and which ids were not found.
+public class StatusChangeResult {
+    private final int changedCount;
+    private final int unchangedCount;
+    private final int[] missingIds;
+
+    public StatusChangeResult (int changedCount,int unchangedCount,int[] missingIds) {
+        this.changedCount = changedCount;
+        this.unchangedCount = unchangedCount;
+        this.missingIds = missingIds;
+    }
+
+    public int getChangedCount () {
+        return this.changedCount;
+    }
+
+    public int getUnchangedCount () {
+        return this.unchangedCount;
+    }
+
+    // In the order they appeared in the request.
+    public int[] getMissingIds () {
+        return this.missingIds.clone ();
+    }
+
+    public boolean isComplete () {
+        return this.missingIds.length == 0;
+    }
+
+    @Override
+    public String toString () {
+        return String.format ("changed=%d, unchanged=%d, missing=%s",
+                this.changedCount,this.unchangedCount,Arrays.toString (this.missingIds));
+    }
+}
@@ -0,0 +1,648 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Chainblock with a bounded heap: recent and unsettled transactions live in a ChainblockImpl,
+// and once it holds more than hotCapacity the oldest SUCCESSFUL ones are spilled to the cold
+// tier, a stack of ColdRun files kept at logarithmically many by merging similar-sized runs.
+// Every query consults both tiers and returns what a single ChainblockImpl would, with ties
+// in insertion order. Hot matches come from the hot tier's indexes; cold rows are matched
+// field by field and only decoded, into a copy, when a result is read. Changing the status
+// of a cold transaction moves it back into memory. The cold tier is scratch space: it does
+// not outlive the instance, durability is DurableChainblock's job.
+public class TieredChainblock implements Chainblock, Closeable {
+    public static final int DEFAULT_HOT_CAPACITY = 1_000_000;
+
+    static final TransactionStatus SETTLED = TransactionStatus.SUCCESSFUL;
+
+    private final Path directory;
+    private final int hotCapacity;
+    private final ChainblockImpl hot;
+    private final Map<Integer, Long> sequences;
+    private final PartyDictionary parties;
+    private final List<ColdRun> runs;
+    private long sequence;
+    private long nextRunIndex;
+    private int coldCount;
+    private int spillAt;
+
+    public TieredChainblock (Path directory) {
+        this (directory,DEFAULT_HOT_CAPACITY);
+    }
+
+    public TieredChainblock (Path directory,int hotCapacity) {
+        if (hotCapacity < 1) {
+            throw new IllegalArgumentException ();
+        }
+        this.directory = directory;
+        this.hotCapacity = hotCapacity;
+        this.hot = new ChainblockImpl ();
+        this.sequences = new HashMap<> ();
+        this.parties = new PartyDictionary ();
+        this.runs = new ArrayList<> ();
+        this.spillAt = hotCapacity;
+        try {
+            Files.createDirectories (directory);
+            try (Stream<Path> files = Files.list (directory)) {
+                for (Path file : files.collect (Collectors.toList ())) {
+                    String name = file.getFileName ().toString ();
+                    if (name.endsWith (ColdRun.SUFFIX) || name.endsWith (ColdRun.SUFFIX + ColdRun.TEMP_SUFFIX)) {
+                        Files.delete (file);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException (e);
+        }
+    }
+
+    public int getCount () {
+        return this.hot.getCount () + this.coldCount;
+    }
+
+    public int getHotCount () {
+        return this.hot.getCount ();
+    }
+
+    public int getColdCount () {
+        return this.coldCount;
+    }
+
+    public int getRunCount () {
+        return this.runs.size ();
+    }
+
+    public void add (Transaction transaction) {
+        if (contains (transaction.getId ())) {
+            return;
+        }
+        this.hot.add (transaction);
+        this.sequences.put (transaction.getId (),++this.sequence);
+        if (this.hot.getCount () > this.spillAt) {
+            spill ();
+        }
+    }
+
+    public boolean contains (Transaction transaction) {
+        return contains (transaction.getId ());
+    }
+
+    public boolean contains (int id) {
+        return this.hot.contains (id) || coldRunOf (id) != null;
+    }
+
+    public void changeTransactionStatus (int id,TransactionStatus newStatus) {
+        if (this.hot.contains (id)) {
+            this.hot.changeTransactionStatus (id,newStatus);
+            return;
+        }
+        ColdRun run = coldRunOf (id);
+        if (run == null) {
+            throw new IllegalArgumentException ();
+        }
+        int row = run.find (id);
+        if (run.status (row) == newStatus) {
+            return;
+        }
+        Transaction transaction = run.read (row,this.parties);
+        transaction.setStatus (newStatus);
+        this.hot.add (transaction);
+        this.sequences.put (id,run.sequence (row));
+        removeCold (run,row);
+    }
+
+    public void removeTransactionById (int id) {
+        if (this.hot.contains (id)) {
+            this.hot.removeTransactionById (id);
+            this.sequences.remove (id);
+            return;
+        }
+        ColdRun run = coldRunOf (id);
+        if (run == null) {
+            throw new IllegalArgumentException ();
+        }
+        removeCold (run,run.find (id));
+    }
+
+    public Transaction getById (int id) {
+        if (this.hot.contains (id)) {
+            return this.hot.getById (id);
+        }
+        ColdRun run = coldRunOf (id);
+        if (run == null) {
+            throw new IllegalArgumentException ();
+        }
+        return run.read (run.find (id),this.parties);
+    }
+
+    public Iterable<Transaction> getByTransactionStatus (TransactionStatus status) {
+        return withStatus (status);
+    }
+
+    public Iterable<String> getAllSendersWithTransactionStatus (TransactionStatus status) {
+        Results      results = withStatus (status);
+        List<String> senders = new ArrayList<> (results.size ());
+        for (int i = 0; i < results.size (); i++) {
+            senders.add (results.sender (i));
+        }
+        return senders;
+    }
+
+    public Iterable<String> getAllReceiversWithTransactionStatus (TransactionStatus status) {
+        Results      results   = withStatus (status);
+        List<String> receivers = new ArrayList<> (results.size ());
+        for (int i = 0; i < results.size (); i++) {
+            receivers.add (results.receiver (i));
+        }
+        return receivers;
+    }
+
+    // Despite the name, a single ChainblockImpl returns every transaction by id descending:
+    // ids are unique, so its last sort, by id, decides the order on its own. Both tiers
+    // are merged in that order.
+    public Iterable<Transaction> getAllOrderedByAmountDescendingThenById () {
+        return query (Order.ID_DESCENDING,this.hot,run -> true,(run,row) -> true);
+    }
+
+    public Iterable<Transaction> getBySenderOrderedByAmountDescending (String sender) {
+        int     senderId = this.parties.idOf (sender);
+        Results results  = query (Order.AMOUNT_THEN_SEQUENCE,hotSentBy (sender),
+                run -> run.mayContainSender (senderId),(run,row) -> run.sender (row) == senderId);
+        if (results.isEmpty ()) {
+            throw new IllegalArgumentException ();
+        }
+        return results;
+    }
+
+    public Iterable<Transaction> getByReceiverOrderedByAmountThenById (String receiver) {
+        int     receiverId = this.parties.idOf (receiver);
+        Results results    = query (Order.AMOUNT_THEN_ID,this.hot.getReceiverIndex (receiver),
+                run -> run.mayContainReceiver (receiverId),(run,row) -> run.receiver (row) == receiverId);
+        if (results.isEmpty ()) {
+            throw new IllegalArgumentException ();
+        }
+        return results;
+    }
+
+    public Iterable<Transaction> getByTransactionStatusAndMaximumAmount (TransactionStatus status,double amount) {
+        AmountIndex index = hotStatusIndex (status);
+        if (index.isEmpty () && (status != SETTLED || this.coldCount == 0)) {
+            throw new IllegalArgumentException ();
+        }
+        Results results = query (Order.AMOUNT_THEN_SEQUENCE,index.range (Double.NEGATIVE_INFINITY,amount),
+                run -> status == SETTLED && run.mayContainAmounts (Double.NEGATIVE_INFINITY,amount),(run,row) -> run.amount (row) < amount);
+        return results.isEmpty () ? Collections.emptyList () : results;
+    }
+
+    public Iterable<Transaction> getBySenderAndMinimumAmountDescending (String sender,double amount) {
+        int               senderId = this.parties.idOf (sender);
+        List<Transaction> sent     = hotSentBy (sender);
+        if (sent.isEmpty () && !anyCold (run -> run.mayContainSender (senderId),(run,row) -> run.sender (row) == senderId)
+                || this.hot.getAmountIndex ().above (amount).isEmpty () && !anyColdAbove (amount)) {
+            throw new IllegalArgumentException ();
+        }
+        sent.removeIf (t -> !(t.getAmount () > amount));
+        return query (Order.AMOUNT_THEN_SEQUENCE,sent,
+                run -> run.mayContainSender (senderId) && run.mayContainAmounts (Math.nextUp (amount),Double.POSITIVE_INFINITY),
+                (run,row) -> run.sender (row) == senderId && run.amount (row) > amount);
+    }
+
+    public Iterable<Transaction> getByReceiverAndAmountRange (String receiver,double lo,double hi) {
+        int     receiverId = this.parties.idOf (receiver);
+        Results results    = query (Order.AMOUNT_THEN_ID,this.hot.getReceiverIndex (receiver).range (lo,hi),
+                run -> run.mayContainReceiver (receiverId) && lo < hi && run.mayContainAmounts (lo,Math.nextDown (hi)),
+                (run,row) -> run.receiver (row) == receiverId && run.amount (row) >= lo && run.amount (row) < hi);
+        if (results.isEmpty ()) {
+            throw new IllegalArgumentException ();
+        }
+        return results;
+    }
+
+    public Iterable<Transaction> getAllInAmountRange (double lo,double hi) {
+        Results results = query (Order.SEQUENCE,this.hot.getAmountIndex ().rangeClosed (lo,hi),
+                run -> run.mayContainAmounts (lo,hi),(run,row) -> run.amount (row) >= lo && run.amount (row) <= hi);
+        return results.isEmpty () ? Collections.emptyList () : results;
+    }
+
+    // Both tiers merged back into insertion order.
+    public Iterator<Transaction> iterator () {
+        return query (Order.SEQUENCE,this.hot,run -> true,(run,row) -> true).iterator ();
+    }
+
+    @Override
+    public void close () throws IOException {
+        for (ColdRun run : this.runs) {
+            run.delete ();
+        }
+        this.runs.clear ();
+        this.coldCount = 0;
+    }
+
+    // Moves the oldest settled transactions out until the hot tier is back to three quarters
+    // of its capacity. Unsettled ones stay, so the hot tier can outgrow its capacity; the
+    // next attempt then waits until it has grown by another quarter.
+    private void spill () {
+        int               excess  = this.hot.getCount () - (this.hotCapacity - this.hotCapacity / 4);
+        List<Transaction> settled = new ArrayList<> ();
+        for (Transaction transaction : this.hot) {
+            if (settled.size () == excess) {
+                break;
+            }
+            if (transaction.getStatus () == SETTLED) {
+                settled.add (transaction);
+            }
+        }
+        if (!settled.isEmpty ()) {
+            settled.sort (Comparator.comparingInt (Transaction::getId));
+            try {
+                ColdRun.Writer writer = ColdRun.writer (this.directory,this.nextRunIndex++);
+                try {
+                    for (Transaction transaction : settled) {
+                        writer.add (transaction.getId (),transaction.getStatus (),this.parties.intern (transaction.getSender ()),
+                                this.parties.intern (transaction.getReceiver ()),transaction.getAmount (),this.sequences.get (transaction.getId ()));
+                    }
+                } catch (IOException | RuntimeException e) {
+                    writer.abort ();
+                    throw e;
+                }
+                this.runs.add (writer.finish ());
+                this.coldCount += settled.size ();
+                for (Transaction transaction : settled) {
+                    this.hot.removeTransactionById (transaction.getId ());
+                    this.sequences.remove (transaction.getId ());
+                }
+                mergeRuns ();
+            } catch (IOException e) {
+                throw new UncheckedIOException (e);
+            }
+        }
+        this.spillAt = Math.max (this.hotCapacity,this.hot.getCount () + this.hot.getCount () / 4);
+    }
+
+    // Merges the newest run into its predecessor while it holds at least half as many live
+    // transactions, so run sizes at least halve from oldest to newest.
+    private void mergeRuns () throws IOException {
+        while (this.runs.size () > 1) {
+            ColdRun newest   = this.runs.get (this.runs.size () - 1);
+            ColdRun previous = this.runs.get (this.runs.size () - 2);
+            if (newest.getLiveCount () * 2L < previous.getLiveCount ()) {
+                return;
+            }
+            ColdRun merged = ColdRun.merge (this.directory,this.nextRunIndex++,previous,newest);
+            this.runs.subList (this.runs.size () - 2,this.runs.size ()).clear ();
+            this.runs.add (merged);
+            previous.delete ();
+            newest.delete ();
+        }
+    }
+
+    private void removeCold (ColdRun run,int row) {
+        run.remove (row);
+        this.coldCount--;
+        if (run.getLiveCount () == 0) {
+            this.runs.remove (run);
+            try {
+                run.delete ();
+            } catch (IOException e) {
+                throw new UncheckedIOException (e);
+            }
+        }
+    }
+
+    private ColdRun coldRunOf (int id) {
+        for (ColdRun run : this.runs) {
+            if (run.find (id) >= 0) {
+                return run;
+            }
+        }
+        return null;
+    }
+
+    // Every cold transaction is settled, so cold runs only match the settled status.
+    private Results withStatus (TransactionStatus status) {
+        Results results = query (Order.AMOUNT_THEN_SEQUENCE,hotStatusIndex (status),run -> status == SETTLED,(run,row) -> true);
+        if (results.isEmpty ()) {
+            throw new IllegalArgumentException ();
+        }
+        return results;
+    }
+
+    private AmountIndex hotStatusIndex (TransactionStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException ();
+        }
+        return this.hot.getStatusIndex (status);
+    }
+
+    private List<Transaction> hotSentBy (String sender) {
+        List<Transaction> sent = new ArrayList<> ();
+        this.hot.getRowIndex ().forEachWithSender (this.hot.getParties ().idOf (sender),sent::add);
+        return sent;
+    }
+
+    // The hot matches, taken from one of the hot tier's indexes, merged with the matching
+    // live rows of every cold run. Each run is walked along a row order it already keeps
+    // where there is one, so only the hot matches get sorted.
+    private Results query (Order order,Iterable<Transaction> hotMatches,Predicate<ColdRun> runMatch,RowMatch rowMatch) {
+        List<Hit> hits = new ArrayList<> ();
+        for (Transaction transaction : hotMatches) {
+            hits.add (new Hit (transaction,this.sequences.get (transaction.getId ())));
+        }
+        hits.sort (order.comparator);
+        PriorityQueue<Cursor> cursors = new PriorityQueue<> (this.runs.size () + 1,order.comparator);
+        add (cursors,new HotCursor (hits));
+        for (ColdRun run : this.runs) {
+            if (runMatch.test (run)) {
+                add (cursors,new RunCursor (run,rows (order,run,rowMatch),rowMatch));
+            }
+        }
+        Results results = new Results (this.parties);
+        while (!cursors.isEmpty ()) {
+            Cursor cursor = cursors.poll ();
+            cursor.emit (results);
+            add (cursors,cursor);
+        }
+        return results;
+    }
+
+    private static void add (PriorityQueue<Cursor> cursors,Cursor cursor) {
+        if (cursor.advance ()) {
+            cursors.add (cursor);
+        }
+    }
+
+    // A run's rows in the given order, null for descending rows, which are by id descending.
+    // Receiver queries break amount ties by id, which no run keeps an order for, so their
+    // matches are sorted here.
+    private static int[] rows (Order order,ColdRun run,RowMatch rowMatch) {
+        switch (order) {
+            case SEQUENCE:
+                return run.rowsBySequence ();
+            case AMOUNT_THEN_SEQUENCE:
+                return run.rowsByAmount ();
+            case ID_DESCENDING:
+                return null;
+            case AMOUNT_THEN_ID:
+                List<Integer> matches = new ArrayList<> ();
+                for (int row = 0; row < run.getRowCount (); row++) {
+                    if (run.isLive (row) && rowMatch.test (run,row)) {
+                        matches.add (row);
+                    }
+                }
+                matches.sort (Comparator.comparingDouble ((Integer row) -> run.amount (row)).reversed ().thenComparingInt (row -> row));
+                return matches.stream ().mapToInt (Integer::intValue).toArray ();
+            default:
+                throw new IllegalStateException (order.name ());
+        }
+    }
+
+    private boolean anyCold (Predicate<ColdRun> runMatch,RowMatch rowMatch) {
+        for (ColdRun run : this.runs) {
+            if (!runMatch.test (run)) {
+                continue;
+            }
+            for (int row = 0; row < run.getRowCount (); row++) {
+                if (run.isLive (row) && rowMatch.test (run,row)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Walks each run's amount order only as far as amounts stay above the given one.
+    private boolean anyColdAbove (double amount) {
+        for (ColdRun run : this.runs) {
+            for (int row : run.rowsByAmount ()) {
+                double at = run.amount (row);
+                if (at != at) {
+                    // NaN sorts first and never matches
+                    continue;
+                }
+                if (!(at > amount)) {
+                    break;
+                }
+                if (run.isLive (row)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private interface RowMatch {
+        boolean test (ColdRun run,int row);
+    }
+
+    // What the orders compare: the current match of a cursor, or a hot match.
+    private interface Position {
+        double amount ();
+
+        long sequence ();
+
+        int id ();
+    }
+
+    private enum Order {
+        SEQUENCE (Comparator.comparingLong (Position::sequence)),
+        AMOUNT_THEN_SEQUENCE (Comparator.comparingDouble (Position::amount).reversed ().thenComparingLong (Position::sequence)),
+        AMOUNT_THEN_ID (Comparator.comparingDouble (Position::amount).reversed ().thenComparingInt (Position::id)),
+        ID_DESCENDING (Comparator.comparingInt (Position::id).reversed ());
+
+        private final Comparator<Position> comparator;
+
+        Order (Comparator<Position> comparator) {
+            this.comparator = comparator;
+        }
+    }
+
+    // A hot match with its insertion sequence, which breaks amount ties across the tiers.
+    private static final class Hit implements Position {
+        private final Transaction transaction;
+        private final long sequence;
+
+        private Hit (Transaction transaction,long sequence) {
+            this.transaction = transaction;
+            this.sequence = sequence;
+        }
+
+        public double amount () {
+            return this.transaction.getAmount ();
+        }
+
+        public long sequence () {
+            return this.sequence;
+        }
+
+        public int id () {
+            return this.transaction.getId ();
+        }
+    }
+
+    // One already ordered stream of matches in a merge.
+    private abstract static class Cursor implements Position {
+        // Moves to the next match, false once there is none.
+        abstract boolean advance ();
+
+        abstract void emit (Results results);
+    }
+
+    private static final class HotCursor extends Cursor {
+        private final List<Hit> hits;
+        private int next;
+        private Hit current;
+
+        private HotCursor (List<Hit> hits) {
+            this.hits = hits;
+        }
+
+        boolean advance () {
+            if (this.next == this.hits.size ()) {
+                return false;
+            }
+            this.current = this.hits.get (this.next++);
+            return true;
+        }
+
+        void emit (Results results) {
+            results.addHot (this.current.transaction);
+        }
+
+        public double amount () {
+            return this.current.amount ();
+        }
+
+        public long sequence () {
+            return this.current.sequence;
+        }
+
+        public int id () {
+            return this.current.id ();
+        }
+    }
+
+    // Live matching rows of a run in the given row order, or by descending row when there is
+    // none, read field by field.
+    private static final class RunCursor extends Cursor {
+        private final ColdRun run;
+        private final int[] rows;
+        private final RowMatch rowMatch;
+        private int next;
+        private int row;
+
+        private RunCursor (ColdRun run,int[] rows,RowMatch rowMatch) {
+            this.run = run;
+            this.rows = rows;
+            this.rowMatch = rowMatch;
+        }
+
+        boolean advance () {
+            int count  = this.run.getRowCount ();
+            int length = this.rows == null ? count : this.rows.length;
+            while (this.next < length) {
+                int row = this.rows == null ? count - 1 - this.next : this.rows[this.next];
+                this.next++;
+                if (this.run.isLive (row) && this.rowMatch.test (this.run,row)) {
+                    this.row = row;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void emit (Results results) {
+            results.addCold (this.run,this.row);
+        }
+
+        public double amount () {
+            return this.run.amount (this.row);
+        }
+
+        public long sequence () {
+            return this.run.sequence (this.row);
+        }
+
+        public int id () {
+            return this.run.id (this.row);
+        }
+    }
+
+    // A query result: hot transactions as they are, cold rows decoded into a copy each time
+    // they are read. A run merged away afterwards stays readable, as its mapping lives as
+    // long as its buffer.
+    private static final class Results extends AbstractList<Transaction> implements RandomAccess {
+        private final PartyDictionary parties;
+        private Object[] sources;
+        private int[] rows;
+        private int size;
+
+        private Results (PartyDictionary parties) {
+            this.parties = parties;
+            this.sources = new Object[16];
+            this.rows = new int[16];
+        }
+
+        @Override
+        public Transaction get (int index) {
+            Objects.checkIndex (index,this.size);
+            if (this.sources[index] instanceof ColdRun) {
+                return ((ColdRun) this.sources[index]).read (this.rows[index],this.parties);
+            }
+            return (Transaction) this.sources[index];
+        }
+
+        @Override
+        public int size () {
+            return this.size;
+        }
+
+        private String sender (int index) {
+            if (this.sources[index] instanceof ColdRun) {
+                return this.parties.nameOf (((ColdRun) this.sources[index]).sender (this.rows[index]));
+            }
+            return ((Transaction) this.sources[index]).getSender ();
+        }
+
+        private String receiver (int index) {
+            if (this.sources[index] instanceof ColdRun) {
+                return this.parties.nameOf (((ColdRun) this.sources[index]).receiver (this.rows[index]));
+            }
+            return ((Transaction) this.sources[index]).getReceiver ();
+        }
+
+        private void addHot (Transaction transaction) {
+            append (transaction,-1);
+        }
+
+        private void addCold (ColdRun run,int row) {
+            append (run,row);
+        }
+
+        private void append (Object source,int row) {
+            if (this.size == this.sources.length) {
+                this.sources = Arrays.copyOf (this.sources,this.size * 2);
+                this.rows = Arrays.copyOf (this.rows,this.size * 2);
+            }
+            this.sources[this.size] = source;
+            this.rows[this.size] = row;
+            this.size++;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Bounded min-heap keeping the k largest amounts offered. Ties keep whichever was offered
+// first, or has the smaller explicit order, so feeding transactions in insertion order
+// gives the same first k as a stable sort by amount descending. Holds at most k transactions.
+public class TopK {
+    private final int limit;
+    private Transaction[] heap;
+    private long[] order;
+    private int size;
+    private long offered;
+
+    public TopK (int limit) {
+        this (limit,16);
+    }
+
+    // expected is a hint for how many transactions will be offered, used to size the heap.
+    public TopK (int limit,int expected) {
+        if (limit < 1) {
+            throw new IllegalArgumentException ();
+        }
+        this.limit = limit;
+        int capacity = Math.max (1,Math.min (limit,expected));
+        this.heap = new Transaction[capacity];
+        this.order = new long[capacity];
+    }
+
+    public void offer (Transaction transaction) {
+        offer (transaction,this.offered++);
+    }
+
+    // Ties are kept by smallest order instead of offer order, e.g. by row when the
+    // transactions do not arrive in insertion order.
+    public void offer (Transaction transaction,long ordinal) {
+        if (this.size < this.limit) {
+            if (this.size == this.heap.length) {
+                int capacity = (int) Math.min (this.limit,2L * this.size);
+                this.heap = Arrays.copyOf (this.heap,capacity);
+                this.order = Arrays.copyOf (this.order,capacity);
+            }
+            this.heap[this.size] = transaction;
+            this.order[this.size] = ordinal;
+            siftUp (this.size++);
+        } else if (better (transaction,ordinal)) {
+            this.heap[0] = transaction;
+            this.order[0] = ordinal;
+            siftDown (0);
+        }
+    }
+
+    public int size () {
+        return this.size;
+    }
+
+    // Largest amount first, ties in offer order. Empties the heap.
+    public List<Transaction> drain () {
+        Transaction[] sorted = new Transaction[this.size];
+        for (int i = this.size - 1; i >= 0; i--) {
+            sorted[i] = this.heap[0];
+            this.size--;
+            this.heap[0] = this.heap[this.size];
+            this.order[0] = this.order[this.size];
+            this.heap[this.size] = null;
+            siftDown (0);
+        }
+        return new ArrayList<> (Arrays.asList (sorted));
+    }
+
+    // The root is the worst entry: the smallest amount, latest offered among equal amounts.
+    private boolean worse (int a,int b) {
+        int compare = Double.compare (this.heap[a].getAmount (),this.heap[b].getAmount ());
+        return compare < 0 || compare == 0 && this.order[a] > this.order[b];
+    }
+
+    // Whether the transaction would rank ahead of the root.
+    private boolean better (Transaction transaction,long ordinal) {
+        int compare = Double.compare (transaction.getAmount (),this.heap[0].getAmount ());
+        return compare > 0 || compare == 0 && ordinal < this.order[0];
+    }
+
+    private void siftUp (int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!worse (index,parent)) {
+                return;
+            }
+            swap (index,parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown (int index) {
+        while (true) {
+            int left     = 2 * index + 1;
+            int smallest = index;
+            if (left < this.size && worse (left,smallest)) {
+                smallest = left;
+            }
+            if (left + 1 < this.size && worse (left + 1,smallest)) {
+                smallest = left + 1;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap (index,smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap (int a,int b) {
+        Transaction transaction = this.heap[a];
+        long        ordinal     = this.order[a];
+        this.heap[a] = this.heap[b];
+        this.order[a] = this.order[b];
+        this.heap[b] = transaction;
+        this.order[b] = ordinal;
+    }
+}
@@ -0,0 +1,82 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Append-only store of TransactionLayout records in fixed-size heap or direct chunks.
+// Chunks are never reallocated, so flyweights handed out stay valid as the store grows.
+public class TransactionBuffer {
+    public static final int DEFAULT_CHUNK_RECORDS = 64 * 1024;
+
+    private final PartyDictionary parties;
+    private final boolean direct;
+    private final int chunkRecords;
+    private final List<ByteBuffer> chunks;
+    private int size;
+
+    private TransactionBuffer (int chunkRecords,boolean direct) {
+        if (chunkRecords < 1 || chunkRecords > Integer.MAX_VALUE / TransactionLayout.SIZE) {
+            throw new IllegalArgumentException ();
+        }
+        this.parties = new PartyDictionary ();
+        this.direct = direct;
+        this.chunkRecords = chunkRecords;
+        this.chunks = new ArrayList<> ();
+    }
+
+    public static TransactionBuffer allocate () {
+        return allocate (DEFAULT_CHUNK_RECORDS);
+    }
+
+    public static TransactionBuffer allocate (int chunkRecords) {
+        return new TransactionBuffer (chunkRecords,false);
+    }
+
+    public static TransactionBuffer allocateDirect () {
+        return allocateDirect (DEFAULT_CHUNK_RECORDS);
+    }
+
+    public static TransactionBuffer allocateDirect (int chunkRecords) {
+        return new TransactionBuffer (chunkRecords,true);
+    }
+
+    public BufferTransaction add (Transaction transaction) {
+        int row = append (transaction);
+        return get (row);
+    }
+
+    public int append (Transaction transaction) {
+        if (this.size == this.chunks.size () * this.chunkRecords) {
+            int bytes = this.chunkRecords * TransactionLayout.SIZE;
+            this.chunks.add (this.direct ? ByteBuffer.allocateDirect (bytes) : ByteBuffer.allocate (bytes));
+        }
+        TransactionLayout.write (chunk (this.size),offset (this.size),transaction,this.parties);
+        return this.size++;
+    }
+
+    public BufferTransaction get (int row) {
+        return get (row,new BufferTransaction (this.parties));
+    }
+
+    public BufferTransaction get (int row,BufferTransaction flyweight) {
+        if (row < 0 || row >= this.size) {
+            throw new IndexOutOfBoundsException (row);
+        }
+        return flyweight.wrap (chunk (row),offset (row));
+    }
+
+    public int size () {
+        return this.size;
+    }
+
+    public PartyDictionary getParties () {
+        return this.parties;
+    }
+
+    private ByteBuffer chunk (int row) {
+        return this.chunks.get (row / this.chunkRecords);
+    }
+
+    private int offset (int row) {
+        return row % this.chunkRecords * TransactionLayout.SIZE;
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Conjunction of predicates over status, sender, receiver and amount. Values given for
+// the same predicate are alternatives; an unset predicate matches everything.
+public class TransactionFilter {
+    private final EnumSet<TransactionStatus> statuses;
+    private final Set<String> senders;
+    private final Set<String> receivers;
+    private double minAmount;
+    private double maxAmount;
+    private boolean amountRange;
+
+    public TransactionFilter () {
+        this.statuses = EnumSet.noneOf (TransactionStatus.class);
+        this.senders = new LinkedHashSet<> ();
+        this.receivers = new LinkedHashSet<> ();
+        this.minAmount = Double.NEGATIVE_INFINITY;
+        this.maxAmount = Double.POSITIVE_INFINITY;
+    }
+
+    public TransactionFilter withStatus (TransactionStatus... statuses) {
+        Collections.addAll (this.statuses,statuses);
+        return this;
+    }
+
+    public TransactionFilter withSender (String... senders) {
+        Collections.addAll (this.senders,senders);
+        return this;
+    }
+
+    public TransactionFilter withReceiver (String... receivers) {
+        Collections.addAll (this.receivers,receivers);
+        return this;
+    }
+
+    // Inclusive on both ends, like Chainblock.getAllInAmountRange.
+    public TransactionFilter withAmountBetween (double lo,double hi) {
+        this.minAmount = lo;
+        this.maxAmount = hi;
+        this.amountRange = true;
+        return this;
+    }
+
+    public Set<TransactionStatus> getStatuses () {
+        return Collections.unmodifiableSet (this.statuses);
+    }
+
+    public Set<String> getSenders () {
+        return Collections.unmodifiableSet (this.senders);
+    }
+
+    public Set<String> getReceivers () {
+        return Collections.unmodifiableSet (this.receivers);
+    }
+
+    public double getMinAmount () {
+        return this.minAmount;
+    }
+
+    public double getMaxAmount () {
+        return this.maxAmount;
+    }
+
+    public boolean hasAmountRange () {
+        return this.amountRange;
+    }
+
+    public boolean matchesAmount (double amount) {
+        return !this.amountRange || amount >= this.minAmount && amount <= this.maxAmount;
+    }
+
+    public boolean matches (Transaction transaction) {
+        return (this.statuses.isEmpty () || this.statuses.contains (transaction.getStatus ()))
+                && (this.senders.isEmpty () || this.senders.contains (transaction.getSender ()))
+                && (this.receivers.isEmpty () || this.receivers.contains (transaction.getReceiver ()))
+                && matchesAmount (transaction.getAmount ());
+    }
+}
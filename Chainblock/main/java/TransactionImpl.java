@@ -35,7 +35,11 @@ public class TransactionImpl implements Comparable<TransactionImpl>, Transaction
 
     @Override
     public int hashCode () {
-        return Objects.hash (id,status,from,to,amount);
+        int result = 31 + Integer.hashCode (id);
+        result = 31 * result + Objects.hashCode (status);
+        result = 31 * result + Objects.hashCode (from);
+        result = 31 * result + Objects.hashCode (to);
+        return 31 * result + Double.hashCode (amount);
     }
 
     @Override
@@ -0,0 +1,43 @@
+import java.nio.ByteBuffer;
+
+// Compact 24 byte transaction record, parties are dictionary ids:
+// id(4) status(1) pad(3) sender(4) receiver(4) amount(8)
+// A missing status is stored as -1.
+public final class TransactionLayout {
+    public static final int SIZE = 24;
+
+    static final int ID = 0;
+    static final int STATUS = 4;
+    static final int SENDER = 8;
+    static final int RECEIVER = 12;
+    static final int AMOUNT = 16;
+
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values ();
+
+    private TransactionLayout () {
+    }
+
+    public static void write (ByteBuffer buffer,int offset,Transaction transaction,PartyDictionary parties) {
+        write (buffer,offset,transaction.getId (),transaction.getStatus (),
+                parties.intern (transaction.getSender ()),
+                parties.intern (transaction.getReceiver ()),
+                transaction.getAmount ());
+    }
+
+    public static void write (ByteBuffer buffer,int offset,int id,TransactionStatus status,int sender,int receiver,double amount) {
+        buffer.putInt (offset + ID,id);
+        buffer.putInt (offset + STATUS,0);
+        buffer.put (offset + STATUS,statusByte (status));
+        buffer.putInt (offset + SENDER,sender);
+        buffer.putInt (offset + RECEIVER,receiver);
+        buffer.putDouble (offset + AMOUNT,amount);
+    }
+
+    static byte statusByte (TransactionStatus status) {
+        return (byte) (status == null ? -1 : status.ordinal ());
+    }
+
+    static TransactionStatus status (byte ordinal) {
+        return ordinal < 0 ? null : STATUSES[ordinal];
+    }
+}
@@ -0,0 +1,193 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Fluent query over a ChainblockImpl. Predicates are the same as TransactionFilter; execute()
+// plans the query against the available indexes, runs it and reports the plan it used.
+public class TransactionQuery {
+    public enum Order {
+        INSERTION,
+        AMOUNT_DESCENDING,
+        ID_ASCENDING
+    }
+
+    private final ChainblockImpl chainblock;
+    private final TransactionFilter filter;
+    private Order order;
+    private int limit;
+
+    TransactionQuery (ChainblockImpl chainblock) {
+        this.chainblock = chainblock;
+        this.filter = new TransactionFilter ();
+        this.order = Order.INSERTION;
+        this.limit = Integer.MAX_VALUE;
+    }
+
+    public TransactionQuery withStatus (TransactionStatus... statuses) {
+        this.filter.withStatus (statuses);
+        return this;
+    }
+
+    public TransactionQuery withSender (String... senders) {
+        this.filter.withSender (senders);
+        return this;
+    }
+
+    public TransactionQuery withReceiver (String... receivers) {
+        this.filter.withReceiver (receivers);
+        return this;
+    }
+
+    public TransactionQuery withAmountBetween (double lo,double hi) {
+        this.filter.withAmountBetween (lo,hi);
+        return this;
+    }
+
+    public TransactionQuery orderBy (Order order) {
+        if (order == null) {
+            throw new IllegalArgumentException ();
+        }
+        this.order = order;
+        return this;
+    }
+
+    public TransactionQuery limit (int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException ();
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    public TransactionFilter getFilter () {
+        return this.filter;
+    }
+
+    public Order getOrder () {
+        return this.order;
+    }
+
+    public int getLimit () {
+        return this.limit;
+    }
+
+    // The plan execute() would pick, without running it.
+    public QueryPlan explain () {
+        return plan ().plan;
+    }
+
+    public QueryResult execute () {
+        Candidate         chosen    = plan ();
+        List<Transaction> result    = new ArrayList<> ();
+        boolean           presorted = chosen.order == this.order;
+        int               examined  = 0;
+        for (Transaction transaction : source (chosen.plan.getStrategy ())) {
+            examined++;
+            if (this.filter.matches (transaction)) {
+                result.add (transaction);
+                // a source already in the requested order can stop at the limit
+                if (presorted && result.size () == this.limit) {
+                    break;
+                }
+            }
+        }
+        // ChainblockImpl.filter has already counted the rows the bitmap plan produced
+        if (chosen.plan.getStrategy () != QueryPlan.Strategy.BITMAP_INDEX) {
+            this.chainblock.scanned (examined);
+        }
+        if (!presorted) {
+            result.sort (comparator ());
+            if (result.size () > this.limit) {
+                result = new ArrayList<> (result.subList (0,this.limit));
+            }
+        }
+        return new QueryResult (result,chosen.plan.executed (examined,result.size ()));
+    }
+
+    // Cheapest candidate by estimated rows to visit; an extra pass is charged when the
+    // source is not already in the requested order. Ties keep the earlier, narrower index.
+    private Candidate plan () {
+        int             matches    = this.chainblock.getRowIndex ().estimate (this.filter,this.chainblock.getParties ());
+        List<Candidate> candidates = new ArrayList<> ();
+        if (this.filter.getReceivers ().size () == 1) {
+            String receiver = this.filter.getReceivers ().iterator ().next ();
+            candidates.add (new Candidate (QueryPlan.Strategy.RECEIVER_INDEX,
+                    this.chainblock.getReceiverIndex (receiver).size (),Order.AMOUNT_DESCENDING));
+        }
+        if (this.filter.getStatuses ().size () == 1) {
+            TransactionStatus status = this.filter.getStatuses ().iterator ().next ();
+            candidates.add (new Candidate (QueryPlan.Strategy.STATUS_INDEX,
+                    this.chainblock.getStatusIndex (status).size (),Order.AMOUNT_DESCENDING));
+        }
+        if (this.filter.hasAmountRange ()) {
+            candidates.add (new Candidate (QueryPlan.Strategy.AMOUNT_INDEX,
+                    this.chainblock.getRowIndex ().estimateAmountRange (this.filter.getMinAmount (),
+                            this.filter.getMaxAmount ()),Order.AMOUNT_DESCENDING));
+        }
+        if (!this.filter.getStatuses ().isEmpty () || !this.filter.getSenders ().isEmpty ()
+                || !this.filter.getReceivers ().isEmpty () || this.filter.hasAmountRange ()) {
+            candidates.add (new Candidate (QueryPlan.Strategy.BITMAP_INDEX,matches,Order.INSERTION));
+        }
+        candidates.add (new Candidate (QueryPlan.Strategy.SCAN,this.chainblock.getCount (),Order.INSERTION));
+        Candidate best = null;
+        for (Candidate candidate : candidates) {
+            if (best == null || cost (candidate,matches) < cost (best,matches)) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    // A source in the requested order stops after limit matches, which with matches spread
+    // evenly over its rows means visiting rows * limit / matches of them.
+    private long cost (Candidate candidate,int matches) {
+        long rows = candidate.plan.getEstimatedRows ();
+        if (candidate.order != this.order) {
+            return 2 * rows;
+        }
+        if (this.limit < matches) {
+            return Math.min (rows,rows * this.limit / matches);
+        }
+        return rows;
+    }
+
+    private Iterable<Transaction> source (QueryPlan.Strategy strategy) {
+        double lo = this.filter.getMinAmount ();
+        double hi = this.filter.getMaxAmount ();
+        switch (strategy) {
+            case RECEIVER_INDEX:
+                AmountIndex receiver = this.chainblock.getReceiverIndex (this.filter.getReceivers ().iterator ().next ());
+                return this.filter.hasAmountRange () ? receiver.rangeClosed (lo,hi) : receiver;
+            case STATUS_INDEX:
+                AmountIndex status = this.chainblock.getStatusIndex (this.filter.getStatuses ().iterator ().next ());
+                return this.filter.hasAmountRange () ? status.rangeClosed (lo,hi) : status;
+            case AMOUNT_INDEX:
+                return this.chainblock.getAmountIndex ().rangeClosed (lo,hi);
+            case BITMAP_INDEX:
+                return this.chainblock.filter (this.filter);
+            default:
+                return this.chainblock;
+        }
+    }
+
+    private Comparator<Transaction> comparator () {
+        switch (this.order) {
+            case AMOUNT_DESCENDING:
+                return AmountIndex.AMOUNT_DESCENDING_THEN_ID;
+            case ID_ASCENDING:
+                return Comparator.comparingInt (Transaction::getId);
+            default:
+                return this.chainblock.insertionOrder ();
+        }
+    }
+
+    private static final class Candidate {
+        private final QueryPlan plan;
+        private final Order order;
+
+        private Candidate (QueryPlan.Strategy strategy,int estimatedRows,Order order) {
+            this.plan = new QueryPlan (strategy,estimatedRows);
+            this.order = order;
+        }
+    }
+}
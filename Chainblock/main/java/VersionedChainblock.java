@@ -0,0 +1,355 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Chainblock decorator that numbers every mutation and keeps the earlier states of each
+// transaction, so the chainblock can be queried as it was after any sequence number still
+// inside the retention window. Each added transaction, status change and removal takes the
+// next sequence number; the current state is served by the delegate.
+public class VersionedChainblock implements Chainblock {
+    public static final long KEEP_ALL = Long.MAX_VALUE;
+    static final int SNAPSHOT_CACHE_SIZE = 8;
+
+    private final Chainblock delegate;
+    private final long retention;
+    private final Map<Integer, Version> versions;
+    // versions that replaced an older one or are removals, in sequence order
+    private final ArrayDeque<Version> superseding;
+    // rebuilt states by sequence, least recently used first; a past state never changes
+    private final LinkedHashMap<Long, Chainblock> snapshots;
+    private long sequence;
+    private long horizon;
+
+    public VersionedChainblock (Chainblock delegate) {
+        this (delegate,KEEP_ALL);
+    }
+
+    // States older than the last retention sequence numbers are dropped as mutations come in.
+    public VersionedChainblock (Chainblock delegate,long retention) {
+        if (retention < 1) {
+            throw new IllegalArgumentException ();
+        }
+        this.delegate = delegate;
+        this.retention = retention;
+        this.versions = new HashMap<> ();
+        this.superseding = new ArrayDeque<> ();
+        this.snapshots = new LinkedHashMap<> (16,0.75f,true) {
+            @Override
+            protected boolean removeEldestEntry (Map.Entry<Long, Chainblock> eldest) {
+                return size () > SNAPSHOT_CACHE_SIZE;
+            }
+        };
+        for (Transaction transaction : delegate) {
+            record (transaction.getId (),snapshot (transaction),transaction.getStatus (),true);
+        }
+    }
+
+    // The sequence number of the last mutation, 0 before the first one.
+    public synchronized long getSequence () {
+        return this.sequence;
+    }
+
+    // The oldest sequence number asOf still answers.
+    public synchronized long getHorizon () {
+        return this.horizon;
+    }
+
+    // A read-only chainblock holding the transactions as they were right after the given
+    // mutation, in the order they were added. The first call for a sequence walks every
+    // retained version and bulk-adds the visible ones to a new ChainblockImpl, O(n log n);
+    // the last few states asked for are cached, so repeated calls for them are O(1). The
+    // transactions are shared between calls and must not be changed through setStatus.
+    public synchronized Chainblock asOf (long sequence) {
+        if (sequence < this.horizon || sequence > this.sequence) {
+            throw new IllegalArgumentException ();
+        }
+        Chainblock snapshot = this.snapshots.get (sequence);
+        if (snapshot == null) {
+            snapshot = new Snapshot (rebuild (sequence));
+            this.snapshots.put (sequence,snapshot);
+        }
+        return snapshot;
+    }
+
+    public int getCount () {
+        return this.delegate.getCount ();
+    }
+
+    public synchronized void add (Transaction transaction) {
+        boolean added = !this.delegate.contains (transaction.getId ());
+        this.delegate.add (transaction);
+        if (added) {
+            record (transaction.getId (),snapshot (transaction),transaction.getStatus (),true);
+        }
+    }
+
+    public synchronized void addAll (Iterable<Transaction> transactions) {
+        List<Transaction> added = new ArrayList<> ();
+        Set<Integer>      ids   = new HashSet<> ();
+        for (Transaction transaction : transactions) {
+            if (!this.delegate.contains (transaction.getId ()) && ids.add (transaction.getId ())) {
+                added.add (transaction);
+            }
+        }
+        this.delegate.addAll (transactions);
+        for (Transaction transaction : added) {
+            record (transaction.getId (),snapshot (transaction),transaction.getStatus (),true);
+        }
+    }
+
+    public boolean contains (Transaction transaction) {
+        return this.delegate.contains (transaction);
+    }
+
+    public boolean contains (int id) {
+        return this.delegate.contains (id);
+    }
+
+    public synchronized void changeTransactionStatus (int id,TransactionStatus newStatus) {
+        this.delegate.changeTransactionStatus (id,newStatus);
+        Version     previous = this.versions.get (id);
+        Transaction base     = previous == null || previous.base == null ? snapshot (this.delegate.getById (id)) : previous.base;
+        record (id,base,newStatus,false);
+    }
+
+    public synchronized void removeTransactionById (int id) {
+        this.delegate.removeTransactionById (id);
+        record (id,null,null,false);
+    }
+
+    public Transaction getById (int id) {
+        return this.delegate.getById (id);
+    }
+
+    public Iterable<Transaction> getByTransactionStatus (TransactionStatus status) {
+        return this.delegate.getByTransactionStatus (status);
+    }
+
+    public Iterable<String> getAllSendersWithTransactionStatus (TransactionStatus status) {
+        return this.delegate.getAllSendersWithTransactionStatus (status);
+    }
+
+    public Iterable<String> getAllReceiversWithTransactionStatus (TransactionStatus status) {
+        return this.delegate.getAllReceiversWithTransactionStatus (status);
+    }
+
+    public Iterable<Transaction> getAllOrderedByAmountDescendingThenById () {
+        return this.delegate.getAllOrderedByAmountDescendingThenById ();
+    }
+
+    public Iterable<Transaction> getBySenderOrderedByAmountDescending (String sender) {
+        return this.delegate.getBySenderOrderedByAmountDescending (sender);
+    }
+
+    public Iterable<Transaction> getByReceiverOrderedByAmountThenById (String receiver) {
+        return this.delegate.getByReceiverOrderedByAmountThenById (receiver);
+    }
+
+    public Iterable<Transaction> getByTransactionStatusAndMaximumAmount (TransactionStatus status,double amount) {
+        return this.delegate.getByTransactionStatusAndMaximumAmount (status,amount);
+    }
+
+    public Iterable<Transaction> getBySenderAndMinimumAmountDescending (String sender,double amount) {
+        return this.delegate.getBySenderAndMinimumAmountDescending (sender,amount);
+    }
+
+    public Iterable<Transaction> getByReceiverAndAmountRange (String receiver,double lo,double hi) {
+        return this.delegate.getByReceiverAndAmountRange (receiver,lo,hi);
+    }
+
+    public Iterable<Transaction> getAllInAmountRange (double lo,double hi) {
+        return this.delegate.getAllInAmountRange (lo,hi);
+    }
+
+    // Iterates the current state; use asOf for earlier ones.
+    public Iterator<Transaction> iterator () {
+        return this.delegate.iterator ();
+    }
+
+    int getVersionCount () {
+        int count = 0;
+        for (Version version : this.versions.values ()) {
+            for (; version != null; version = version.previous) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private ChainblockImpl rebuild (long sequence) {
+        List<Version> visible = new ArrayList<> ();
+        for (Version version : this.versions.values ()) {
+            while (version != null && version.sequence > sequence) {
+                version = version.previous;
+            }
+            if (version != null && version.base != null) {
+                visible.add (version);
+            }
+        }
+        visible.sort (Comparator.comparingLong (v -> v.added));
+        List<Transaction> transactions = new ArrayList<> (visible.size ());
+        for (Version version : visible) {
+            Transaction base = version.base;
+            transactions.add (new TransactionImpl (base.getId (),version.status,base.getSender (),base.getReceiver (),base.getAmount ()));
+        }
+        ChainblockImpl chainblock = new ChainblockImpl ();
+        chainblock.addAll (transactions);
+        return chainblock;
+    }
+
+    // Transactions are mutable, so each added transaction is copied once; status changes
+    // share that copy and only record the new status.
+    private static Transaction snapshot (Transaction transaction) {
+        return new TransactionImpl (transaction.getId (),transaction.getStatus (),transaction.getSender (),
+                transaction.getReceiver (),transaction.getAmount ());
+    }
+
+    private void record (int id,Transaction base,TransactionStatus status,boolean added) {
+        long    sequence = ++this.sequence;
+        Version previous = this.versions.get (id);
+        Version version  = new Version (id,sequence,added || previous == null ? sequence : previous.added,base,status,previous);
+        this.versions.put (id,version);
+        if (previous != null || base == null) {
+            this.superseding.add (version);
+        }
+        prune ();
+    }
+
+    // A version superseded at sequence s is only visible before s, so once the horizon
+    // reaches s it goes, and so does a removal that is still the latest version.
+    private void prune () {
+        if (this.sequence - this.horizon < this.retention) {
+            return;
+        }
+        this.horizon = this.sequence - this.retention + 1;
+        this.snapshots.keySet ().removeIf (s -> s < this.horizon);
+        while (!this.superseding.isEmpty () && this.superseding.peek ().sequence <= this.horizon) {
+            Version version = this.superseding.poll ();
+            version.previous = null;
+            if (version.base == null && this.versions.get (version.id) == version) {
+                this.versions.remove (version.id);
+            }
+        }
+    }
+
+    private static final class Version {
+        private final int id;
+        private final long sequence;
+        // the sequence at which this incarnation of the id was added, for insertion order
+        private final long added;
+        // the copy taken when this incarnation was added, null once the transaction is removed
+        private final Transaction base;
+        private final TransactionStatus status;
+        private Version previous;
+
+        private Version (int id,long sequence,long added,Transaction base,TransactionStatus status,Version previous) {
+            this.id = id;
+            this.sequence = sequence;
+            this.added = added;
+            this.base = base;
+            this.status = status;
+            this.previous = previous;
+        }
+    }
+
+    // A past state: queries go to the rebuilt chainblock, mutations are refused.
+    private static final class Snapshot implements Chainblock {
+        private final ChainblockImpl chainblock;
+
+        private Snapshot (ChainblockImpl chainblock) {
+            this.chainblock = chainblock;
+        }
+
+        public int getCount () {
+            return this.chainblock.getCount ();
+        }
+
+        public void add (Transaction transaction) {
+            throw new UnsupportedOperationException ();
+        }
+
+        public void addAll (Iterable<Transaction> transactions) {
+            throw new UnsupportedOperationException ();
+        }
+
+        public boolean contains (Transaction transaction) {
+            return this.chainblock.contains (transaction);
+        }
+
+        public boolean contains (int id) {
+            return this.chainblock.contains (id);
+        }
+
+        public void changeTransactionStatus (int id,TransactionStatus newStatus) {
+            throw new UnsupportedOperationException ();
+        }
+
+        public void removeTransactionById (int id) {
+            throw new UnsupportedOperationException ();
+        }
+
+        public Transaction getById (int id) {
+            return this.chainblock.getById (id);
+        }
+
+        public Iterable<Transaction> getByTransactionStatus (TransactionStatus status) {
+            return this.chainblock.getByTransactionStatus (status);
+        }
+
+        public Iterable<String> getAllSendersWithTransactionStatus (TransactionStatus status) {
+            return this.chainblock.getAllSendersWithTransactionStatus (status);
+        }
+
+        public Iterable<String> getAllReceiversWithTransactionStatus (TransactionStatus status) {
+            return this.chainblock.getAllReceiversWithTransactionStatus (status);
+        }
+
+        public Iterable<Transaction> getAllOrderedByAmountDescendingThenById () {
+            return this.chainblock.getAllOrderedByAmountDescendingThenById ();
+        }
+
+        public Iterable<Transaction> getBySenderOrderedByAmountDescending (String sender) {
+            return this.chainblock.getBySenderOrderedByAmountDescending (sender);
+        }
+
+        public Iterable<Transaction> getByReceiverOrderedByAmountThenById (String receiver) {
+            return this.chainblock.getByReceiverOrderedByAmountThenById (receiver);
+        }
+
+        public Iterable<Transaction> getByTransactionStatusAndMaximumAmount (TransactionStatus status,double amount) {
+            return this.chainblock.getByTransactionStatusAndMaximumAmount (status,amount);
+        }
+
+        public Iterable<Transaction> getBySenderAndMinimumAmountDescending (String sender,double amount) {
+            return this.chainblock.getBySenderAndMinimumAmountDescending (sender,amount);
+        }
+
+        public Iterable<Transaction> getByReceiverAndAmountRange (String receiver,double lo,double hi) {
+            return this.chainblock.getByReceiverAndAmountRange (receiver,lo,hi);
+        }
+
+        public Iterable<Transaction> getAllInAmountRange (double lo,double hi) {
+            return this.chainblock.getAllInAmountRange (lo,hi);
+        }
+
+        public Iterator<Transaction> iterator () {
+            Iterator<Transaction> iterator = this.chainblock.iterator ();
+            return new Iterator<> () {
+                public boolean hasNext () {
+                    return iterator.hasNext ();
+                }
+
+                public Transaction next () {
+                    return iterator.next ();
+                }
+            };
+        }
+    }
+}
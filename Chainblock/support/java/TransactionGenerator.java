@@ -0,0 +1,142 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Seeded source of synthetic transactions for benchmarks and load tests. Senders and
+// receivers are drawn from a Zipf distribution over the parties (rank 1 is the busiest),
+// amounts are log-normal around a median and statuses follow fixed weights. The same seed
+// and settings always produce the same sequence.
+public class TransactionGenerator {
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values ();
+
+    private final Random random;
+    private int parties;
+    private double partySkew;
+    private double amountMedian;
+    private double amountSigma;
+    private double[] statusWeights;
+    private double[] partyCdf;
+    private double[] statusCdf;
+    private int nextId;
+
+    public TransactionGenerator (long seed) {
+        this.random = new Random (seed);
+        this.parties = 1000;
+        this.partySkew = 1.0;
+        this.amountMedian = 100;
+        this.amountSigma = 1.5;
+        // indexed by TransactionStatus ordinal: FAILED, SUCCESSFUL, ABORTED, UNAUTHORIZED
+        this.statusWeights = new double[]{0.05,0.85,0.07,0.03};
+    }
+
+    public TransactionGenerator withParties (int parties) {
+        if (parties < 1) {
+            throw new IllegalArgumentException ();
+        }
+        this.parties = parties;
+        this.partyCdf = null;
+        return this;
+    }
+
+    // 0 spreads traffic evenly; around 1 a few parties carry most of it.
+    public TransactionGenerator withPartySkew (double partySkew) {
+        if (partySkew < 0) {
+            throw new IllegalArgumentException ();
+        }
+        this.partySkew = partySkew;
+        this.partyCdf = null;
+        return this;
+    }
+
+    public TransactionGenerator withAmounts (double median,double sigma) {
+        if (!(median > 0) || sigma < 0) {
+            throw new IllegalArgumentException ();
+        }
+        this.amountMedian = median;
+        this.amountSigma = sigma;
+        return this;
+    }
+
+    // One weight per TransactionStatus, in declaration order.
+    public TransactionGenerator withStatusWeights (double... weights) {
+        if (weights.length != STATUSES.length) {
+            throw new IllegalArgumentException ();
+        }
+        this.statusWeights = weights.clone ();
+        this.statusCdf = null;
+        return this;
+    }
+
+    public TransactionGenerator withFirstId (int firstId) {
+        this.nextId = firstId;
+        return this;
+    }
+
+    public int getParties () {
+        return this.parties;
+    }
+
+    // Ranks start at 1.
+    public String sender (int rank) {
+        return "Sender_" + rank;
+    }
+
+    public String receiver (int rank) {
+        return "Receiver_" + rank;
+    }
+
+    public Transaction next () {
+        if (this.partyCdf == null) {
+            this.partyCdf = zipfCdf (this.parties,this.partySkew);
+        }
+        if (this.statusCdf == null) {
+            this.statusCdf = cdf (this.statusWeights);
+        }
+        String            sender   = sender (sample (this.partyCdf) + 1);
+        String            receiver = receiver (sample (this.partyCdf) + 1);
+        TransactionStatus status   = STATUSES[sample (this.statusCdf)];
+        double            amount   = Math.round (this.amountMedian * Math.exp (this.amountSigma * this.random.nextGaussian ()) * 100) / 100.0;
+        return new TransactionImpl (this.nextId++,status,sender,receiver,amount);
+    }
+
+    public List<Transaction> generate (int count) {
+        List<Transaction> transactions = new ArrayList<> (count);
+        for (int i = 0; i < count; i++) {
+            transactions.add (next ());
+        }
+        return transactions;
+    }
+
+    private int sample (double[] cdf) {
+        int index = Arrays.binarySearch (cdf,this.random.nextDouble ());
+        return Math.min (index < 0 ? -index - 1 : index + 1,cdf.length - 1);
+    }
+
+    private static double[] zipfCdf (int parties,double skew) {
+        double[] weights = new double[parties];
+        for (int rank = 1; rank <= parties; rank++) {
+            weights[rank - 1] = 1 / Math.pow (rank,skew);
+        }
+        return cdf (weights);
+    }
+
+    private static double[] cdf (double[] weights) {
+        double[] cdf   = new double[weights.length];
+        double   total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] < 0) {
+                throw new IllegalArgumentException ();
+            }
+            total += weights[i];
+            cdf[i] = total;
+        }
+        if (!(total > 0)) {
+            throw new IllegalArgumentException ();
+        }
+        for (int i = 0; i < cdf.length; i++) {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+}
@@ -0,0 +1,43 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AmountScannerTest {
+
+    @Test
+    public void testBestScannerMatchesScalarScanner () {
+        Random   random   = new Random (5);
+        double[] amounts  = new double[1000];
+        byte[]   statuses = new byte[1000];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = random.nextInt (20) == 0 ? Double.NaN : random.nextInt (100);
+            statuses[i] = (byte) random.nextInt (TransactionStatus.values ().length + 1);
+        }
+        ScalarAmountScanner scalar = new ScalarAmountScanner ();
+        int[]               masks  = {AmountScanner.ANY_STATUS,AmountScanner.statusMask (TransactionStatus.FAILED),
+                AmountScanner.statusMask (null) | AmountScanner.statusMask (TransactionStatus.ABORTED),0};
+        for (int mask : masks) {
+            for (int from : new int[]{0,3,64,999}) {
+                int[] expected = new int[amounts.length];
+                int[] actual   = new int[amounts.length];
+                int   count    = scalar.scan (amounts,statuses,from,amounts.length,20,60,mask,expected);
+                assertEquals (count,AmountScanner.BEST.scan (amounts,statuses,from,amounts.length,20,60,mask,actual));
+                for (int i = 0; i < count; i++) {
+                    assertEquals (expected[i],actual[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testScanIsInclusiveAndSkipsNaN () {
+        double[] amounts  = {10,20,Double.NaN,30,31};
+        byte[]   statuses = new byte[amounts.length];
+        int[]    rows     = new int[amounts.length];
+        assertEquals (2,AmountScanner.BEST.scan (amounts,statuses,0,amounts.length,20,30,AmountScanner.ANY_STATUS,rows));
+        assertEquals (1,rows[0]);
+        assertEquals (3,rows[1]);
+    }
+}
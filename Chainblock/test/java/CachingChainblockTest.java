@@ -0,0 +1,170 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class CachingChainblockTest {
+    private CachingChainblock chainblock;
+
+    @Before
+    public void setUp () {
+        chainblock = new CachingChainblock (new ChainblockImpl ());
+        chainblock.add (new TransactionImpl (1,TransactionStatus.FAILED,"Sender_1","Receiver_1",10));
+        chainblock.add (new TransactionImpl (2,TransactionStatus.FAILED,"Sender_2","Receiver_2",20));
+        chainblock.add (new TransactionImpl (3,TransactionStatus.SUCCESSFUL,"Sender_1","Receiver_2",30));
+    }
+
+    @Test
+    public void testRepeatedQueryIsServedFromCache () {
+        Iterable<Transaction> first = chainblock.getBySenderOrderedByAmountDescending ("Sender_1");
+        assertSame (first,chainblock.getBySenderOrderedByAmountDescending ("Sender_1"));
+        assertEquals (1,chainblock.getHitCount ());
+        assertEquals (1,chainblock.getMissCount ());
+        assertEquals (0.5,chainblock.getHitRatio (),0);
+    }
+
+    @Test
+    public void testUnrelatedWriteKeepsEntries () {
+        chainblock.getBySenderOrderedByAmountDescending ("Sender_1");
+        chainblock.getByTransactionStatus (TransactionStatus.FAILED);
+        chainblock.add (new TransactionImpl (4,TransactionStatus.ABORTED,"Sender_3","Receiver_3",40));
+        chainblock.getBySenderOrderedByAmountDescending ("Sender_1");
+        chainblock.getByTransactionStatus (TransactionStatus.FAILED);
+        assertEquals (2,chainblock.getHitCount ());
+        assertEquals (0,chainblock.getInvalidationCount ());
+    }
+
+    @Test
+    public void testWritesInvalidateAffectedEntries () {
+        chainblock.getBySenderOrderedByAmountDescending ("Sender_1");
+        chainblock.getByTransactionStatus (TransactionStatus.SUCCESSFUL);
+        chainblock.changeTransactionStatus (2,TransactionStatus.SUCCESSFUL);
+        assertEquals (List.of (3,2),ids (chainblock.getByTransactionStatus (TransactionStatus.SUCCESSFUL)));
+        chainblock.removeTransactionById (1);
+        assertEquals (List.of (3),ids (chainblock.getBySenderOrderedByAmountDescending ("Sender_1")));
+        assertEquals (2,chainblock.getInvalidationCount ());
+        assertEquals (0,chainblock.getHitCount ());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted () {
+        chainblock = new CachingChainblock (new ChainblockImpl (),2);
+        chainblock.add (new TransactionImpl (1,TransactionStatus.FAILED,"Sender_1","Receiver_1",10));
+        chainblock.getAllInAmountRange (0,5);
+        chainblock.getAllInAmountRange (0,10);
+        chainblock.getAllInAmountRange (0,5);
+        chainblock.getAllInAmountRange (0,15);
+        assertEquals (1,chainblock.getEvictionCount ());
+        assertEquals (2,chainblock.getSize ());
+        chainblock.getAllInAmountRange (0,5);
+        assertEquals (2,chainblock.getHitCount ());
+    }
+
+    @Test
+    public void testFailedQueriesAreNotCached () {
+        for (int i = 0; i < 2; i++) {
+            try {
+                chainblock.getBySenderOrderedByAmountDescending ("Nobody");
+                fail ();
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+        assertEquals (2,chainblock.getMissCount ());
+        assertEquals (0,chainblock.getSize ());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptySenderResultIsInvalidatedByOtherSenders () {
+        assertFalse (chainblock.getBySenderAndMinimumAmountDescending ("Sender_2",25).iterator ().hasNext ());
+        chainblock.removeTransactionById (3);
+        chainblock.getBySenderAndMinimumAmountDescending ("Sender_2",25);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCachedResultsCannotBeModified () {
+        ((List<?>) chainblock.getByTransactionStatus (TransactionStatus.FAILED)).clear ();
+    }
+
+    @Test
+    public void testQueriesForUnknownPartiesDoNotCreateCounters () {
+        assertEquals (4,chainblock.getPartyCount ());
+        for (int i = 0; i < 100; i++) {
+            String party = "_" + (i + 10);
+            assertNull (outcome (() -> chainblock.getByReceiverAndAmountRange ("Receiver" + party,0,100)));
+            assertNull (outcome (() -> chainblock.getBySenderOrderedByAmountDescending ("Sender" + party)));
+        }
+        assertEquals (4,chainblock.getPartyCount ());
+        chainblock.add (new TransactionImpl (4,TransactionStatus.FAILED,"Sender_1","Receiver_10",40));
+        assertEquals (List.of (4),ids (chainblock.getByReceiverAndAmountRange ("Receiver_10",0,100)));
+    }
+
+    @Test
+    public void testCountersAreDroppedWithTheLastTransactionOfAParty () {
+        assertEquals (List.of (2),ids (chainblock.getBySenderOrderedByAmountDescending ("Sender_2")));
+        chainblock.removeTransactionById (2);
+        assertEquals (3,chainblock.getPartyCount ());
+        for (int i = 0; i < 100; i++) {
+            chainblock.add (new TransactionImpl (i + 10,TransactionStatus.FAILED,"Sender_" + (i + 10),"Receiver_1",1));
+            chainblock.removeTransactionById (i + 10);
+        }
+        assertEquals (3,chainblock.getPartyCount ());
+        assertNull (outcome (() -> chainblock.getBySenderOrderedByAmountDescending ("Sender_2")));
+        chainblock.add (new TransactionImpl (2,TransactionStatus.FAILED,"Sender_2","Receiver_2",25));
+        assertEquals (List.of (2),ids (chainblock.getBySenderOrderedByAmountDescending ("Sender_2")));
+        assertEquals (25,chainblock.getBySenderOrderedByAmountDescending ("Sender_2").iterator ().next ().getAmount (),0);
+    }
+
+    @Test
+    public void testCachedResultsMatchUncachedChainblock () {
+        ChainblockImpl expected = new ChainblockImpl ();
+        chainblock = new CachingChainblock (new ChainblockImpl (),16);
+        Random random = new Random (9);
+        for (int i = 0; i < 3000; i++) {
+            int id = random.nextInt (200);
+            if (!expected.contains (id)) {
+                TransactionStatus status   = TransactionStatus.values ()[random.nextInt (4)];
+                String            sender   = "Sender_" + random.nextInt (5);
+                String            receiver = "Receiver_" + random.nextInt (5);
+                expected.add (new TransactionImpl (id,status,sender,receiver,random.nextInt (100)));
+                chainblock.add (new TransactionImpl (id,status,sender,receiver,expected.getById (id).getAmount ()));
+            } else if (random.nextInt (3) == 0) {
+                expected.removeTransactionById (id);
+                chainblock.removeTransactionById (id);
+            } else if (random.nextInt (3) == 0) {
+                TransactionStatus status = TransactionStatus.values ()[random.nextInt (4)];
+                expected.changeTransactionStatus (id,status);
+                chainblock.changeTransactionStatus (id,status);
+            }
+            TransactionStatus status = TransactionStatus.values ()[random.nextInt (4)];
+            String            sender = "Sender_" + random.nextInt (5);
+            assertEquals (outcome (() -> expected.getByTransactionStatusAndMaximumAmount (status,50)),
+                    outcome (() -> chainblock.getByTransactionStatusAndMaximumAmount (status,50)));
+            assertEquals (outcome (() -> expected.getAllInAmountRange (20,60)),outcome (() -> chainblock.getAllInAmountRange (20,60)));
+            assertEquals (outcome (() -> expected.getBySenderOrderedByAmountDescending (sender)),
+                    outcome (() -> chainblock.getBySenderOrderedByAmountDescending (sender)));
+        }
+        assertTrue (chainblock.getHitCount () > 0);
+    }
+
+    // Helper Methods //
+
+    // The ids returned, or null when the query throws IllegalArgumentException.
+    private static List<Integer> outcome (Supplier<Iterable<Transaction>> query) {
+        try {
+            return ids (query.get ());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static List<Integer> ids (Iterable<Transaction> transactions) {
+        List<Integer> ids = new ArrayList<> ();
+        transactions.forEach (t -> ids.add (t.getId ()));
+        return ids;
+    }
+}
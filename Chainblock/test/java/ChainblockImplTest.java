@@ -4,6 +4,8 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.*;
 
@@ -208,6 +210,24 @@ public class ChainblockImplTest {
         assertNotNull (transactionList);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetBySenderOrderedByAmountDescendingThrowsExceptionWhenAllSenderTransactionsRemoved () {
+        fillChainBlock ();
+        chainblock.removeTransactionById (1);
+        chainblock.getBySenderOrderedByAmountDescending ("Sender_1");
+    }
+
+    @Test
+    public void testSenderAndReceiverQueriesMatchByNameNotByIdentity () {
+        fillChainBlock ();
+        String            sender          = new String ("Sender_2".toCharArray ());
+        List<Transaction> transactionList = getTransactionsWithSpecifiedProperties (chainblock.getBySenderOrderedByAmountDescending (sender));
+        assertEquals (4,transactionList.size ());
+        transactionList = getTransactionsWithSpecifiedProperties (chainblock.getByReceiverAndAmountRange (new String ("Receiver_3".toCharArray ()),0,100));
+        assertEquals (1,transactionList.size ());
+        assertEquals (chainblock.getById (3),transactionList.get (0));
+    }
+
     @Test
     public void testGetByReceiverOrderedByAmountThenById () {
         fillChainBlock ();
@@ -293,6 +313,31 @@ public class ChainblockImplTest {
         chainblock.getByReceiverAndAmountRange ("Receiver_2",57,Double.MAX_VALUE);
     }
 
+    @Test
+    public void testGetByReceiverAndAmountRangeIsOrderedByAmountDescendingThenById () {
+        fillChainBlock ();
+        chainblock.add (new TransactionImpl (22,TransactionStatus.FAILED,"Sender_1","Receiver_2",52));
+        Iterable<Transaction> tByReceiverAndAmountRange = chainblock.getByReceiverAndAmountRange ("Receiver_2",22,55);
+        List<Transaction>     transactions              = getTransactionsWithSpecifiedProperties (tByReceiverAndAmountRange);
+        assertEquals (3,transactions.size ());
+        assertEquals (chainblock.getById (22),transactions.get (0));
+        assertEquals (chainblock.getById (24),transactions.get (1));
+        assertEquals (chainblock.getById (2),transactions.get (2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetByReceiverAndAmountRangeThrowsExceptionForPartyThatOnlySent () {
+        fillChainBlock ();
+        chainblock.getByReceiverAndAmountRange ("Sender_1",0,100);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetByReceiverAndAmountRangeThrowsExceptionAfterTransactionsRemoved () {
+        fillChainBlock ();
+        chainblock.removeTransactionById (3);
+        chainblock.getByReceiverAndAmountRange ("Receiver_3",0,100);
+    }
+
     @Test
     public void testGetAllInAmountRangeReturnsCorrectTransactionsInCorrectOrder () {
         fillChainBlock ();
@@ -312,6 +357,463 @@ public class ChainblockImplTest {
         assertTrue (empty.isEmpty ());
     }
 
+    @Test
+    public void testGetAllOrderedByAmountDescendingPagesThroughEveryTransactionOnce () {
+        fillChainBlock ();
+        ChainblockImpl    chainblockImpl = (ChainblockImpl) chainblock;
+        List<Transaction> transactions   = new ArrayList<> ();
+        String            token          = null;
+        int               pages          = 0;
+        do {
+            Page<Transaction> page = chainblockImpl.getAllOrderedByAmountDescending (3,token);
+            assertTrue (page.getItems ().size () <= 3);
+            transactions.addAll (page.getItems ());
+            token = page.getNextToken ();
+            pages++;
+        } while (token != null);
+        assertEquals (3,pages);
+        assertEquals (chainblock.getCount (),transactions.size ());
+        assertEquals (chainblock.getById (5),transactions.get (0));
+        assertEquals (chainblock.getById (21),transactions.get (1));
+        assertEquals (chainblock.getById (23),transactions.get (2));
+        assertEquals (chainblock.getById (24),transactions.get (3));
+        assertEquals (chainblock.getById (1),transactions.get (7));
+    }
+
+    @Test
+    public void testGetByTransactionStatusPageResumesAfterRemovalOfLastSeenTransaction () {
+        fillChainBlock ();
+        ChainblockImpl    chainblockImpl = (ChainblockImpl) chainblock;
+        Page<Transaction> first          = chainblockImpl.getByTransactionStatus (TransactionStatus.ABORTED,1,null);
+        assertEquals (chainblock.getById (23),first.getItems ().get (0));
+        chainblock.removeTransactionById (23);
+        Page<Transaction> second = chainblockImpl.getByTransactionStatus (TransactionStatus.ABORTED,5,first.getNextToken ());
+        assertEquals (2,second.getItems ().size ());
+        assertEquals (chainblock.getById (24),second.getItems ().get (0));
+        assertEquals (chainblock.getById (1),second.getItems ().get (1));
+        assertFalse (second.hasNext ());
+    }
+
+    @Test
+    public void testGetByTransactionStatusPageFollowsStatusChanges () {
+        fillChainBlock ();
+        ChainblockImpl chainblockImpl = (ChainblockImpl) chainblock;
+        chainblock.changeTransactionStatus (4,TransactionStatus.UNAUTHORIZED);
+        Page<Transaction> page = chainblockImpl.getByTransactionStatus (TransactionStatus.UNAUTHORIZED,10,null);
+        assertEquals (1,page.getItems ().size ());
+        assertEquals (chainblock.getById (4),page.getItems ().get (0));
+        assertEquals (1,chainblockImpl.getByTransactionStatus (TransactionStatus.FAILED,10,null).getItems ().size ());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPageThrowsExceptionForInvalidToken () {
+        fillChainBlock ();
+        ((ChainblockImpl) chainblock).getAllOrderedByAmountDescending (3,"not a token");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPageThrowsExceptionForNonPositivePageSize () {
+        ((ChainblockImpl) chainblock).getAllOrderedByAmountDescending (0,null);
+    }
+
+    @Test
+    public void testFilterIntersectsPredicatesAndUnionsAlternatives () {
+        fillChainBlock ();
+        ChainblockImpl    chainblockImpl = (ChainblockImpl) chainblock;
+        List<Transaction> transactions   = getTransactionsWithSpecifiedProperties (chainblockImpl.filter (new TransactionFilter ()
+                .withStatus (TransactionStatus.ABORTED,TransactionStatus.FAILED)
+                .withSender ("Sender_2","Sender_4")
+                .withAmountBetween (44,50)));
+        assertEquals (2,transactions.size ());
+        assertEquals (chainblock.getById (24),transactions.get (0));
+        assertEquals (chainblock.getById (4),transactions.get (1));
+    }
+
+    @Test
+    public void testFilterFollowsStatusChangesAndRemovals () {
+        fillChainBlock ();
+        ChainblockImpl chainblockImpl = (ChainblockImpl) chainblock;
+        chainblock.changeTransactionStatus (2,TransactionStatus.UNAUTHORIZED);
+        chainblock.removeTransactionById (21);
+        List<Transaction> transactions = getTransactionsWithSpecifiedProperties (chainblockImpl.filter (new TransactionFilter ()
+                .withReceiver ("Receiver_2")
+                .withStatus (TransactionStatus.UNAUTHORIZED,TransactionStatus.SUCCESSFUL)));
+        assertEquals (1,transactions.size ());
+        assertEquals (chainblock.getById (2),transactions.get (0));
+    }
+
+    @Test
+    public void testFilterWithUnknownPartyOrEmptyRangeMatchesNothing () {
+        fillChainBlock ();
+        ChainblockImpl chainblockImpl = (ChainblockImpl) chainblock;
+        assertTrue (getTransactionsWithSpecifiedProperties (chainblockImpl.filter (new TransactionFilter ().withSender ("Nobody"))).isEmpty ());
+        assertTrue (getTransactionsWithSpecifiedProperties (chainblockImpl.filter (new TransactionFilter ().withAmountBetween (60,50))).isEmpty ());
+        assertEquals (8,getTransactionsWithSpecifiedProperties (chainblockImpl.filter (new TransactionFilter ())).size ());
+    }
+
+    @Test
+    public void testFilterStaysCorrectAfterManyRemovals () {
+        ChainblockImpl chainblockImpl = (ChainblockImpl) chainblock;
+        for (int i = 0; i < 5000; i++) {
+            chainblock.add (new TransactionImpl (i,TransactionStatus.values ()[i % 4],"Sender_" + i % 10,"Receiver",i));
+        }
+        for (int i = 0; i < 4900; i++) {
+            chainblock.removeTransactionById (i);
+        }
+        List<Transaction> transactions = getTransactionsWithSpecifiedProperties (chainblockImpl.filter (new TransactionFilter ()
+                .withSender ("Sender_3")
+                .withStatus (TransactionStatus.UNAUTHORIZED)));
+        assertEquals (5,transactions.size ());
+        for (Transaction t : transactions) {
+            assertEquals (3,t.getId () % 10);
+            assertTrue (t.getId () >= 4900);
+        }
+    }
+
+    @Test
+    public void testQueryUsesReceiverIndexForReceiverAndAmountRange () {
+        fillChainBlock ();
+        QueryResult result = ((ChainblockImpl) chainblock).query ()
+                .withReceiver ("Receiver_2")
+                .withAmountBetween (50,55)
+                .orderBy (TransactionQuery.Order.AMOUNT_DESCENDING)
+                .execute ();
+        assertEquals (QueryPlan.Strategy.RECEIVER_INDEX,result.getPlan ().getStrategy ());
+        assertEquals (3,result.getPlan ().getExaminedRows ());
+        List<Transaction> transactions = result.getTransactions ();
+        assertEquals (3,transactions.size ());
+        assertEquals (chainblock.getById (21),transactions.get (0));
+        assertEquals (chainblock.getById (23),transactions.get (1));
+        assertEquals (chainblock.getById (24),transactions.get (2));
+    }
+
+    @Test
+    public void testQueryStopsOrderedIndexWalkAtLimit () {
+        fillChainBlock ();
+        QueryResult result = ((ChainblockImpl) chainblock).query ()
+                .withStatus (TransactionStatus.FAILED)
+                .orderBy (TransactionQuery.Order.AMOUNT_DESCENDING)
+                .limit (1)
+                .execute ();
+        assertEquals (QueryPlan.Strategy.STATUS_INDEX,result.getPlan ().getStrategy ());
+        assertEquals (1,result.getPlan ().getExaminedRows ());
+        assertEquals (chainblock.getById (5),result.getTransactions ().get (0));
+    }
+
+    @Test
+    public void testQueryUsesAmountIndexForNarrowAmountRange () {
+        fillChainBlock ();
+        QueryResult result = ((ChainblockImpl) chainblock).query ()
+                .withAmountBetween (11,22)
+                .orderBy (TransactionQuery.Order.AMOUNT_DESCENDING)
+                .execute ();
+        assertEquals (QueryPlan.Strategy.AMOUNT_INDEX,result.getPlan ().getStrategy ());
+        List<Transaction> transactions = result.getTransactions ();
+        assertEquals (2,transactions.size ());
+        assertEquals (chainblock.getById (2),transactions.get (0));
+        assertEquals (chainblock.getById (1),transactions.get (1));
+    }
+
+    @Test
+    public void testQueryUsesBitmapIndexForMultiValuePredicates () {
+        fillChainBlock ();
+        long scannedBefore = ((ChainblockImpl) chainblock).getScannedRows ();
+        QueryResult result = ((ChainblockImpl) chainblock).query ()
+                .withSender ("Sender_2","Sender_4")
+                .withStatus (TransactionStatus.ABORTED,TransactionStatus.FAILED)
+                .execute ();
+        assertEquals (QueryPlan.Strategy.BITMAP_INDEX,result.getPlan ().getStrategy ());
+        List<Transaction> transactions = result.getTransactions ();
+        assertEquals (3,transactions.size ());
+        assertEquals (3,((ChainblockImpl) chainblock).getScannedRows () - scannedBefore);
+        assertEquals (chainblock.getById (23),transactions.get (0));
+        assertEquals (chainblock.getById (24),transactions.get (1));
+        assertEquals (chainblock.getById (4),transactions.get (2));
+    }
+
+    @Test
+    public void testQueryWithoutPredicatesScansAndSorts () {
+        fillChainBlock ();
+        TransactionQuery query = ((ChainblockImpl) chainblock).query ()
+                .orderBy (TransactionQuery.Order.ID_ASCENDING)
+                .limit (3);
+        QueryPlan plan = query.explain ();
+        assertEquals (QueryPlan.Strategy.SCAN,plan.getStrategy ());
+        assertEquals (8,plan.getEstimatedRows ());
+        assertEquals (-1,plan.getExaminedRows ());
+        QueryResult result = query.execute ();
+        assertEquals (8,result.getPlan ().getExaminedRows ());
+        assertEquals (3,result.getPlan ().getReturnedRows ());
+        assertEquals (chainblock.getById (1),result.getTransactions ().get (0));
+        assertEquals (chainblock.getById (2),result.getTransactions ().get (1));
+        assertEquals (chainblock.getById (3),result.getTransactions ().get (2));
+    }
+
+    @Test
+    public void testQueryFromAmountOrderedIndexIsSortedById () {
+        for (int i = 0; i < 100; i++) {
+            chainblock.add (new TransactionImpl (i,TransactionStatus.values ()[i % 4],"Sender_" + i % 10,"Receiver_" + i % 2,i % 7));
+        }
+        QueryResult result = ((ChainblockImpl) chainblock).query ()
+                .withStatus (TransactionStatus.FAILED)
+                .withAmountBetween (0,0)
+                .orderBy (TransactionQuery.Order.ID_ASCENDING)
+                .execute ();
+        List<Transaction> transactions = result.getTransactions ();
+        assertEquals (QueryPlan.Strategy.AMOUNT_INDEX,result.getPlan ().getStrategy ());
+        assertEquals (15,result.getPlan ().getExaminedRows ());
+        assertEquals (4,transactions.size ());
+        for (int i = 1; i < transactions.size (); i++) {
+            assertTrue (transactions.get (i - 1).getId () < transactions.get (i).getId ());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testQueryThrowsExceptionForNonPositiveLimit () {
+        ((ChainblockImpl) chainblock).query ().limit (0);
+    }
+
+    @Test
+    public void testLimitedQueriesReturnPrefixOfUnlimitedQueries () {
+        Random random = new Random (7);
+        for (int i = 0; i < 2000; i++) {
+            chainblock.add (new TransactionImpl (random.nextInt (1_000_000),TransactionStatus.values ()[random.nextInt (4)],
+                    "Sender_" + random.nextInt (20),"Receiver_" + random.nextInt (5),random.nextInt (50)));
+        }
+        ChainblockImpl chainblockImpl = (ChainblockImpl) chainblock;
+        for (int limit : new int[]{1,7,20,5000}) {
+            assertEquals (prefix (chainblock.getByTransactionStatus (TransactionStatus.FAILED),limit),
+                    getTransactionsWithSpecifiedProperties (chainblockImpl.getByTransactionStatus (TransactionStatus.FAILED,limit)));
+            assertEquals (prefix (chainblock.getByTransactionStatusAndMaximumAmount (TransactionStatus.ABORTED,25),limit),
+                    getTransactionsWithSpecifiedProperties (chainblockImpl.getByTransactionStatusAndMaximumAmount (TransactionStatus.ABORTED,25,limit)));
+            assertEquals (prefix (chainblock.getBySenderOrderedByAmountDescending ("Sender_3"),limit),
+                    getTransactionsWithSpecifiedProperties (chainblockImpl.getBySenderOrderedByAmountDescending ("Sender_3",limit)));
+            assertEquals (prefix (chainblock.getBySenderAndMinimumAmountDescending ("Sender_3",30),limit),
+                    getTransactionsWithSpecifiedProperties (chainblockImpl.getBySenderAndMinimumAmountDescending ("Sender_3",30,limit)));
+            assertEquals (prefix (chainblock.getByReceiverOrderedByAmountThenById ("Receiver_1"),limit),
+                    getTransactionsWithSpecifiedProperties (chainblockImpl.getByReceiverOrderedByAmountThenById ("Receiver_1",limit)));
+        }
+    }
+
+    @Test
+    public void testLimitedStatusQueryKeepsInsertionOrderWithinTieAtCut () {
+        for (int i = 0; i < 100; i++) {
+            chainblock.add (new TransactionImpl (1000 - i * 7,TransactionStatus.FAILED,"Sender_1","Receiver_1",i == 0 ? 20 : 10));
+        }
+        List<Transaction> limited = getTransactionsWithSpecifiedProperties (((ChainblockImpl) chainblock)
+                .getByTransactionStatus (TransactionStatus.FAILED,3));
+        assertEquals (prefix (chainblock.getByTransactionStatus (TransactionStatus.FAILED),3),limited);
+        assertEquals (List.of (1000,993,986),ids (limited));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLimitedSenderQueryThrowsExceptionForUnknownSender () {
+        fillChainBlock ();
+        ((ChainblockImpl) chainblock).getBySenderOrderedByAmountDescending ("Nobody",5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLimitedSenderAndMinimumAmountThrowsExceptionWhenNothingIsAbove () {
+        fillChainBlock ();
+        ((ChainblockImpl) chainblock).getBySenderAndMinimumAmountDescending ("Sender_2",55,5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLimitedStatusQueryThrowsExceptionForNonPositiveLimit () {
+        fillChainBlock ();
+        ((ChainblockImpl) chainblock).getByTransactionStatus (TransactionStatus.FAILED,0);
+    }
+
+    @Test
+    public void testBulkStatusChangeReportsMissingAndUnchangedIds () {
+        fillChainBlock ();
+        StatusChangeResult result = ((ChainblockImpl) chainblock)
+                .changeTransactionStatus (new int[]{1,99,4,2,5,98},TransactionStatus.FAILED);
+        assertEquals (2,result.getChangedCount ());
+        assertEquals (2,result.getUnchangedCount ());
+        assertArrayEquals (new int[]{99,98},result.getMissingIds ());
+        assertFalse (result.isComplete ());
+        assertEquals (TransactionStatus.FAILED,chainblock.getById (1).getStatus ());
+        assertEquals (TransactionStatus.FAILED,chainblock.getById (2).getStatus ());
+    }
+
+    @Test
+    public void testBulkStatusChangeKeepsStatusIndexesConsistent () {
+        fillChainBlock ();
+        ChainblockImpl chainblockImpl = (ChainblockImpl) chainblock;
+        chainblockImpl.changeTransactionStatus (new int[]{2,21,3},TransactionStatus.UNAUTHORIZED);
+        assertEquals (3,getTransactionsWithSpecifiedProperties (chainblock.getByTransactionStatus (TransactionStatus.UNAUTHORIZED)).size ());
+        assertEquals (3,chainblockImpl.getByTransactionStatus (TransactionStatus.UNAUTHORIZED,10,null).getItems ().size ());
+        assertEquals (3,getTransactionsWithSpecifiedProperties (chainblockImpl.filter (new TransactionFilter ()
+                .withStatus (TransactionStatus.UNAUTHORIZED))).size ());
+        assertFalse (chainblockImpl.filter (new TransactionFilter ().withStatus (TransactionStatus.SUCCESSFUL)).iterator ().hasNext ());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBulkStatusChangeThrowsExceptionForNullStatus () {
+        fillChainBlock ();
+        ((ChainblockImpl) chainblock).changeTransactionStatus (new int[]{1},null);
+    }
+
+    @Test
+    public void testPartyAggregatesFollowAddStatusChangeAndRemove () {
+        fillChainBlock ();
+        ChainblockImpl chainblockImpl = (ChainblockImpl) chainblock;
+        chainblock.changeTransactionStatus (23,TransactionStatus.SUCCESSFUL);
+        chainblock.removeTransactionById (2);
+        PartyAggregate sender = chainblockImpl.getSenderAggregate ("Sender_2");
+        assertEquals (3,sender.getCount ());
+        assertEquals (160,sender.getTotalAmount (),0.0);
+        assertEquals (2,sender.getCount (TransactionStatus.SUCCESSFUL));
+        assertEquals (110,sender.getTotalAmount (TransactionStatus.SUCCESSFUL),0.0);
+        assertEquals (1,sender.getCount (TransactionStatus.ABORTED));
+        assertEquals (0,sender.getCount (TransactionStatus.FAILED));
+        PartyAggregate receiver = chainblockImpl.getReceiverAggregate ("Receiver_2");
+        assertEquals (3,receiver.getCount ());
+        assertEquals (160,receiver.getTotalAmount (),0.0);
+    }
+
+    @Test
+    public void testTopSendersByVolumeFollowRemovals () {
+        fillChainBlock ();
+        ChainblockImpl       chainblockImpl = (ChainblockImpl) chainblock;
+        List<PartyAggregate> top            = chainblockImpl.getTopSendersByVolume (3);
+        assertEquals (3,top.size ());
+        assertEquals ("Sender_2",top.get (0).getParty ());
+        assertEquals ("Sender_5",top.get (1).getParty ());
+        assertEquals ("Sender_4",top.get (2).getParty ());
+        for (int id : new int[]{2,21,23,24}) {
+            chainblock.removeTransactionById (id);
+        }
+        top = chainblockImpl.getTopSendersByVolume (10);
+        assertEquals (4,top.size ());
+        assertEquals ("Sender_5",top.get (0).getParty ());
+        assertEquals ("Sender_1",top.get (3).getParty ());
+    }
+
+    @Test
+    public void testAddAllRanksSendersLikeRepeatedAdd () {
+        List<Transaction> transactions = new TransactionGenerator (13).withParties (20).generate (2000);
+        ChainblockImpl    batched      = new ChainblockImpl ();
+        ChainblockImpl    single       = new ChainblockImpl ();
+        batched.addAll (transactions.subList (0,1000));
+        batched.addAll (transactions);
+        for (Transaction transaction : transactions) {
+            single.add (transaction);
+        }
+        assertEquals (single.getCount (),batched.getCount ());
+        List<String> expected = new ArrayList<> ();
+        List<String> actual   = new ArrayList<> ();
+        single.getTopSendersByVolume (20).forEach (a -> expected.add (a.getParty () + "=" + a.getTotalAmount ()));
+        batched.getTopSendersByVolume (20).forEach (a -> actual.add (a.getParty () + "=" + a.getTotalAmount ()));
+        assertEquals (expected,actual);
+    }
+
+    @Test
+    public void testAddAllIndexesLikeRepeatedAdd () {
+        List<Transaction> transactions = new TransactionGenerator (17).withParties (20).generate (2000);
+        ChainblockImpl    batched      = new ChainblockImpl ();
+        ChainblockImpl    single       = new ChainblockImpl ();
+        batched.addAll (transactions.subList (0,1000));
+        batched.addAll (transactions);
+        for (Transaction transaction : transactions) {
+            single.add (transaction);
+        }
+        assertEquals (ids (single.getAllOrderedByAmountDescendingThenById ()),ids (batched.getAllOrderedByAmountDescendingThenById ()));
+        for (TransactionStatus status : TransactionStatus.values ()) {
+            assertEquals (ids (single.getByTransactionStatus (status)),ids (batched.getByTransactionStatus (status)));
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals (ids (single.getByReceiverOrderedByAmountThenById ("Receiver_" + (i + 1))),
+                    ids (batched.getByReceiverOrderedByAmountThenById ("Receiver_" + (i + 1))));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSenderAggregateThrowsExceptionOnceSenderHasNoTransactions () {
+        fillChainBlock ();
+        chainblock.removeTransactionById (1);
+        ((ChainblockImpl) chainblock).getSenderAggregate ("Sender_1");
+    }
+
+    @Test
+    public void testParallelScansMatchSequentialScans () {
+        ForkJoinPool   pool     = new ForkJoinPool (4);
+        ChainblockImpl parallel = new ChainblockImpl (pool,1);
+        Random         random   = new Random (11);
+        for (int i = 0; i < 30_000; i++) {
+            Transaction transaction = new TransactionImpl (i,TransactionStatus.values ()[random.nextInt (4)],
+                    "Sender_" + random.nextInt (50),"Receiver_" + random.nextInt (50),random.nextInt (100));
+            chainblock.add (transaction);
+            parallel.add (new TransactionImpl (i,transaction.getStatus (),transaction.getSender (),transaction.getReceiver (),transaction.getAmount ()));
+        }
+        for (int i = 0; i < 30_000; i += 7) {
+            chainblock.removeTransactionById (i);
+            parallel.removeTransactionById (i);
+        }
+        assertEquals (ids (chainblock.getByTransactionStatus (TransactionStatus.ABORTED)),ids (parallel.getByTransactionStatus (TransactionStatus.ABORTED)));
+        assertEquals (ids (chainblock.getAllOrderedByAmountDescendingThenById ()),ids (parallel.getAllOrderedByAmountDescendingThenById ()));
+        assertEquals (ids (chainblock.getBySenderOrderedByAmountDescending ("Sender_7")),ids (parallel.getBySenderOrderedByAmountDescending ("Sender_7")));
+        assertEquals (ids (chainblock.getBySenderAndMinimumAmountDescending ("Sender_7",60)),ids (parallel.getBySenderAndMinimumAmountDescending ("Sender_7",60)));
+        assertEquals (ids (chainblock.getAllInAmountRange (10,20)),ids (parallel.getAllInAmountRange (10,20)));
+        assertEquals (ids (chainblock.getAllSendersWithTransactionStatus (TransactionStatus.FAILED)),
+                ids (parallel.getAllSendersWithTransactionStatus (TransactionStatus.FAILED)));
+        pool.shutdown ();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParallelSenderScanThrowsExceptionForUnknownSender () {
+        ChainblockImpl parallel = new ChainblockImpl (ForkJoinPool.commonPool (),1);
+        parallel.add (new TransactionImpl (1,TransactionStatus.FAILED,"Sender_1","Receiver_1",10));
+        parallel.getBySenderOrderedByAmountDescending ("Nobody");
+    }
+
+    @Test
+    public void testColumnarScansMatchObjectScans () {
+        ChainblockImpl columnar = new ChainblockImpl ().withColumnarScans ();
+        Random         random   = new Random (13);
+        for (int i = 0; i < 20_000; i++) {
+            Transaction transaction = new TransactionImpl (i,TransactionStatus.values ()[random.nextInt (4)],
+                    "Sender_" + random.nextInt (50),"Receiver_" + random.nextInt (50),random.nextInt (100));
+            chainblock.add (transaction);
+            columnar.add (new TransactionImpl (i,transaction.getStatus (),transaction.getSender (),transaction.getReceiver (),transaction.getAmount ()));
+        }
+        for (int i = 0; i < 20_000; i += 3) {
+            chainblock.removeTransactionById (i);
+            columnar.removeTransactionById (i);
+        }
+        for (int i = 1; i < 20_000; i += 12) {
+            chainblock.changeTransactionStatus (i,TransactionStatus.UNAUTHORIZED);
+            columnar.changeTransactionStatus (i,TransactionStatus.UNAUTHORIZED);
+        }
+        assertEquals (ids (chainblock.getAllInAmountRange (10,20)),ids (columnar.getAllInAmountRange (10,20)));
+        assertEquals (ids (chainblock.getByTransactionStatusAndMaximumAmount (TransactionStatus.UNAUTHORIZED,40)),
+                ids (columnar.getByTransactionStatusAndMaximumAmount (TransactionStatus.UNAUTHORIZED,40)));
+        assertEquals (ids (chainblock.getBySenderAndMinimumAmountDescending ("Sender_7",60)),
+                ids (columnar.getBySenderAndMinimumAmountDescending ("Sender_7",60)));
+        assertFalse (columnar.getByTransactionStatusAndMaximumAmount (TransactionStatus.FAILED,0).iterator ().hasNext ());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testColumnarStatusAndMaximumAmountThrowsExceptionForMissingStatus () {
+        ChainblockImpl columnar = new ChainblockImpl ().withColumnarScans (new ScalarAmountScanner ());
+        columnar.add (new TransactionImpl (1,TransactionStatus.FAILED,"Sender_1","Receiver_1",10));
+        columnar.getByTransactionStatusAndMaximumAmount (TransactionStatus.SUCCESSFUL,100);
+    }
+
+    private List<Object> ids (Iterable<?> items) {
+        List<Object> ids = new ArrayList<> ();
+        for (Object item : items) {
+            ids.add (item instanceof Transaction ? (Object) ((Transaction) item).getId () : item);
+        }
+        return ids;
+    }
+
+    private List<Transaction> prefix (Iterable<Transaction> transactions,int limit) {
+        List<Transaction> all = getTransactionsWithSpecifiedProperties (transactions);
+        return new ArrayList<> (all.subList (0,Math.min (limit,all.size ())));
+    }
+
     private List<Transaction> getTransactionsWithSpecifiedProperties (Iterable<Transaction> allInAmountRange) {
         List<Transaction> empty = new ArrayList<> ();
         for (Transaction t : allInAmountRange) {
@@ -0,0 +1,161 @@
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class CheckpointTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder ();
+
+    private Path path;
+    private ChainblockImpl chainblock;
+
+    @Before
+    public void setUp () {
+        path = folder.getRoot ().toPath ().resolve ("chainblock.ckpt");
+        chainblock = new ChainblockImpl ();
+    }
+
+    @Test
+    public void testRestoredChainblockAnswersQueriesLikeTheOriginal () throws IOException {
+        chainblock.addAll (new TransactionGenerator (7).generate (5000));
+        for (int id = 0; id < 5000; id += 9) {
+            chainblock.removeTransactionById (id);
+        }
+        chainblock.add (new TransactionImpl (-1,null,"Sender_1","Receiver_1",12.5));
+        Checkpoint.write (chainblock,path);
+        ChainblockImpl restored = Checkpoint.read (path);
+        assertSameQueries (chainblock,restored);
+        assertNull (restored.getById (-1).getStatus ());
+        assertFalse (Files.exists (path.resolveSibling (path.getFileName () + Checkpoint.TEMP_SUFFIX)));
+    }
+
+    @Test
+    public void testRestoredChainblockAcceptsFurtherWrites () throws IOException {
+        chainblock.addAll (new TransactionGenerator (3).generate (1000));
+        Checkpoint.write (chainblock,path);
+        ChainblockImpl restored = Checkpoint.read (path);
+        for (ChainblockImpl target : List.of (chainblock,restored)) {
+            target.add (new TransactionImpl (5000,TransactionStatus.FAILED,"Sender_New","Receiver_New",1e9));
+            target.removeTransactionById (10);
+            target.changeTransactionStatus (20,TransactionStatus.UNAUTHORIZED);
+        }
+        assertSameQueries (chainblock,restored);
+    }
+
+    @Test
+    public void testEmptyChainblockRoundTrips () throws IOException {
+        Checkpoint.write (chainblock,path);
+        assertEquals (0,Checkpoint.read (path).getCount ());
+    }
+
+    @Test
+    public void testReadIntoConfiguredChainblock () throws IOException {
+        chainblock.addAll (new TransactionGenerator (5).generate (2000));
+        Checkpoint.write (chainblock,path);
+        ChainblockImpl restored = Checkpoint.read (path,new ChainblockImpl ().withColumnarScans (new ScalarAmountScanner ()));
+        assertSameQueries (chainblock,restored);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadIntoNonEmptyChainblockThrows () throws IOException {
+        Checkpoint.write (chainblock,path);
+        ChainblockImpl target = new ChainblockImpl ();
+        target.add (new TransactionImpl (1,TransactionStatus.FAILED,"Sender_1","Receiver_1",1));
+        Checkpoint.read (path,target);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadIntoEmptiedChainblockThrows () throws IOException {
+        Checkpoint.write (chainblock,path);
+        ChainblockImpl target = new ChainblockImpl ();
+        target.add (new TransactionImpl (1,TransactionStatus.FAILED,"Sender_1","Receiver_1",1));
+        target.removeTransactionById (1);
+        Checkpoint.read (path,target);
+    }
+
+    @Test
+    public void testRestoredReceiverLookupsMatchOriginal () throws IOException {
+        chainblock.add (new TransactionImpl (1,TransactionStatus.FAILED,"Sender_1","bob",10));
+        chainblock.add (new TransactionImpl (2,TransactionStatus.SUCCESSFUL,"Sender_2","bob",20));
+        Checkpoint.write (chainblock,path);
+        ChainblockImpl restored = Checkpoint.read (path,new ChainblockImpl ());
+        assertEquals (list (chainblock.getByReceiverOrderedByAmountThenById ("bob")),
+                list (restored.getByReceiverOrderedByAmountThenById ("bob")));
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptRecordIsDetected () throws IOException {
+        chainblock.addAll (new TransactionGenerator (9).generate (100));
+        Checkpoint.write (chainblock,path);
+        long size = Files.size (path);
+        try (FileChannel channel = FileChannel.open (path,StandardOpenOption.WRITE)) {
+            channel.write (ByteBuffer.wrap (new byte[]{0x55}),size - 12);
+        }
+        Checkpoint.read (path);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedFileIsDetected () throws IOException {
+        chainblock.addAll (new TransactionGenerator (9).generate (100));
+        Checkpoint.write (chainblock,path);
+        try (FileChannel channel = FileChannel.open (path,StandardOpenOption.WRITE)) {
+            channel.truncate (Files.size (path) - 30);
+        }
+        Checkpoint.read (path);
+    }
+
+    @Test(expected = IOException.class)
+    public void testOtherFileIsRejected () throws IOException {
+        Files.write (path,new byte[64]);
+        Checkpoint.read (path);
+    }
+
+    // Helper Methods //
+
+    private static void assertSameQueries (ChainblockImpl expected,ChainblockImpl actual) {
+        assertEquals (expected.getCount (),actual.getCount ());
+        assertEquals (list (expected),list (actual));
+        assertEquals (list (expected.getAllOrderedByAmountDescendingThenById ()),list (actual.getAllOrderedByAmountDescendingThenById ()));
+        assertEquals (list (expected.getAllInAmountRange (100,5000)),list (actual.getAllInAmountRange (100,5000)));
+        for (TransactionStatus status : TransactionStatus.values ()) {
+            assertEquals (outcome (() -> expected.getByTransactionStatus (status)),outcome (() -> actual.getByTransactionStatus (status)));
+            assertEquals (list (expected.getByTransactionStatusAndMaximumAmount (status,2500)),
+                    list (actual.getByTransactionStatusAndMaximumAmount (status,2500)));
+        }
+        for (Transaction transaction : expected) {
+            String sender   = transaction.getSender ();
+            String receiver = transaction.getReceiver ();
+            assertEquals (list (expected.getBySenderOrderedByAmountDescending (sender)),list (actual.getBySenderOrderedByAmountDescending (sender)));
+            assertEquals (list (expected.getByReceiverOrderedByAmountThenById (receiver)),list (actual.getByReceiverOrderedByAmountThenById (receiver)));
+            assertEquals (outcome (() -> expected.getBySenderAndMinimumAmountDescending (sender,transaction.getAmount ())),
+                    outcome (() -> actual.getBySenderAndMinimumAmountDescending (sender,transaction.getAmount ())));
+        }
+    }
+
+    private static List<Transaction> outcome (Supplier<Iterable<Transaction>> query) {
+        try {
+            return list (query.get ());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static List<Transaction> list (Iterable<Transaction> transactions) {
+        List<Transaction> list = new ArrayList<> ();
+        transactions.forEach (list::add);
+        return list;
+    }
+}
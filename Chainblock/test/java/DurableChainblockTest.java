@@ -0,0 +1,284 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class DurableChainblockTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder ();
+
+    private Path directory;
+    private DurableChainblock chainblock;
+
+    @Before
+    public void setUp () throws Exception {
+        directory = folder.getRoot ().toPath ();
+        chainblock = new DurableChainblock (directory);
+    }
+
+    @After
+    public void tearDown () throws Exception {
+        chainblock.close ();
+    }
+
+    @Test
+    public void testAddedTransactionsSurviveRestart () throws IOException {
+        fillChainBlock ();
+        reopen ();
+        assertEquals (4,chainblock.getCount ());
+        Transaction transaction = chainblock.getById (2);
+        assertEquals (TransactionStatus.SUCCESSFUL,transaction.getStatus ());
+        assertEquals ("Sender_2",transaction.getSender ());
+        assertEquals ("Receiver_2",transaction.getReceiver ());
+        assertEquals (22,transaction.getAmount (),0.0);
+    }
+
+    @Test
+    public void testRestartPreservesInsertionOrder () throws IOException {
+        fillChainBlock ();
+        reopen ();
+        List<Integer> ids = new ArrayList<> ();
+        for (Transaction t : chainblock.getAllInAmountRange (0,100)) {
+            ids.add (t.getId ());
+        }
+        assertEquals (List.of (1,2,21,3),ids);
+    }
+
+    @Test
+    public void testStatusChangeSurvivesRestart () throws IOException {
+        fillChainBlock ();
+        chainblock.changeTransactionStatus (2,TransactionStatus.FAILED);
+        reopen ();
+        assertEquals (TransactionStatus.FAILED,chainblock.getById (2).getStatus ());
+    }
+
+    @Test
+    public void testBulkStatusChangeSurvivesRestart () throws IOException {
+        fillChainBlock ();
+        StatusChangeResult result = chainblock.changeTransactionStatus (new int[]{1,2,99},TransactionStatus.UNAUTHORIZED);
+        assertEquals (2,result.getChangedCount ());
+        assertArrayEquals (new int[]{99},result.getMissingIds ());
+        reopen ();
+        assertEquals (TransactionStatus.UNAUTHORIZED,chainblock.getById (1).getStatus ());
+        assertEquals (TransactionStatus.UNAUTHORIZED,chainblock.getById (2).getStatus ());
+        assertEquals (TransactionStatus.SUCCESSFUL,chainblock.getById (3).getStatus ());
+    }
+
+    @Test
+    public void testRemoveSurvivesRestart () throws IOException {
+        fillChainBlock ();
+        chainblock.removeTransactionById (21);
+        reopen ();
+        assertFalse (chainblock.contains (21));
+        assertEquals (3,chainblock.getCount ());
+    }
+
+    @Test
+    public void testReAddAfterRemoveSurvivesRestart () throws IOException {
+        fillChainBlock ();
+        chainblock.removeTransactionById (1);
+        chainblock.add (new TransactionImpl (1,TransactionStatus.FAILED,"Sender_9","Receiver_9",99));
+        reopen ();
+        assertEquals ("Sender_9",chainblock.getById (1).getSender ());
+        assertEquals (TransactionStatus.FAILED,chainblock.getById (1).getStatus ());
+    }
+
+    @Test
+    public void testWritesRollOverIntoNewSegments () throws IOException {
+        useSmallSegments ();
+        for (int i = 0; i < 7; i++) {
+            chainblock.add (new TransactionImpl (i,TransactionStatus.SUCCESSFUL,"S","R",i));
+        }
+        assertEquals (4,segmentFiles ().size ());
+        reopenSmallSegments ();
+        assertEquals (7,chainblock.getCount ());
+        chainblock.add (new TransactionImpl (7,TransactionStatus.SUCCESSFUL,"S","R",7));
+        assertEquals (4,segmentFiles ().size ());
+    }
+
+    @Test
+    public void testRecoveryStopsAtTornRecord () throws IOException {
+        fillChainBlock ();
+        chainblock.close ();
+        Path segment = segmentFiles ().get (0);
+        try (FileChannel channel = FileChannel.open (segment,StandardOpenOption.WRITE)) {
+            channel.write (ByteBuffer.wrap (new byte[]{ 0x7F }),Segment.HEADER_SIZE + 3 * LogRecord.SIZE + 20);
+        }
+        chainblock = new DurableChainblock (directory);
+        assertEquals (3,chainblock.getCount ());
+        assertFalse (chainblock.contains (3));
+        chainblock.add (new TransactionImpl (5,TransactionStatus.ABORTED,"Sender_5","Receiver_5",55));
+        reopen ();
+        assertEquals (4,chainblock.getCount ());
+        assertTrue (chainblock.contains (5));
+    }
+
+    @Test
+    public void testRecordsAfterTornSlotStayDiscardedAfterAppend () throws IOException {
+        chainblock.add (new TransactionImpl (1,TransactionStatus.FAILED,"Sender_1","Receiver_1",11));
+        chainblock.add (new TransactionImpl (2,TransactionStatus.FAILED,"Sender_2","Receiver_2",22));
+        chainblock.add (new TransactionImpl (3,TransactionStatus.FAILED,"Sender_3","Receiver_3",33));
+        chainblock.close ();
+        Path segment = segmentFiles ().get (0);
+        try (FileChannel channel = FileChannel.open (segment,StandardOpenOption.WRITE)) {
+            channel.write (ByteBuffer.wrap (new byte[LogRecord.SIZE]),Segment.HEADER_SIZE + LogRecord.SIZE);
+        }
+        chainblock = new DurableChainblock (directory);
+        assertEquals (1,chainblock.getCount ());
+        chainblock.add (new TransactionImpl (4,TransactionStatus.ABORTED,"Sender_4","Receiver_4",44));
+        reopen ();
+        assertEquals (2,chainblock.getCount ());
+        assertFalse (chainblock.contains (3));
+        assertTrue (chainblock.contains (4));
+    }
+
+    @Test
+    public void testCompactDropsDeadRecordsAndKeepsState () throws IOException {
+        useSmallSegments ();
+        fillChainBlock ();
+        chainblock.changeTransactionStatus (2,TransactionStatus.FAILED);
+        chainblock.removeTransactionById (1);
+        chainblock.add (new TransactionImpl (1,TransactionStatus.ABORTED,"Sender_9","Receiver_9",99));
+        chainblock.add (new TransactionImpl (4,TransactionStatus.ABORTED,"Sender_4","Receiver_4",44));
+        assertEquals (4,segmentFiles ().size ());
+        assertTrue (chainblock.getDeadRecordRatio () > 0);
+
+        chainblock.compact ();
+
+        assertEquals (2,segmentFiles ().size ());
+        assertEquals (0,chainblock.getDeadRecordRatio (),0.0);
+        reopenSmallSegments ();
+        assertEquals (5,chainblock.getCount ());
+        assertEquals (TransactionStatus.FAILED,chainblock.getById (2).getStatus ());
+        assertEquals ("Sender_9",chainblock.getById (1).getSender ());
+        assertEquals (List.of (2,21,3,1,4),idsInInsertionOrder ());
+    }
+
+    @Test
+    public void testCompactKeepsOrderOfTransactionsUpdatedAfterSealing () throws IOException {
+        useSmallSegments ();
+        fillChainBlock ();
+        chainblock.add (new TransactionImpl (4,TransactionStatus.ABORTED,"Sender_4","Receiver_4",44));
+        chainblock.changeTransactionStatus (1,TransactionStatus.FAILED);
+        chainblock.removeTransactionById (21);
+
+        chainblock.compact ();
+        chainblock.add (new TransactionImpl (5,TransactionStatus.ABORTED,"Sender_5","Receiver_5",55));
+
+        reopenSmallSegments ();
+        assertEquals (List.of (1,2,3,4,5),idsInInsertionOrder ());
+        assertEquals (TransactionStatus.FAILED,chainblock.getById (1).getStatus ());
+        assertFalse (chainblock.contains (21));
+    }
+
+    @Test
+    public void testRecoveryDiscardsSegmentsSupersededByCompaction () throws IOException {
+        useSmallSegments ();
+        fillChainBlock ();
+        chainblock.removeTransactionById (2);
+        chainblock.add (new TransactionImpl (4,TransactionStatus.ABORTED,"Sender_4","Receiver_4",44));
+        Path stale = folder.newFolder ().toPath ();
+        Path first = segmentFiles ().get (0);
+        Files.copy (first,stale.resolve (first.getFileName ()));
+
+        chainblock.compact ();
+        chainblock.close ();
+        Files.copy (stale.resolve (first.getFileName ()),first,StandardCopyOption.REPLACE_EXISTING);
+
+        reopenSmallSegments ();
+        assertFalse (chainblock.contains (2));
+        assertEquals (List.of (1,21,3,4),idsInInsertionOrder ());
+        assertFalse (Files.exists (first));
+    }
+
+    @Test
+    public void testBackgroundCompactionRunsWhenDeadRatioIsReached () throws Exception {
+        useSmallSegments ();
+        fillChainBlock ();
+        for (int i = 0; i < 6; i++) {
+            chainblock.changeTransactionStatus (2,i % 2 == 0 ? TransactionStatus.FAILED : TransactionStatus.SUCCESSFUL);
+        }
+        int before = segmentFiles ().size ();
+        chainblock.startCompaction (10,TimeUnit.MILLISECONDS,0.5);
+        long deadline = System.currentTimeMillis () + 5000;
+        // superseded segments are only deleted once the compacted one has been swapped in
+        while (segmentFiles ().size () >= before && System.currentTimeMillis () < deadline) {
+            Thread.sleep (10);
+        }
+        assertNull (chainblock.getLastCompactionFailure ());
+        assertTrue (segmentFiles ().size () < before);
+        chainblock.add (new TransactionImpl (4,TransactionStatus.ABORTED,"Sender_4","Receiver_4",44));
+        reopenSmallSegments ();
+        assertEquals (5,chainblock.getCount ());
+        assertEquals (TransactionStatus.SUCCESSFUL,chainblock.getById (2).getStatus ());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddThrowsExceptionIfNameDoesNotFitRecord () {
+        chainblock.add (new TransactionImpl (1,TransactionStatus.FAILED,"S".repeat (LogRecord.MAX_NAME_BYTES + 1),"R",1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testChangeTransactionStatusThrowsExceptionIfTransactionIsNotPresent () {
+        chainblock.changeTransactionStatus (1,TransactionStatus.FAILED);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemoveTransactionByIdThrowsExceptionIfTransactionNotPresent () {
+        chainblock.removeTransactionById (1);
+    }
+
+    // Helper Methods //
+    private void reopen () throws IOException {
+        chainblock.close ();
+        chainblock = new DurableChainblock (directory);
+    }
+
+    private void useSmallSegments () throws IOException {
+        chainblock.close ();
+        directory = folder.newFolder ().toPath ();
+        chainblock = new DurableChainblock (directory,Segment.HEADER_SIZE + 2 * LogRecord.SIZE);
+    }
+
+    private void reopenSmallSegments () throws IOException {
+        chainblock.close ();
+        chainblock = new DurableChainblock (directory,Segment.HEADER_SIZE + 2 * LogRecord.SIZE);
+    }
+
+    private List<Integer> idsInInsertionOrder () {
+        List<Integer> ids = new ArrayList<> ();
+        for (Transaction t : chainblock) {
+            ids.add (t.getId ());
+        }
+        return ids;
+    }
+
+    private List<Path> segmentFiles () throws IOException {
+        try (Stream<Path> list = Files.list (directory)) {
+            return list.filter (p -> !p.toString ().endsWith (Segment.TEMP_SUFFIX)).sorted ().collect (Collectors.toList ());
+        }
+    }
+
+    private void fillChainBlock () {
+        chainblock.add (new TransactionImpl (1,TransactionStatus.ABORTED,"Sender_1","Receiver_1",11));
+        chainblock.add (new TransactionImpl (2,TransactionStatus.SUCCESSFUL,"Sender_2","Receiver_2",22));
+        chainblock.add (new TransactionImpl (21,TransactionStatus.SUCCESSFUL,"Sender_2","Receiver_2",55));
+        chainblock.add (new TransactionImpl (3,TransactionStatus.SUCCESSFUL,"Sender_3","Receiver_3",33));
+    }
+}
@@ -0,0 +1,150 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class IngestPipelineTest {
+    private Chainblock chainblock;
+    private List<Integer> batchSizes;
+    private IngestPipeline pipeline;
+
+    @Before
+    public void setUp () {
+        batchSizes = new ArrayList<> ();
+        chainblock = new ChainblockImpl () {
+            @Override
+            public void addAll (Iterable<Transaction> transactions) {
+                int size = 0;
+                for (Transaction t : transactions) {
+                    size++;
+                }
+                batchSizes.add (size);
+                super.addAll (transactions);
+            }
+        };
+        pipeline = new IngestPipeline (chainblock,8,4);
+    }
+
+    @After
+    public void tearDown () {
+        pipeline.close ();
+    }
+
+    @Test
+    public void testPublishedTransactionsReachChainblockAfterFlush () {
+        for (int i = 0; i < 100; i++) {
+            pipeline.publish (new TransactionImpl (i,TransactionStatus.SUCCESSFUL,"Sender","Receiver",i));
+        }
+        pipeline.flush ();
+        assertEquals (100,chainblock.getCount ());
+        assertEquals (99,chainblock.getById (99).getAmount (),0.0);
+    }
+
+    @Test
+    public void testTransactionsAreAppliedInBatches () {
+        for (int i = 0; i < 100; i++) {
+            pipeline.publish (new TransactionImpl (i,TransactionStatus.SUCCESSFUL,"Sender","Receiver",i));
+        }
+        pipeline.flush ();
+        int total = 0;
+        for (int size : batchSizes) {
+            assertTrue (size <= 4);
+            total += size;
+        }
+        assertEquals (100,total);
+        assertEquals (batchSizes.size (),pipeline.getBatchCount ());
+    }
+
+    @Test
+    public void testConcurrentProducersLoseNoTransactions () throws InterruptedException {
+        pipeline.close ();
+        pipeline = new IngestPipeline (chainblock,1024,256);
+        List<Thread> producers = new ArrayList<> ();
+        for (int p = 0; p < 4; p++) {
+            int first = p * 10_000;
+            Thread producer = new Thread (() -> {
+                for (int i = first; i < first + 10_000; i++) {
+                    pipeline.publish (new TransactionImpl (i,TransactionStatus.FAILED,"Sender","Receiver",i));
+                }
+            });
+            producers.add (producer);
+            producer.start ();
+        }
+        for (Thread producer : producers) {
+            producer.join ();
+        }
+        pipeline.flush ();
+        assertEquals (40_000,chainblock.getCount ());
+    }
+
+    @Test
+    public void testPublishRacingCloseEitherFailsOrIsApplied () throws InterruptedException {
+        for (int round = 0; round < 20; round++) {
+            pipeline.close ();
+            chainblock = new ChainblockImpl ();
+            pipeline = new IngestPipeline (chainblock,64,16);
+            AtomicInteger accepted  = new AtomicInteger ();
+            List<Thread>  producers = new ArrayList<> ();
+            for (int p = 0; p < 4; p++) {
+                int    first    = p * 1_000_000;
+                Thread producer = new Thread (() -> {
+                    try {
+                        for (int i = first; ; i++) {
+                            pipeline.publish (new TransactionImpl (i,TransactionStatus.FAILED,"Sender","Receiver",i));
+                            accepted.incrementAndGet ();
+                        }
+                    } catch (IllegalStateException closed) {
+                    }
+                });
+                producers.add (producer);
+                producer.start ();
+            }
+            Thread.sleep (2);
+            pipeline.close ();
+            for (Thread producer : producers) {
+                producer.join ();
+            }
+            assertEquals (accepted.get (),chainblock.getCount ());
+        }
+    }
+
+    @Test
+    public void testCloseDrainsPendingTransactions () {
+        for (int i = 0; i < 50; i++) {
+            pipeline.publish (new TransactionImpl (i,TransactionStatus.SUCCESSFUL,"Sender","Receiver",i));
+        }
+        pipeline.close ();
+        assertEquals (50,chainblock.getCount ());
+    }
+
+    @Test
+    public void testFailingBatchIsReportedAndPipelineKeepsRunning () {
+        pipeline.close ();
+        pipeline = new IngestPipeline (new ChainblockImpl () {
+            @Override
+            public void addAll (Iterable<Transaction> transactions) {
+                throw new IllegalArgumentException ();
+            }
+        },8,4);
+        pipeline.publish (new TransactionImpl (1,TransactionStatus.SUCCESSFUL,"Sender","Receiver",1));
+        pipeline.flush ();
+        assertEquals (1,pipeline.getFailedBatchCount ());
+        assertTrue (pipeline.getLastFailure () instanceof IllegalArgumentException);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPublishThrowsExceptionAfterClose () {
+        pipeline.close ();
+        pipeline.publish (new TransactionImpl (1,TransactionStatus.SUCCESSFUL,"Sender","Receiver",1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacityMustBePowerOfTwo () {
+        new IngestPipeline (chainblock,6,4);
+    }
+}
@@ -0,0 +1,80 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class InstrumentedChainblockTest {
+    private InstrumentedChainblock chainblock;
+
+    @Before
+    public void setUp () {
+        chainblock = new InstrumentedChainblock (new ChainblockImpl ());
+        for (int i = 0; i < 100; i++) {
+            chainblock.add (new TransactionImpl (i,TransactionStatus.values ()[i % 4],"Sender_" + i % 10,"Receiver_" + i % 5,i));
+        }
+    }
+
+    @Test
+    public void testCountsCallsAndFailuresPerMethod () {
+        chainblock.getById (1);
+        chainblock.getById (2);
+        try {
+            chainblock.getById (1000);
+            fail ();
+        } catch (IllegalArgumentException expected) {
+        }
+        MethodStatistics getById = chainblock.getStatistics (InstrumentedChainblock.Method.GET_BY_ID);
+        assertEquals (3,getById.getCalls ());
+        assertEquals (1,getById.getFailures ());
+        assertEquals (2,getById.getReturnedRows ());
+        assertEquals (100,chainblock.getStatistics (InstrumentedChainblock.Method.ADD).getCalls ());
+    }
+
+    @Test
+    public void testRecordsScannedAgainstReturnedRows () {
+        chainblock.getBySenderOrderedByAmountDescending ("Sender_3");
+        chainblock.getByReceiverOrderedByAmountThenById ("Receiver_3");
+        MethodStatistics bySender = chainblock.getStatistics (InstrumentedChainblock.Method.GET_BY_SENDER_ORDERED_BY_AMOUNT_DESCENDING);
+        assertEquals (10,bySender.getReturnedRows ());
+        assertEquals (100,bySender.getScannedRows ());
+        assertEquals (10.0,bySender.getScanRatio (),0.0);
+        MethodStatistics byReceiver = chainblock.getStatistics (InstrumentedChainblock.Method.GET_BY_RECEIVER_ORDERED_BY_AMOUNT_THEN_BY_ID);
+        assertEquals (20,byReceiver.getReturnedRows ());
+        assertEquals (1.0,byReceiver.getScanRatio (),0.0);
+    }
+
+    @Test
+    public void testSnapshotContainsOnlyCalledMethods () {
+        chainblock.getAllInAmountRange (10,19);
+        Map<InstrumentedChainblock.Method, MethodStatistics> snapshot = chainblock.snapshot ();
+        assertEquals (2,snapshot.size ());
+        MethodStatistics range = snapshot.get (InstrumentedChainblock.Method.GET_ALL_IN_AMOUNT_RANGE);
+        assertEquals (10,range.getReturnedRows ());
+        assertTrue (range.getP99Nanos () >= range.getP50Nanos ());
+        assertTrue (range.getMaxNanos () >= range.getP99Nanos ());
+    }
+
+    @Test
+    public void testHistogramBucketsBoundValuesWithinAQuarter () {
+        for (long value : new long[]{0,7,8,9,10,1000,123_456_789L,Long.MAX_VALUE}) {
+            long upper = LatencyHistogram.upperBound (LatencyHistogram.bucket (value));
+            assertTrue (upper >= value);
+            assertTrue (upper - value <= value / 4);
+        }
+    }
+
+    @Test
+    public void testHistogramPercentiles () {
+        LatencyHistogram histogram = new LatencyHistogram ();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record (i * 1000L);
+        }
+        assertEquals (1000,histogram.getCount ());
+        assertEquals (1_000_000,histogram.getMaxNanos ());
+        long p50 = histogram.getPercentileNanos (50);
+        assertTrue (p50 >= 500_000 && p50 <= 625_000);
+        assertEquals (1_000_000,histogram.getPercentileNanos (100));
+    }
+}
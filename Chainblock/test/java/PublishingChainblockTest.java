@@ -0,0 +1,171 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PublishingChainblockTest {
+    private PublishingChainblock chainblock;
+
+    @Before
+    public void setUp () {
+        // deliver on the publishing thread so events are visible as soon as the call returns
+        chainblock = new PublishingChainblock (new ChainblockImpl (),Runnable::run,16);
+    }
+
+    @After
+    public void tearDown () {
+        chainblock.close ();
+    }
+
+    @Test
+    public void testSubscriberSeesAddStatusChangeAndRemove () {
+        RecordingSubscriber subscriber = new RecordingSubscriber (Long.MAX_VALUE);
+        chainblock.subscribe (subscriber);
+        chainblock.add (new TransactionImpl (1,TransactionStatus.SUCCESSFUL,"Sender_1","Receiver_1",10));
+        chainblock.add (new TransactionImpl (1,TransactionStatus.SUCCESSFUL,"Sender_1","Receiver_1",10));
+        chainblock.changeTransactionStatus (1,TransactionStatus.FAILED);
+        chainblock.removeTransactionById (1);
+        assertEquals (3,subscriber.events.size ());
+        assertEquals (ChainblockEvent.Type.ADDED,subscriber.events.get (0).getType ());
+        ChainblockEvent statusChange = subscriber.events.get (1);
+        assertEquals (ChainblockEvent.Type.STATUS_CHANGED,statusChange.getType ());
+        assertEquals (TransactionStatus.SUCCESSFUL,statusChange.getPreviousStatus ());
+        assertEquals (TransactionStatus.FAILED,statusChange.getStatus ());
+        assertEquals (ChainblockEvent.Type.REMOVED,subscriber.events.get (2).getType ());
+        assertEquals (1,subscriber.events.get (2).getId ());
+    }
+
+    @Test
+    public void testAddAllPublishesOnlyNewTransactions () {
+        RecordingSubscriber subscriber = new RecordingSubscriber (Long.MAX_VALUE);
+        chainblock.subscribe (subscriber);
+        chainblock.add (new TransactionImpl (1,TransactionStatus.SUCCESSFUL,"Sender_1","Receiver_1",10));
+        chainblock.addAll (List.of (
+                new TransactionImpl (1,TransactionStatus.SUCCESSFUL,"Sender_1","Receiver_1",10),
+                new TransactionImpl (2,TransactionStatus.SUCCESSFUL,"Sender_2","Receiver_2",20),
+                new TransactionImpl (2,TransactionStatus.SUCCESSFUL,"Sender_2","Receiver_2",20)));
+        assertEquals (2,subscriber.events.size ());
+        assertEquals (2,subscriber.events.get (1).getId ());
+        assertEquals (2,chainblock.getCount ());
+    }
+
+    @Test
+    public void testFilteredSubscriberOnlySpendsDemandOnMatchingEvents () {
+        RecordingSubscriber subscriber = new RecordingSubscriber (1);
+        chainblock.subscribe (subscriber,new TransactionFilter ().withStatus (TransactionStatus.FAILED,TransactionStatus.ABORTED));
+        for (int i = 0; i < 5; i++) {
+            chainblock.add (new TransactionImpl (i,TransactionStatus.SUCCESSFUL,"Sender","Receiver",i));
+        }
+        chainblock.changeTransactionStatus (3,TransactionStatus.ABORTED);
+        assertEquals (1,subscriber.events.size ());
+        assertEquals (3,subscriber.events.get (0).getId ());
+    }
+
+    @Test
+    public void testFilterByPartyAppliesToEachSubscriberSeparately () {
+        RecordingSubscriber senderOne = new RecordingSubscriber (Long.MAX_VALUE);
+        RecordingSubscriber all       = new RecordingSubscriber (Long.MAX_VALUE);
+        chainblock.subscribe (senderOne,new TransactionFilter ().withSender ("Sender_1"));
+        chainblock.subscribe (all);
+        chainblock.add (new TransactionImpl (1,TransactionStatus.SUCCESSFUL,"Sender_1","Receiver_1",10));
+        chainblock.add (new TransactionImpl (2,TransactionStatus.SUCCESSFUL,"Sender_2","Receiver_1",10));
+        assertEquals (1,senderOne.events.size ());
+        assertEquals (2,all.events.size ());
+        assertEquals (2,chainblock.getSubscriberCount ());
+    }
+
+    @Test
+    public void testSlowSubscriberThrottlesWriterWithoutLosingEvents () throws InterruptedException {
+        ExecutorService      executor  = Executors.newSingleThreadExecutor ();
+        PublishingChainblock published = new PublishingChainblock (new ChainblockImpl (),executor,1);
+        CountDownLatch       done      = new CountDownLatch (1);
+        RecordingSubscriber  slow      = new RecordingSubscriber (1) {
+            @Override
+            public void onNext (ChainblockEvent event) {
+                super.onNext (event);
+                this.subscription.request (1);
+            }
+
+            @Override
+            public void onComplete () {
+                done.countDown ();
+            }
+        };
+        published.subscribe (slow);
+        for (int i = 0; i < 500; i++) {
+            published.add (new TransactionImpl (i,TransactionStatus.SUCCESSFUL,"Sender","Receiver",i));
+        }
+        published.close ();
+        assertTrue (done.await (10,TimeUnit.SECONDS));
+        executor.shutdown ();
+        assertEquals (500,slow.events.size ());
+        for (int i = 0; i < 500; i++) {
+            assertEquals (i,slow.events.get (i).getId ());
+        }
+    }
+
+    @Test
+    public void testSubscriberCanChangeStatusFromOnNext () throws InterruptedException {
+        ExecutorService      executor  = Executors.newSingleThreadExecutor ();
+        PublishingChainblock published = new PublishingChainblock (new ChainblockImpl (),executor,1);
+        CountDownLatch       done      = new CountDownLatch (200);
+        RecordingSubscriber  marking   = new RecordingSubscriber (Long.MAX_VALUE) {
+            @Override
+            public void onNext (ChainblockEvent event) {
+                super.onNext (event);
+                if (event.getType () == ChainblockEvent.Type.ADDED) {
+                    published.changeTransactionStatus (event.getId (),TransactionStatus.FAILED);
+                }
+                done.countDown ();
+            }
+        };
+        published.subscribe (marking);
+        for (int i = 0; i < 100; i++) {
+            published.add (new TransactionImpl (i,TransactionStatus.SUCCESSFUL,"Sender","Receiver",i));
+        }
+        assertTrue (done.await (10,TimeUnit.SECONDS));
+        published.close ();
+        executor.shutdown ();
+        assertEquals (100,((List<?>) published.getByTransactionStatus (TransactionStatus.FAILED)).size ());
+    }
+
+    // Helper Methods //
+    private static class RecordingSubscriber implements Flow.Subscriber<ChainblockEvent> {
+        protected final List<ChainblockEvent> events = new ArrayList<> ();
+        private final long initialDemand;
+        protected Flow.Subscription subscription;
+
+        private RecordingSubscriber (long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe (Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request (this.initialDemand);
+        }
+
+        @Override
+        public void onNext (ChainblockEvent event) {
+            this.events.add (event);
+        }
+
+        @Override
+        public void onError (Throwable throwable) {
+            throw new AssertionError (throwable);
+        }
+
+        @Override
+        public void onComplete () {
+        }
+    }
+}
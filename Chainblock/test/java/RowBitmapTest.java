@@ -0,0 +1,96 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class RowBitmapTest {
+
+    @Test
+    public void testAddRemoveAndContainsMatchReferenceSet () {
+        Random           random    = new Random (42);
+        RowBitmap        bitmap    = new RowBitmap ();
+        TreeSet<Integer> reference = new TreeSet<> ();
+        for (int i = 0; i < 50_000; i++) {
+            int value = random.nextInt (200_000);
+            if (random.nextInt (4) == 0) {
+                bitmap.remove (value);
+                reference.remove (value);
+            } else {
+                bitmap.add (value);
+                reference.add (value);
+            }
+        }
+        assertEquals (reference.size (),bitmap.cardinality ());
+        assertArrayEquals (toArray (reference),bitmap.toArray ());
+        for (int i = 0; i < 1000; i++) {
+            int value = random.nextInt (200_000);
+            assertEquals (reference.contains (value),bitmap.contains (value));
+        }
+    }
+
+    @Test
+    public void testDenseContainerShrinksBackToArrayOnRemove () {
+        RowBitmap bitmap = new RowBitmap ();
+        for (int i = 0; i < 10_000; i++) {
+            bitmap.add (i);
+        }
+        for (int i = 0; i < 9_990; i++) {
+            bitmap.remove (i);
+        }
+        assertEquals (10,bitmap.cardinality ());
+        assertTrue (bitmap.contains (9_999));
+        assertFalse (bitmap.contains (5));
+        for (int i = 9_990; i < 10_000; i++) {
+            bitmap.remove (i);
+        }
+        assertTrue (bitmap.isEmpty ());
+    }
+
+    @Test
+    public void testAndAndOrMatchReferenceSets () {
+        Random           random = new Random (7);
+        RowBitmap        a      = new RowBitmap ();
+        RowBitmap        b      = new RowBitmap ();
+        TreeSet<Integer> ra     = new TreeSet<> ();
+        TreeSet<Integer> rb     = new TreeSet<> ();
+        for (int i = 0; i < 30_000; i++) {
+            int dense  = random.nextInt (70_000);
+            int sparse = random.nextInt (1_000_000);
+            a.add (dense);
+            ra.add (dense);
+            b.add (i % 3 == 0 ? dense : sparse);
+            rb.add (i % 3 == 0 ? dense : sparse);
+        }
+        TreeSet<Integer> intersection = new TreeSet<> (ra);
+        intersection.retainAll (rb);
+        TreeSet<Integer> union = new TreeSet<> (ra);
+        union.addAll (rb);
+        assertArrayEquals (toArray (intersection),RowBitmap.and (a,b).toArray ());
+        assertArrayEquals (toArray (union),RowBitmap.or (a,b).toArray ());
+        assertArrayEquals (toArray (ra),a.toArray ());
+    }
+
+    @Test
+    public void testForEachVisitsValuesInAscendingOrder () {
+        RowBitmap bitmap = new RowBitmap ();
+        bitmap.add (70_000);
+        bitmap.add (3);
+        bitmap.add (65_536);
+        List<Integer> values = new ArrayList<> ();
+        bitmap.forEach (values::add);
+        assertEquals (List.of (3,65_536,70_000),values);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddThrowsExceptionForNegativeValue () {
+        new RowBitmap ().add (-1);
+    }
+
+    private static int[] toArray (TreeSet<Integer> set) {
+        return set.stream ().mapToInt (Integer::intValue).toArray ();
+    }
+}
@@ -0,0 +1,205 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class TieredChainblockTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder ();
+
+    private Path directory;
+    private TieredChainblock chainblock;
+
+    @Before
+    public void setUp () {
+        directory = folder.getRoot ().toPath ();
+        chainblock = new TieredChainblock (directory,4);
+    }
+
+    @After
+    public void tearDown () throws IOException {
+        chainblock.close ();
+    }
+
+    @Test
+    public void testOldSettledTransactionsMoveToColdTier () {
+        for (int i = 1; i <= 10; i++) {
+            chainblock.add (new TransactionImpl (i,TransactionStatus.SUCCESSFUL,"Sender_1","Receiver_1",i));
+        }
+        assertEquals (10,chainblock.getCount ());
+        assertTrue (chainblock.getHotCount () <= 4);
+        assertEquals (10 - chainblock.getHotCount (),chainblock.getColdCount ());
+        assertEquals (new TransactionImpl (1,TransactionStatus.SUCCESSFUL,"Sender_1","Receiver_1",1),chainblock.getById (1));
+        assertTrue (chainblock.contains (2));
+    }
+
+    @Test
+    public void testUnsettledTransactionsStayInMemory () {
+        for (int i = 1; i <= 10; i++) {
+            chainblock.add (new TransactionImpl (i,i % 2 == 0 ? TransactionStatus.SUCCESSFUL : TransactionStatus.FAILED,"Sender_1","Receiver_1",i));
+        }
+        assertTrue (chainblock.getColdCount () > 0);
+        for (Transaction transaction : chainblock.getByTransactionStatus (TransactionStatus.FAILED)) {
+            assertSame (transaction,chainblock.getById (transaction.getId ()));
+        }
+    }
+
+    @Test
+    public void testStatusChangeMovesColdTransactionBack () {
+        for (int i = 1; i <= 10; i++) {
+            chainblock.add (new TransactionImpl (i,TransactionStatus.SUCCESSFUL,"Sender_1","Receiver_1",10));
+        }
+        int cold = chainblock.getColdCount ();
+        chainblock.changeTransactionStatus (1,TransactionStatus.ABORTED);
+        assertEquals (cold - 1,chainblock.getColdCount ());
+        assertEquals (TransactionStatus.ABORTED,chainblock.getById (1).getStatus ());
+        assertEquals (List.of (1,2,3,4,5,6,7,8,9,10),ids (chainblock));
+    }
+
+    @Test
+    public void testRemovingColdTransactions () {
+        for (int i = 1; i <= 10; i++) {
+            chainblock.add (new TransactionImpl (i,TransactionStatus.SUCCESSFUL,"Sender_1","Receiver_1",i));
+        }
+        chainblock.removeTransactionById (1);
+        assertFalse (chainblock.contains (1));
+        assertEquals (9,chainblock.getCount ());
+        try {
+            chainblock.removeTransactionById (1);
+            fail ();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testColdRunsStayLogarithmic () {
+        chainblock.addAll (new TransactionGenerator (11).generate (2000));
+        for (int i = 0; i < 2000; i++) {
+            chainblock.changeTransactionStatus (i,TransactionStatus.SUCCESSFUL);
+            chainblock.add (new TransactionImpl (10_000 + i,TransactionStatus.SUCCESSFUL,"Sender_1","Receiver_1",i));
+        }
+        assertTrue (chainblock.getHotCount () <= 4);
+        assertTrue (chainblock.getRunCount () <= 13);
+    }
+
+    @Test
+    public void testResultsStayReadableAfterRunsAreMerged () {
+        for (int i = 1; i <= 10; i++) {
+            chainblock.add (new TransactionImpl (i,TransactionStatus.SUCCESSFUL,"Sender_1","Receiver_1",i));
+        }
+        List<Object> before = list (chainblock.getByTransactionStatus (TransactionStatus.SUCCESSFUL));
+        Iterable<Transaction> result = chainblock.getByTransactionStatus (TransactionStatus.SUCCESSFUL);
+        for (int i = 11; i <= 100; i++) {
+            chainblock.add (new TransactionImpl (i,TransactionStatus.SUCCESSFUL,"Sender_1","Receiver_1",i));
+        }
+        assertEquals (before,list (result));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullStatusQueryThrows () {
+        chainblock.add (new TransactionImpl (1,null,"Sender_1","Receiver_1",1));
+        chainblock.getByTransactionStatus (null);
+    }
+
+    @Test
+    public void testColdFilesAreDeletedOnClose () throws IOException {
+        for (int i = 1; i <= 10; i++) {
+            chainblock.add (new TransactionImpl (i,TransactionStatus.SUCCESSFUL,"Sender_1","Receiver_1",i));
+        }
+        assertTrue (coldFiles () > 0);
+        chainblock.close ();
+        assertEquals (0,coldFiles ());
+    }
+
+    @Test
+    public void testQueriesMatchSingleTier () {
+        ChainblockImpl reference = new ChainblockImpl ();
+        Random         random    = new Random (5);
+        for (Transaction transaction : new TransactionGenerator (3).generate (3000)) {
+            // few distinct amounts, so ties have to come out in insertion order across tiers
+            Transaction copy = new TransactionImpl (transaction.getId (),transaction.getStatus (),transaction.getSender (),
+                    transaction.getReceiver (),Math.floor (transaction.getAmount () / 50));
+            reference.add (copy);
+            chainblock.add (new TransactionImpl (copy.getId (),copy.getStatus (),copy.getSender (),copy.getReceiver (),copy.getAmount ()));
+            int id = random.nextInt (transaction.getId () + 1);
+            if (random.nextInt (10) == 0 && reference.contains (id)) {
+                reference.removeTransactionById (id);
+                chainblock.removeTransactionById (id);
+            } else if (random.nextInt (4) == 0 && reference.contains (id)) {
+                TransactionStatus status = TransactionStatus.values ()[random.nextInt (TransactionStatus.values ().length)];
+                reference.changeTransactionStatus (id,status);
+                chainblock.changeTransactionStatus (id,status);
+            }
+        }
+        assertTrue (chainblock.getColdCount () > 0);
+        assertEquals (reference.getCount (),chainblock.getCount ());
+        assertEquals (list (reference),list (chainblock));
+        assertEquals (list (reference.getAllOrderedByAmountDescendingThenById ()),list (chainblock.getAllOrderedByAmountDescendingThenById ()));
+        assertEquals (list (reference.getAllInAmountRange (2,5)),list (chainblock.getAllInAmountRange (2,5)));
+        for (TransactionStatus status : TransactionStatus.values ()) {
+            assertSameOutcome (reference,chainblock,c -> c.getByTransactionStatus (status));
+            assertSameOutcome (reference,chainblock,c -> c.getAllReceiversWithTransactionStatus (status));
+            assertSameOutcome (reference,chainblock,c -> c.getByTransactionStatusAndMaximumAmount (status,4));
+        }
+        for (int party = 0; party < 30; party++) {
+            String sender   = "Sender_" + party;
+            String receiver = "Receiver_" + party;
+            assertSameOutcome (reference,chainblock,c -> c.getBySenderOrderedByAmountDescending (sender));
+            assertSameOutcome (reference,chainblock,c -> c.getByReceiverOrderedByAmountThenById (receiver));
+            assertSameOutcome (reference,chainblock,c -> c.getBySenderAndMinimumAmountDescending (sender,3));
+            assertSameOutcome (reference,chainblock,c -> c.getByReceiverAndAmountRange (receiver,1,4));
+        }
+        for (int id = 0; id < 3000; id += 7) {
+            int lookup = id;
+            assertEquals (reference.contains (id),chainblock.contains (id));
+            assertEquals (outcome (() -> List.of (reference.getById (lookup))),outcome (() -> List.of (chainblock.getById (lookup))));
+        }
+    }
+
+    // Helper Methods //
+
+    private static void assertSameOutcome (Chainblock expected,Chainblock actual,Function<Chainblock, Iterable<?>> query) {
+        assertEquals (outcome (() -> query.apply (expected)),outcome (() -> query.apply (actual)));
+    }
+
+    private static List<Object> outcome (Supplier<Iterable<?>> query) {
+        try {
+            return list (query.get ());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static List<Object> list (Iterable<?> items) {
+        List<Object> list = new ArrayList<> ();
+        items.forEach (list::add);
+        return list;
+    }
+
+    private static List<Integer> ids (Iterable<Transaction> transactions) {
+        List<Integer> ids = new ArrayList<> ();
+        for (Transaction transaction : transactions) {
+            ids.add (transaction.getId ());
+        }
+        return ids;
+    }
+
+    private long coldFiles () throws IOException {
+        try (Stream<Path> files = Files.list (directory)) {
+            return files.filter (p -> p.toString ().endsWith (ColdRun.SUFFIX)).count ();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TransactionBufferTest {
+
+    @Test
+    public void testAppendedTransactionReadsBackThroughFlyweight () {
+        TransactionBuffer buffer = TransactionBuffer.allocate ();
+        int               row    = buffer.append (new TransactionImpl (7,TransactionStatus.ABORTED,"Sender_1","Receiver_1",12.5));
+        BufferTransaction t      = buffer.get (row);
+        assertEquals (7,t.getId ());
+        assertEquals (TransactionStatus.ABORTED,t.getStatus ());
+        assertEquals ("Sender_1",t.getSender ());
+        assertEquals ("Receiver_1",t.getReceiver ());
+        assertEquals (12.5,t.getAmount (),0.0);
+    }
+
+    @Test
+    public void testDirectBufferGrowsAcrossChunksAndKeepsFlyweightsValid () {
+        TransactionBuffer       buffer     = TransactionBuffer.allocateDirect (2);
+        List<BufferTransaction> flyweights  = new ArrayList<> ();
+        for (int i = 0; i < 5; i++) {
+            flyweights.add (buffer.add (new TransactionImpl (i,TransactionStatus.SUCCESSFUL,"S" + i % 2,"R",i)));
+        }
+        flyweights.get (0).setStatus (TransactionStatus.FAILED);
+        assertEquals (5,buffer.size ());
+        assertEquals (3,buffer.getParties ().size ());
+        assertEquals (TransactionStatus.FAILED,buffer.get (0).getStatus ());
+        for (int i = 0; i < 5; i++) {
+            assertEquals (i,flyweights.get (i).getId ());
+            assertEquals (i,flyweights.get (i).getAmount (),0.0);
+        }
+    }
+
+    @Test
+    public void testPartiesAreStoredAsDictionaryIds () {
+        TransactionBuffer buffer = TransactionBuffer.allocate ();
+        BufferTransaction first  = buffer.add (new TransactionImpl (1,TransactionStatus.SUCCESSFUL,"Sender","Receiver",1));
+        BufferTransaction second = buffer.add (new TransactionImpl (2,TransactionStatus.SUCCESSFUL,"Receiver","Sender",2));
+        assertEquals (first.getSenderId (),second.getReceiverId ());
+        assertEquals (first.getReceiverId (),second.getSenderId ());
+    }
+
+    @Test
+    public void testWrapRepointsFlyweightWithoutCopying () {
+        TransactionBuffer buffer = TransactionBuffer.allocate ();
+        buffer.append (new TransactionImpl (1,TransactionStatus.SUCCESSFUL,"S","R",1));
+        buffer.append (new TransactionImpl (2,TransactionStatus.FAILED,"S","R",2));
+        BufferTransaction flyweight = buffer.get (0);
+        assertSame (flyweight,buffer.get (1,flyweight));
+        assertEquals (2,flyweight.getId ());
+    }
+
+    @Test
+    public void testEqualFlyweightsHaveEqualHashCodes () {
+        TransactionBuffer buffer = TransactionBuffer.allocate ();
+        buffer.append (new TransactionImpl (1,TransactionStatus.SUCCESSFUL,"S","R",1));
+        assertEquals (buffer.get (0),buffer.get (0));
+        assertEquals (buffer.get (0).hashCode (),buffer.get (0).hashCode ());
+    }
+
+    @Test
+    public void testNullStatusRoundTripsThroughFlyweight () {
+        TransactionBuffer buffer = TransactionBuffer.allocate ();
+        BufferTransaction t      = buffer.add (new TransactionImpl (1,null,"S","R",1));
+        assertNull (t.getStatus ());
+        assertEquals (t.hashCode (),buffer.get (0).hashCode ());
+        t.setStatus (TransactionStatus.FAILED);
+        t.setStatus (null);
+        assertNull (buffer.get (0).getStatus ());
+    }
+
+    @Test
+    public void testFlyweightsWorkAsChainblockTransactions () {
+        TransactionBuffer buffer     = TransactionBuffer.allocateDirect ();
+        Chainblock        chainblock = new ChainblockImpl ();
+        chainblock.add (buffer.add (new TransactionImpl (1,TransactionStatus.SUCCESSFUL,"S","R",10)));
+        chainblock.add (buffer.add (new TransactionImpl (2,TransactionStatus.SUCCESSFUL,"S","R",20)));
+        chainblock.changeTransactionStatus (1,TransactionStatus.FAILED);
+        assertEquals (TransactionStatus.FAILED,buffer.get (0).getStatus ());
+        assertEquals (2,chainblock.getBySenderOrderedByAmountDescending ("S").iterator ().next ().getId ());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetThrowsExceptionForRowOutsideBuffer () {
+        TransactionBuffer.allocate ().get (0);
+    }
+}
@@ -0,0 +1,50 @@
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TransactionGeneratorTest {
+
+    @Test
+    public void testSameSeedGeneratesSameTransactions () {
+        List<Transaction> first  = new TransactionGenerator (7).generate (1000);
+        List<Transaction> second = new TransactionGenerator (7).generate (1000);
+        for (int i = 0; i < first.size (); i++) {
+            assertEquals (first.get (i),second.get (i));
+            assertEquals (first.get (i).getSender (),second.get (i).getSender ());
+            assertEquals (first.get (i).getAmount (),second.get (i).getAmount (),0.0);
+        }
+        assertEquals (999,first.get (999).getId ());
+    }
+
+    @Test
+    public void testSkewConcentratesTrafficOnTopRankedParties () {
+        Map<String, Integer> senders   = new HashMap<> ();
+        TransactionGenerator generator = new TransactionGenerator (1).withParties (100).withPartySkew (1.2);
+        for (Transaction t : generator.generate (20_000)) {
+            senders.merge (t.getSender (),1,Integer::sum);
+        }
+        assertTrue (senders.get (generator.sender (1)) > 10 * senders.getOrDefault (generator.sender (100),1));
+        assertTrue (senders.size () <= 100);
+    }
+
+    @Test
+    public void testStatusWeightsAndAmountsAreRespected () {
+        List<Transaction> transactions = new TransactionGenerator (3)
+                .withStatusWeights (0,1,0,1)
+                .withAmounts (50,0)
+                .generate (1000);
+        for (Transaction t : transactions) {
+            assertTrue (t.getStatus () == TransactionStatus.SUCCESSFUL || t.getStatus () == TransactionStatus.UNAUTHORIZED);
+            assertEquals (50,t.getAmount (),0.0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongNumberOfStatusWeightsThrowsException () {
+        new TransactionGenerator (3).withStatusWeights (1,1);
+    }
+}
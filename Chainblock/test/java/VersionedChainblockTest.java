@@ -0,0 +1,137 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class VersionedChainblockTest {
+    private VersionedChainblock chainblock;
+
+    @Before
+    public void setUp () {
+        chainblock = new VersionedChainblock (new ChainblockImpl ());
+    }
+
+    @Test
+    public void testAsOfSeesStatusBeforeLaterChange () {
+        chainblock.add (new TransactionImpl (1,TransactionStatus.FAILED,"Sender_1","Receiver_1",10));
+        chainblock.add (new TransactionImpl (2,TransactionStatus.FAILED,"Sender_2","Receiver_2",20));
+        long cutoff = chainblock.getSequence ();
+        chainblock.changeTransactionStatus (1,TransactionStatus.SUCCESSFUL);
+        chainblock.removeTransactionById (2);
+        assertEquals (List.of (2,1),ids (chainblock.asOf (cutoff).getByTransactionStatus (TransactionStatus.FAILED)));
+        assertEquals (TransactionStatus.SUCCESSFUL,chainblock.getById (1).getStatus ());
+        assertEquals (0,chainblock.asOf (0).getCount ());
+        assertEquals (1,chainblock.asOf (chainblock.getSequence ()).getCount ());
+    }
+
+    @Test
+    public void testAsOfMatchesReplayedChainblockAtEverySequence () {
+        Random               random   = new Random (3);
+        List<ChainblockImpl> replayed = new ArrayList<> ();
+        ChainblockImpl       expected = new ChainblockImpl ();
+        replayed.add (copy (expected));
+        for (int i = 0; i < 300; i++) {
+            int id = random.nextInt (40);
+            if (!expected.contains (id)) {
+                Transaction transaction = new TransactionImpl (id,TransactionStatus.values ()[random.nextInt (4)],
+                        "Sender_" + random.nextInt (5),"Receiver_" + random.nextInt (5),random.nextInt (50));
+                expected.add (new TransactionImpl (id,transaction.getStatus (),transaction.getSender (),transaction.getReceiver (),transaction.getAmount ()));
+                chainblock.add (transaction);
+            } else if (random.nextBoolean ()) {
+                expected.changeTransactionStatus (id,TransactionStatus.values ()[random.nextInt (4)]);
+                chainblock.changeTransactionStatus (id,expected.getById (id).getStatus ());
+            } else {
+                expected.removeTransactionById (id);
+                chainblock.removeTransactionById (id);
+            }
+            replayed.add (copy (expected));
+        }
+        assertEquals (replayed.size () - 1,chainblock.getSequence ());
+        for (int sequence = 0; sequence < replayed.size (); sequence++) {
+            assertEquals (states (replayed.get (sequence)),states (chainblock.asOf (sequence)));
+        }
+    }
+
+    @Test
+    public void testRetentionPrunesVersionsBeforeHorizon () {
+        chainblock = new VersionedChainblock (new ChainblockImpl (),10);
+        chainblock.add (new TransactionImpl (1,TransactionStatus.FAILED,"Sender_1","Receiver_1",10));
+        chainblock.add (new TransactionImpl (2,TransactionStatus.FAILED,"Sender_2","Receiver_2",20));
+        chainblock.removeTransactionById (2);
+        for (int i = 0; i < 100; i++) {
+            chainblock.changeTransactionStatus (1,TransactionStatus.values ()[i % 4]);
+        }
+        assertEquals (94,chainblock.getHorizon ());
+        assertTrue (chainblock.getVersionCount () <= 10);
+        assertEquals (TransactionStatus.values ()[90 % 4],chainblock.asOf (94).getById (1).getStatus ());
+        assertFalse (chainblock.asOf (94).contains (2));
+    }
+
+    @Test
+    public void testAsOfReusesSnapshotForSameSequence () {
+        chainblock.add (new TransactionImpl (1,TransactionStatus.FAILED,"Sender_1","Receiver_1",10));
+        long cutoff = chainblock.getSequence ();
+        Chainblock snapshot = chainblock.asOf (cutoff);
+        chainblock.changeTransactionStatus (1,TransactionStatus.SUCCESSFUL);
+        assertSame (snapshot,chainblock.asOf (cutoff));
+        assertEquals (TransactionStatus.FAILED,snapshot.getById (1).getStatus ());
+        assertEquals (TransactionStatus.SUCCESSFUL,chainblock.asOf (chainblock.getSequence ()).getById (1).getStatus ());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAsOfSnapshotRejectsChanges () {
+        chainblock.add (new TransactionImpl (1,TransactionStatus.FAILED,"Sender_1","Receiver_1",10));
+        chainblock.asOf (1).removeTransactionById (1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAsOfThrowsExceptionBeforeHorizon () {
+        chainblock = new VersionedChainblock (new ChainblockImpl (),2);
+        for (int i = 1; i <= 5; i++) {
+            chainblock.add (new TransactionImpl (i,TransactionStatus.FAILED,"Sender_1","Receiver_1",i));
+        }
+        chainblock.asOf (3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAsOfThrowsExceptionForFutureSequence () {
+        chainblock.asOf (1);
+    }
+
+    @Test
+    public void testFailedMutationDoesNotTakeSequence () {
+        try {
+            chainblock.removeTransactionById (7);
+            fail ();
+        } catch (IllegalArgumentException expected) {
+            assertEquals (0,chainblock.getSequence ());
+        }
+    }
+
+    // Helper Methods //
+
+    private static ChainblockImpl copy (ChainblockImpl chainblock) {
+        ChainblockImpl copy = new ChainblockImpl ();
+        for (Transaction transaction : chainblock) {
+            copy.add (new TransactionImpl (transaction.getId (),transaction.getStatus (),transaction.getSender (),
+                    transaction.getReceiver (),transaction.getAmount ()));
+        }
+        return copy;
+    }
+
+    private static List<Transaction> states (Chainblock chainblock) {
+        List<Transaction> states = new ArrayList<> ();
+        chainblock.forEach (states::add);
+        return states;
+    }
+
+    private static List<Integer> ids (Iterable<Transaction> transactions) {
+        List<Integer> ids = new ArrayList<> ();
+        transactions.forEach (t -> ids.add (t.getId ()));
+        return ids;
+    }
+}
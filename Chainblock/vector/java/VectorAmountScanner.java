@@ -0,0 +1,78 @@
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// AmountScanner on the incubating Vector API. Rows are evaluated in blocks of 64: the
+// amount and status comparisons of a block are packed into one long each and the rows
+// are read off the set bits. Only compiled with -Pvector; AmountScanner.BEST falls back
+// to ScalarAmountScanner when the module is not there.
+public class VectorAmountScanner implements AmountScanner {
+    private static final int BLOCK = 64;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED.length () <= BLOCK
+            ? ByteVector.SPECIES_PREFERRED
+            : ByteVector.SPECIES_512;
+
+    public int scan (double[] amounts,byte[] statuses,int from,int to,double lo,double hi,int statusMask,int[] rows) {
+        byte[] codes = codes (statusMask);
+        int    count = 0;
+        int    row   = from;
+        for (; row + BLOCK <= to; row += BLOCK) {
+            long matches = amountBits (amounts,row,lo,hi);
+            if (matches != 0 && codes != null) {
+                matches &= statusBits (statuses,row,codes);
+            }
+            while (matches != 0) {
+                rows[count++] = row + Long.numberOfTrailingZeros (matches);
+                matches &= matches - 1;
+            }
+        }
+        for (; row < to; row++) {
+            double amount = amounts[row];
+            if (amount >= lo && amount <= hi && (statusMask & 1 << statuses[row]) != 0) {
+                rows[count++] = row;
+            }
+        }
+        return count;
+    }
+
+    private static long amountBits (double[] amounts,int row,double lo,double hi) {
+        long bits = 0;
+        for (int i = 0; i < BLOCK; i += DOUBLES.length ()) {
+            DoubleVector       v    = DoubleVector.fromArray (DOUBLES,amounts,row + i);
+            VectorMask<Double> mask = v.compare (VectorOperators.GE,lo).and (v.compare (VectorOperators.LE,hi));
+            bits |= mask.toLong () << i;
+        }
+        return bits;
+    }
+
+    private static long statusBits (byte[] statuses,int row,byte[] codes) {
+        long bits = 0;
+        for (int i = 0; i < BLOCK; i += BYTES.length ()) {
+            ByteVector       v    = ByteVector.fromArray (BYTES,statuses,row + i);
+            VectorMask<Byte> mask = v.compare (VectorOperators.EQ,codes[0]);
+            for (int c = 1; c < codes.length; c++) {
+                mask = mask.or (v.compare (VectorOperators.EQ,codes[c]));
+            }
+            bits |= mask.toLong () << i;
+        }
+        return bits;
+    }
+
+    // The status codes in the mask, or null when every status matches.
+    private static byte[] codes (int statusMask) {
+        if ((statusMask & ANY_STATUS) == ANY_STATUS) {
+            return null;
+        }
+        byte[] codes = new byte[Integer.bitCount (statusMask & ANY_STATUS)];
+        int    next  = 0;
+        for (int code = 0; code < Integer.SIZE; code++) {
+            if ((statusMask & ANY_STATUS & 1 << code) != 0) {
+                codes[next++] = (byte) code;
+            }
+        }
+        return codes.length == 0 ? new byte[]{-1} : codes;
+    }
+}
@@ -0,0 +1,95 @@
+// Every Chainblock and ProductStock call the query server answers. The ordinal is the
+// operation code on the wire; new operations go at the end so codes stay stable.
+public enum Operation {
+    CHAINBLOCK_COUNT (false,Kind.INT),
+    CHAINBLOCK_ADD (true,Kind.VOID,Kind.TRANSACTION),
+    CHAINBLOCK_ADD_ALL (true,Kind.VOID,Kind.TRANSACTIONS),
+    CHAINBLOCK_CONTAINS_TRANSACTION (false,Kind.BOOLEAN,Kind.TRANSACTION),
+    CHAINBLOCK_CONTAINS (false,Kind.BOOLEAN,Kind.INT),
+    CHAINBLOCK_CHANGE_STATUS (true,Kind.VOID,Kind.INT,Kind.STATUS),
+    CHAINBLOCK_REMOVE (true,Kind.VOID,Kind.INT),
+    CHAINBLOCK_GET_BY_ID (false,Kind.TRANSACTION,Kind.INT),
+    CHAINBLOCK_BY_STATUS (false,Kind.TRANSACTIONS,Kind.STATUS),
+    CHAINBLOCK_SENDERS_WITH_STATUS (false,Kind.STRINGS,Kind.STATUS),
+    CHAINBLOCK_RECEIVERS_WITH_STATUS (false,Kind.STRINGS,Kind.STATUS),
+    CHAINBLOCK_ORDERED_BY_AMOUNT (false,Kind.TRANSACTIONS),
+    CHAINBLOCK_BY_SENDER (false,Kind.TRANSACTIONS,Kind.STRING),
+    CHAINBLOCK_BY_RECEIVER (false,Kind.TRANSACTIONS,Kind.STRING),
+    CHAINBLOCK_BY_STATUS_AND_MAXIMUM_AMOUNT (false,Kind.TRANSACTIONS,Kind.STATUS,Kind.DOUBLE),
+    CHAINBLOCK_BY_SENDER_AND_MINIMUM_AMOUNT (false,Kind.TRANSACTIONS,Kind.STRING,Kind.DOUBLE),
+    CHAINBLOCK_BY_RECEIVER_AND_AMOUNT_RANGE (false,Kind.TRANSACTIONS,Kind.STRING,Kind.DOUBLE,Kind.DOUBLE),
+    CHAINBLOCK_IN_AMOUNT_RANGE (false,Kind.TRANSACTIONS,Kind.DOUBLE,Kind.DOUBLE),
+    CHAINBLOCK_ALL (false,Kind.TRANSACTIONS),
+    STOCK_COUNT (false,Kind.INT),
+    STOCK_CONTAINS (false,Kind.BOOLEAN,Kind.PRODUCT),
+    STOCK_ADD (true,Kind.VOID,Kind.PRODUCT),
+    STOCK_CHANGE_QUANTITY (true,Kind.VOID,Kind.STRING,Kind.INT),
+    STOCK_FIND (false,Kind.PRODUCT,Kind.INT),
+    STOCK_FIND_BY_LABEL (false,Kind.PRODUCT,Kind.STRING),
+    STOCK_FIRST_BY_ALPHABETICAL_ORDER (false,Kind.PRODUCTS,Kind.INT),
+    STOCK_IN_RANGE (false,Kind.PRODUCTS,Kind.DOUBLE,Kind.DOUBLE),
+    STOCK_BY_PRICE (false,Kind.PRODUCTS,Kind.DOUBLE),
+    STOCK_FIRST_MOST_EXPENSIVE (false,Kind.PRODUCTS,Kind.INT),
+    STOCK_BY_QUANTITY (false,Kind.PRODUCTS,Kind.INT),
+    STOCK_ALL (false,Kind.PRODUCTS);
+
+    private static final Operation[] VALUES = values ();
+
+    private final boolean write;
+    private final Kind result;
+    private final Kind[] parameters;
+
+    Operation (boolean write,Kind result,Kind... parameters) {
+        this.write = write;
+        this.result = result;
+        this.parameters = parameters;
+    }
+
+    // null for a code no operation has
+    public static Operation of (int code) {
+        return code >= 0 && code < VALUES.length ? VALUES[code] : null;
+    }
+
+    public byte code () {
+        return (byte) ordinal ();
+    }
+
+    public boolean isWrite () {
+        return this.write;
+    }
+
+    public boolean isStock () {
+        return name ().startsWith ("STOCK_");
+    }
+
+    public Kind getResult () {
+        return this.result;
+    }
+
+    public Kind[] getParameters () {
+        return this.parameters.clone ();
+    }
+
+    int getParameterCount () {
+        return this.parameters.length;
+    }
+
+    Kind getParameter (int index) {
+        return this.parameters[index];
+    }
+
+    // How a value is laid out on the wire, see WireFormat.
+    public enum Kind {
+        VOID,
+        BOOLEAN,
+        INT,
+        DOUBLE,
+        STRING,
+        STATUS,
+        TRANSACTION,
+        PRODUCT,
+        STRINGS,
+        TRANSACTIONS,
+        PRODUCTS
+    }
+}
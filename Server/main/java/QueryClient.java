@@ -0,0 +1,157 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayDeque;
+
+// One connection to a QueryServer. send() only buffers a request, so any number can be in
+// flight before the responses are read back with receive(), oldest first. Not thread-safe:
+// use one client per thread.
+public class QueryClient implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final OutputStream out;
+    private final WireFormat.Frame frame;
+    private final DataOutputStream frameOut;
+    private final ArrayDeque<Operation> pending;
+    private boolean unflushed;
+    private int nextId;
+
+    public QueryClient (int port) throws IOException {
+        this (InetAddress.getLoopbackAddress ().getHostAddress (),port);
+    }
+
+    public QueryClient (String host,int port) throws IOException {
+        this.socket = new Socket (host,port);
+        this.socket.setTcpNoDelay (true);
+        this.in = new DataInputStream (new BufferedInputStream (this.socket.getInputStream (),BUFFER_SIZE));
+        this.out = new BufferedOutputStream (this.socket.getOutputStream (),BUFFER_SIZE);
+        this.frame = new WireFormat.Frame ();
+        this.frameOut = new DataOutputStream (this.frame);
+        this.pending = new ArrayDeque<> ();
+    }
+
+    // Buffers a request and returns its id; the arguments follow the operation's parameters.
+    public int send (Operation operation,Object... arguments) throws IOException {
+        if (arguments.length != operation.getParameterCount ()) {
+            throw new IllegalArgumentException ();
+        }
+        int requestId = this.nextId++;
+        this.frame.begin (requestId,operation.code ());
+        for (int i = 0; i < arguments.length; i++) {
+            WireFormat.write (this.frameOut,operation.getParameter (i),arguments[i]);
+        }
+        if (this.frame.isOverflowed ()) {
+            throw new IllegalArgumentException ("request exceeds " + WireFormat.MAX_FRAME + " bytes");
+        }
+        this.frame.end ();
+        this.frame.writeTo (this.out);
+        this.pending.add (operation);
+        this.unflushed = true;
+        return requestId;
+    }
+
+    public void flush () throws IOException {
+        if (this.unflushed) {
+            this.out.flush ();
+            this.unflushed = false;
+        }
+    }
+
+    public int getPendingCount () {
+        return this.pending.size ();
+    }
+
+    // Waits for the response to the oldest request in flight, flushing buffered requests first.
+    public Response receive () throws IOException {
+        Operation operation = this.pending.poll ();
+        if (operation == null) {
+            throw new IllegalStateException ();
+        }
+        flush ();
+        int length = this.in.readInt ();
+        if (length < Integer.BYTES + 1 || length > WireFormat.MAX_FRAME) {
+            throw new IOException ("bad frame length " + length);
+        }
+        int  requestId = this.in.readInt ();
+        byte status    = this.in.readByte ();
+        switch (status) {
+            case WireFormat.OK:
+                return new Response (requestId,operation,status,WireFormat.read (this.in,operation.getResult ()),null);
+            case WireFormat.UNKNOWN_OPERATION:
+                return new Response (requestId,operation,status,null,null);
+            default:
+                return new Response (requestId,operation,status,null,WireFormat.readString (this.in));
+        }
+    }
+
+    // Sends one request and waits for it. A rejected request throws IllegalArgumentException,
+    // like the store itself would; other failures throw IllegalStateException.
+    public Object call (Operation operation,Object... arguments) throws IOException {
+        if (!this.pending.isEmpty ()) {
+            throw new IllegalStateException ();
+        }
+        send (operation,arguments);
+        return receive ().getValue ();
+    }
+
+    @Override
+    public void close () throws IOException {
+        this.socket.close ();
+    }
+
+    public static final class Response {
+        private final int requestId;
+        private final Operation operation;
+        private final byte status;
+        private final Object value;
+        private final String message;
+
+        private Response (int requestId,Operation operation,byte status,Object value,String message) {
+            this.requestId = requestId;
+            this.operation = operation;
+            this.status = status;
+            this.value = value;
+            this.message = message;
+        }
+
+        public int getRequestId () {
+            return this.requestId;
+        }
+
+        public Operation getOperation () {
+            return this.operation;
+        }
+
+        public byte getStatus () {
+            return this.status;
+        }
+
+        public boolean isOk () {
+            return this.status == WireFormat.OK;
+        }
+
+        // The result, rethrowing a failed request as an exception.
+        public Object getValue () {
+            if (this.status == WireFormat.ILLEGAL_ARGUMENT) {
+                throw new IllegalArgumentException (this.message);
+            }
+            if (this.status != WireFormat.OK) {
+                throw new IllegalStateException (this.operation + " failed with status " + this.status
+                        + (this.message == null ? "" : ": " + this.message));
+            }
+            return this.value;
+        }
+
+        public String getMessage () {
+            return this.message;
+        }
+    }
+}
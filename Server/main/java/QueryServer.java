@@ -0,0 +1,314 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Serves a Chainblock and a ProductStock on a loopback TCP port using the protocol in
+// WireFormat. Each connection gets its own thread: a virtual thread when the JVM has them
+// (Java 21+), a pooled platform thread otherwise. A connection answers its requests in
+// order and only flushes once no further request is buffered, so pipelined requests share
+// writes. Neither store is thread-safe; queries run under a read lock and mutations under
+// the write lock of their store.
+public class QueryServer implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Chainblock chainblock;
+    private final ProductStock stock;
+    private final ReadWriteLock chainblockLock;
+    private final ReadWriteLock stockLock;
+    private final Set<Socket> connections;
+    private ExecutorService executor;
+    private boolean virtualThreads;
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+
+    public QueryServer (Chainblock chainblock,ProductStock stock) {
+        this.chainblock = chainblock;
+        this.stock = stock;
+        this.chainblockLock = new ReentrantReadWriteLock ();
+        this.stockLock = new ReentrantReadWriteLock ();
+        this.connections = ConcurrentHashMap.newKeySet ();
+    }
+
+    // java QueryServer [port]; 0 picks a free port.
+    public static void main (String[] args) throws IOException {
+        QueryServer server = new QueryServer (new ChainblockImpl (),new Instock (new ArrayList<> ()));
+        server.start (args.length > 0 ? Integer.parseInt (args[0]) : 7070);
+        System.out.println ("listening on " + server.getPort () + (server.usesVirtualThreads () ? " (virtual threads)" : ""));
+    }
+
+    // Binds to the loopback address only; the server has no authentication.
+    public synchronized QueryServer start (int port) throws IOException {
+        if (this.serverSocket != null) {
+            throw new IllegalStateException ();
+        }
+        this.serverSocket = new ServerSocket ();
+        this.serverSocket.bind (new InetSocketAddress (InetAddress.getLoopbackAddress (),port));
+        this.executor = virtualThreadExecutor ();
+        this.virtualThreads = this.executor != null;
+        if (this.executor == null) {
+            this.executor = Executors.newCachedThreadPool (r -> {
+                Thread thread = new Thread (r,"query-connection");
+                thread.setDaemon (true);
+                return thread;
+            });
+        }
+        this.acceptor = new Thread (this::accept,"query-acceptor");
+        this.acceptor.setDaemon (true);
+        this.acceptor.start ();
+        return this;
+    }
+
+    public int getPort () {
+        return this.serverSocket.getLocalPort ();
+    }
+
+    public boolean usesVirtualThreads () {
+        return this.virtualThreads;
+    }
+
+    public int getConnectionCount () {
+        return this.connections.size ();
+    }
+
+    // Stops accepting, drops every open connection and waits briefly for their threads.
+    @Override
+    public synchronized void close () throws IOException {
+        if (this.serverSocket == null) {
+            return;
+        }
+        this.serverSocket.close ();
+        for (Socket socket : this.connections) {
+            socket.close ();
+        }
+        this.executor.shutdown ();
+        try {
+            this.executor.awaitTermination (5,TimeUnit.SECONDS);
+            this.acceptor.join (5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread ().interrupt ();
+        }
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor is looked up reflectively so the server
+    // still compiles for and runs on releases without it.
+    private static ExecutorService virtualThreadExecutor () {
+        try {
+            return (ExecutorService) Executors.class.getMethod ("newVirtualThreadPerTaskExecutor").invoke (null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void accept () {
+        while (!this.serverSocket.isClosed ()) {
+            try {
+                Socket socket = this.serverSocket.accept ();
+                socket.setTcpNoDelay (true);
+                this.connections.add (socket);
+                try {
+                    this.executor.execute (() -> serve (socket));
+                } catch (RejectedExecutionException e) {
+                    this.connections.remove (socket);
+                    socket.close ();
+                }
+            } catch (IOException e) {
+                // closed by close(); anything else only loses that one connection
+            }
+        }
+    }
+
+    private void serve (Socket socket) {
+        try (socket) {
+            InputStream      input  = new BufferedInputStream (socket.getInputStream (),BUFFER_SIZE);
+            DataInputStream  in     = new DataInputStream (input);
+            OutputStream     output = new BufferedOutputStream (socket.getOutputStream (),BUFFER_SIZE);
+            WireFormat.Frame frame  = new WireFormat.Frame ();
+            byte[]           body   = new byte[256];
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt ();
+                } catch (EOFException e) {
+                    return;
+                }
+                if (length < Integer.BYTES + 1 || length > WireFormat.MAX_FRAME) {
+                    return;
+                }
+                if (body.length < length) {
+                    body = new byte[Math.max (length,body.length * 2)];
+                }
+                in.readFully (body,0,length);
+                respond (body,length,frame);
+                frame.writeTo (output);
+                if (input.available () == 0) {
+                    output.flush ();
+                }
+            }
+        } catch (SocketException e) {
+            // the client went away or close() dropped the connection
+        } catch (IOException e) {
+            // a broken frame; nothing can be answered on this stream any more
+        } finally {
+            this.connections.remove (socket);
+        }
+    }
+
+    private void respond (byte[] body,int length,WireFormat.Frame frame) throws IOException {
+        DataInputStream request   = new DataInputStream (new ByteArrayInputStream (body,0,length));
+        int             requestId = request.readInt ();
+        Operation       operation = Operation.of (request.readByte ());
+        if (operation == null) {
+            frame.begin (requestId,WireFormat.UNKNOWN_OPERATION);
+            frame.end ();
+            return;
+        }
+        DataOutputStream out       = new DataOutputStream (frame);
+        Object[]         arguments = new Object[operation.getParameterCount ()];
+        // the frame was read whole, so arguments that do not decode leave the stream intact
+        try {
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = WireFormat.read (request,operation.getParameter (i));
+            }
+        } catch (IOException e) {
+            frame.begin (requestId,WireFormat.ILLEGAL_ARGUMENT);
+            WireFormat.writeString (out,e.getMessage ());
+            frame.end ();
+            return;
+        }
+        ReadWriteLock lock = operation.isStock () ? this.stockLock : this.chainblockLock;
+        if (operation.isWrite ()) {
+            lock.writeLock ().lock ();
+        } else {
+            lock.readLock ().lock ();
+        }
+        // the result is encoded under the lock too, as the stores hand out live transactions
+        try {
+            Object result = operation.isStock () ? executeStock (operation,arguments) : executeChainblock (operation,arguments);
+            frame.begin (requestId,WireFormat.OK);
+            WireFormat.write (out,operation.getResult (),result);
+            if (frame.isOverflowed ()) {
+                frame.begin (requestId,WireFormat.FAILURE);
+                WireFormat.writeString (out,"response exceeds " + WireFormat.MAX_FRAME + " bytes");
+            }
+        } catch (IllegalArgumentException e) {
+            frame.begin (requestId,WireFormat.ILLEGAL_ARGUMENT);
+            WireFormat.writeString (out,e.getMessage ());
+        } catch (RuntimeException e) {
+            frame.begin (requestId,WireFormat.FAILURE);
+            WireFormat.writeString (out,e.toString ());
+        } finally {
+            if (operation.isWrite ()) {
+                lock.writeLock ().unlock ();
+            } else {
+                lock.readLock ().unlock ();
+            }
+        }
+        frame.end ();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object executeChainblock (Operation operation,Object[] a) {
+        Chainblock c = this.chainblock;
+        switch (operation) {
+            case CHAINBLOCK_COUNT:
+                return c.getCount ();
+            case CHAINBLOCK_ADD:
+                c.add ((Transaction) a[0]);
+                return null;
+            case CHAINBLOCK_ADD_ALL:
+                c.addAll ((Iterable<Transaction>) a[0]);
+                return null;
+            case CHAINBLOCK_CONTAINS_TRANSACTION:
+                return c.contains ((Transaction) a[0]);
+            case CHAINBLOCK_CONTAINS:
+                return c.contains ((int) (Integer) a[0]);
+            case CHAINBLOCK_CHANGE_STATUS:
+                c.changeTransactionStatus ((Integer) a[0],(TransactionStatus) a[1]);
+                return null;
+            case CHAINBLOCK_REMOVE:
+                c.removeTransactionById ((Integer) a[0]);
+                return null;
+            case CHAINBLOCK_GET_BY_ID:
+                return c.getById ((Integer) a[0]);
+            case CHAINBLOCK_BY_STATUS:
+                return c.getByTransactionStatus ((TransactionStatus) a[0]);
+            case CHAINBLOCK_SENDERS_WITH_STATUS:
+                return c.getAllSendersWithTransactionStatus ((TransactionStatus) a[0]);
+            case CHAINBLOCK_RECEIVERS_WITH_STATUS:
+                return c.getAllReceiversWithTransactionStatus ((TransactionStatus) a[0]);
+            case CHAINBLOCK_ORDERED_BY_AMOUNT:
+                return c.getAllOrderedByAmountDescendingThenById ();
+            case CHAINBLOCK_BY_SENDER:
+                return c.getBySenderOrderedByAmountDescending ((String) a[0]);
+            case CHAINBLOCK_BY_RECEIVER:
+                return c.getByReceiverOrderedByAmountThenById ((String) a[0]);
+            case CHAINBLOCK_BY_STATUS_AND_MAXIMUM_AMOUNT:
+                return c.getByTransactionStatusAndMaximumAmount ((TransactionStatus) a[0],(Double) a[1]);
+            case CHAINBLOCK_BY_SENDER_AND_MINIMUM_AMOUNT:
+                return c.getBySenderAndMinimumAmountDescending ((String) a[0],(Double) a[1]);
+            case CHAINBLOCK_BY_RECEIVER_AND_AMOUNT_RANGE:
+                return c.getByReceiverAndAmountRange ((String) a[0],(Double) a[1],(Double) a[2]);
+            case CHAINBLOCK_IN_AMOUNT_RANGE:
+                return c.getAllInAmountRange ((Double) a[0],(Double) a[1]);
+            case CHAINBLOCK_ALL:
+                return c;
+            default:
+                throw new IllegalStateException (operation.name ());
+        }
+    }
+
+    private Object executeStock (Operation operation,Object[] a) {
+        ProductStock s = this.stock;
+        switch (operation) {
+            case STOCK_COUNT:
+                return s.getCount ();
+            case STOCK_CONTAINS:
+                return s.contains ((Product) a[0]);
+            case STOCK_ADD:
+                s.add ((Product) a[0]);
+                return null;
+            case STOCK_CHANGE_QUANTITY:
+                s.changeQuantity ((String) a[0],(Integer) a[1]);
+                return null;
+            case STOCK_FIND:
+                return s.find ((Integer) a[0]);
+            case STOCK_FIND_BY_LABEL:
+                return s.findByLabel ((String) a[0]);
+            case STOCK_FIRST_BY_ALPHABETICAL_ORDER:
+                return s.findFirstByAlphabeticalOrder ((Integer) a[0]);
+            case STOCK_IN_RANGE:
+                return s.findAllInRange ((Double) a[0],(Double) a[1]);
+            case STOCK_BY_PRICE:
+                return s.findAllByPrice ((Double) a[0]);
+            case STOCK_FIRST_MOST_EXPENSIVE:
+                return s.findFirstMostExpensiveProducts ((Integer) a[0]);
+            case STOCK_BY_QUANTITY:
+                return s.findAllByQuantity ((Integer) a[0]);
+            case STOCK_ALL:
+                return s;
+            default:
+                throw new IllegalStateException (operation.name ());
+        }
+    }
+}
@@ -0,0 +1,243 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Binary layout of the query protocol. Every frame starts with its length, excluding the
+// length field itself:
+//   request:  int length, int requestId, byte operation, parameters
+//   response: int length, int requestId, byte status, result or error message
+// Responses come back in request order on each connection, so a client can pipeline any
+// number of requests and still match them up by id. Values are big-endian as written by
+// DataOutput; strings are a UTF-8 byte count (-1 for null) and the bytes, transactions
+// and products carry a presence flag, lists a count. A response that would not fit in
+// MAX_FRAME is answered with FAILURE instead.
+public final class WireFormat {
+    public static final byte OK = 0;
+    public static final byte ILLEGAL_ARGUMENT = 1;
+    public static final byte FAILURE = 2;
+    public static final byte UNKNOWN_OPERATION = 3;
+
+    // Frames above this are treated as a broken stream rather than allocated.
+    public static final int MAX_FRAME = 64 * 1024 * 1024;
+
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values ();
+
+    private WireFormat () {
+    }
+
+    public static void write (DataOutput out,Operation.Kind kind,Object value) throws IOException {
+        switch (kind) {
+            case VOID:
+                break;
+            case BOOLEAN:
+                out.writeBoolean ((Boolean) value);
+                break;
+            case INT:
+                out.writeInt ((Integer) value);
+                break;
+            case DOUBLE:
+                out.writeDouble ((Double) value);
+                break;
+            case STRING:
+                writeString (out,(String) value);
+                break;
+            case STATUS:
+                out.writeByte (value == null ? -1 : ((TransactionStatus) value).ordinal ());
+                break;
+            case TRANSACTION:
+                writeTransaction (out,(Transaction) value);
+                break;
+            case PRODUCT:
+                writeProduct (out,(Product) value);
+                break;
+            case STRINGS:
+                writeList (out,Operation.Kind.STRING,(Iterable<?>) value);
+                break;
+            case TRANSACTIONS:
+                writeList (out,Operation.Kind.TRANSACTION,(Iterable<?>) value);
+                break;
+            case PRODUCTS:
+                writeList (out,Operation.Kind.PRODUCT,(Iterable<?>) value);
+                break;
+            default:
+                throw new IllegalArgumentException (kind.name ());
+        }
+    }
+
+    public static Object read (DataInput in,Operation.Kind kind) throws IOException {
+        switch (kind) {
+            case VOID:
+                return null;
+            case BOOLEAN:
+                return in.readBoolean ();
+            case INT:
+                return in.readInt ();
+            case DOUBLE:
+                return in.readDouble ();
+            case STRING:
+                return readString (in);
+            case STATUS:
+                byte status = in.readByte ();
+                if (status < -1 || status >= STATUSES.length) {
+                    throw new IOException ("bad status " + status);
+                }
+                return status < 0 ? null : STATUSES[status];
+            case TRANSACTION:
+                return readTransaction (in);
+            case PRODUCT:
+                return readProduct (in);
+            case STRINGS:
+                return readList (in,Operation.Kind.STRING);
+            case TRANSACTIONS:
+                return readList (in,Operation.Kind.TRANSACTION);
+            case PRODUCTS:
+                return readList (in,Operation.Kind.PRODUCT);
+            default:
+                throw new IllegalArgumentException (kind.name ());
+        }
+    }
+
+    public static void writeString (DataOutput out,String value) throws IOException {
+        if (value == null) {
+            out.writeInt (-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes (StandardCharsets.UTF_8);
+        out.writeInt (utf8.length);
+        out.write (utf8);
+    }
+
+    public static String readString (DataInput in) throws IOException {
+        int length = in.readInt ();
+        if (length < -1 || length > MAX_FRAME) {
+            throw new IOException ("bad string length " + length);
+        }
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.readFully (utf8);
+        return new String (utf8,StandardCharsets.UTF_8);
+    }
+
+    private static void writeTransaction (DataOutput out,Transaction transaction) throws IOException {
+        out.writeBoolean (transaction != null);
+        if (transaction != null) {
+            out.writeInt (transaction.getId ());
+            write (out,Operation.Kind.STATUS,transaction.getStatus ());
+            writeString (out,transaction.getSender ());
+            writeString (out,transaction.getReceiver ());
+            out.writeDouble (transaction.getAmount ());
+        }
+    }
+
+    private static Transaction readTransaction (DataInput in) throws IOException {
+        if (!in.readBoolean ()) {
+            return null;
+        }
+        int               id       = in.readInt ();
+        TransactionStatus status   = (TransactionStatus) read (in,Operation.Kind.STATUS);
+        String            sender   = readString (in);
+        String            receiver = readString (in);
+        return new TransactionImpl (id,status,sender,receiver,in.readDouble ());
+    }
+
+    private static void writeProduct (DataOutput out,Product product) throws IOException {
+        out.writeBoolean (product != null);
+        if (product != null) {
+            writeString (out,product.getLabel ());
+            out.writeDouble (product.getPrice ());
+            out.writeInt (product.getQuantity ());
+        }
+    }
+
+    private static Product readProduct (DataInput in) throws IOException {
+        if (!in.readBoolean ()) {
+            return null;
+        }
+        String label = readString (in);
+        double price = in.readDouble ();
+        return new Product (label,price,in.readInt ());
+    }
+
+    private static void writeList (DataOutput out,Operation.Kind element,Iterable<?> values) throws IOException {
+        List<Object> list = new ArrayList<> ();
+        values.forEach (list::add);
+        out.writeInt (list.size ());
+        for (Object value : list) {
+            write (out,element,value);
+        }
+    }
+
+    private static List<Object> readList (DataInput in,Operation.Kind element) throws IOException {
+        int count = in.readInt ();
+        if (count < 0 || count > MAX_FRAME) {
+            throw new IOException ("bad list length " + count);
+        }
+        List<Object> values = new ArrayList<> (count);
+        for (int i = 0; i < count; i++) {
+            values.add (read (in,element));
+        }
+        return values;
+    }
+
+    // A reusable frame: reserves the length field up front and fills it in on send. Bytes
+    // past MAX_FRAME are dropped and mark the frame as overflowed, so an oversized frame
+    // never gets buffered whole.
+    static final class Frame extends ByteArrayOutputStream {
+        private boolean overflowed;
+
+        Frame () {
+            super (256);
+        }
+
+        void begin (int requestId,byte code) {
+            reset ();
+            this.overflowed = false;
+            writeInt (0);
+            writeInt (requestId);
+            write (code);
+        }
+
+        boolean isOverflowed () {
+            return this.overflowed;
+        }
+
+        @Override
+        public synchronized void write (int b) {
+            if (this.count - Integer.BYTES >= MAX_FRAME) {
+                this.overflowed = true;
+                return;
+            }
+            super.write (b);
+        }
+
+        @Override
+        public synchronized void write (byte[] b,int off,int len) {
+            if (len > MAX_FRAME + Integer.BYTES - this.count) {
+                this.overflowed = true;
+                return;
+            }
+            super.write (b,off,len);
+        }
+
+        void end () {
+            int length = this.count - Integer.BYTES;
+            this.buf[0] = (byte) (length >>> 24);
+            this.buf[1] = (byte) (length >>> 16);
+            this.buf[2] = (byte) (length >>> 8);
+            this.buf[3] = (byte) length;
+        }
+
+        private void writeInt (int value) {
+            write (value >>> 24);
+            write (value >>> 16);
+            write (value >>> 8);
+            write (value);
+        }
+    }
+}
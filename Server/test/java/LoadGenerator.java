@@ -0,0 +1,163 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Drives a QueryServer with a read-mostly mix over several connections, keeping a fixed
+// number of requests in flight on each, and reports throughput and latency percentiles:
+//   java -cp target/classes:target/test-classes LoadGenerator [port] [connections] [depth] [seconds] [size]
+// The data set is loaded through the protocol first. Port 0 starts an embedded server.
+public class LoadGenerator {
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values ();
+    private static final int BATCH = 10_000;
+    // a client that never reads would stall once the server's responses fill the socket
+    private static final int LOAD_WINDOW = 256;
+
+    private final int port;
+    private final int connections;
+    private final int depth;
+    private final long durationNanos;
+    private final List<Transaction> transactions;
+    private final int products;
+    private final LatencyHistogram latency;
+    private final AtomicLong errors;
+
+    public LoadGenerator (int port,int connections,int depth,long durationNanos,int size) {
+        if (connections < 1 || depth < 1 || size < 1) {
+            throw new IllegalArgumentException ();
+        }
+        this.port = port;
+        this.connections = connections;
+        this.depth = depth;
+        this.durationNanos = durationNanos;
+        this.transactions = new TransactionGenerator (42).generate (size);
+        this.products = Math.min (size,10_000);
+        this.latency = new LatencyHistogram ();
+        this.errors = new AtomicLong ();
+    }
+
+    public static void main (String[] args) throws Exception {
+        int         port        = args.length > 0 ? Integer.parseInt (args[0]) : 0;
+        int         connections = args.length > 1 ? Integer.parseInt (args[1]) : 4;
+        int         depth       = args.length > 2 ? Integer.parseInt (args[2]) : 16;
+        int         seconds     = args.length > 3 ? Integer.parseInt (args[3]) : 10;
+        int         size        = args.length > 4 ? Integer.parseInt (args[4]) : 100_000;
+        QueryServer server      = null;
+        if (port == 0) {
+            server = new QueryServer (new ChainblockImpl (),new Instock (new ArrayList<> ())).start (0);
+            port = server.getPort ();
+            System.out.println ("embedded server on " + port + (server.usesVirtualThreads () ? ", virtual threads" : ", platform threads"));
+        }
+        LoadGenerator generator = new LoadGenerator (port,connections,depth,seconds * 1_000_000_000L,size);
+        generator.load ();
+        long requests = generator.run ();
+        generator.report (requests,System.out);
+        if (server != null) {
+            server.close ();
+        }
+    }
+
+    public void load () throws IOException {
+        try (QueryClient client = new QueryClient (this.port)) {
+            for (int from = 0; from < this.transactions.size (); from += BATCH) {
+                client.send (Operation.CHAINBLOCK_ADD_ALL,
+                        new ArrayList<> (this.transactions.subList (from,Math.min (from + BATCH,this.transactions.size ()))));
+            }
+            for (int i = 0; i < this.products; i++) {
+                client.send (Operation.STOCK_ADD,new Product (label (i),i % 1000,i % 100));
+                if (client.getPendingCount () == LOAD_WINDOW) {
+                    client.receive ().getValue ();
+                }
+            }
+            while (client.getPendingCount () > 0) {
+                client.receive ().getValue ();
+            }
+        }
+    }
+
+    // Runs the mix on every connection for the configured duration; returns the requests answered.
+    public long run () throws InterruptedException {
+        AtomicLong   requests = new AtomicLong ();
+        List<Thread> threads  = new ArrayList<> ();
+        long         deadline = System.nanoTime () + this.durationNanos;
+        for (int i = 0; i < this.connections; i++) {
+            long   seed   = i;
+            Thread thread = new Thread (() -> requests.addAndGet (drive (new Random (seed),deadline)),"load-" + i);
+            threads.add (thread);
+            thread.start ();
+        }
+        for (Thread thread : threads) {
+            thread.join ();
+        }
+        return requests.get ();
+    }
+
+    public void report (long requests,PrintStream out) {
+        double seconds = this.durationNanos / 1e9;
+        out.printf ("%d connections x %d in flight, %d transactions%n",this.connections,this.depth,this.transactions.size ());
+        out.printf ("%d requests, %d errors, %.0f req/s%n",requests,this.errors.get (),requests / seconds);
+        out.printf ("latency us: p50 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                this.latency.getPercentileNanos (50) / 1e3,this.latency.getPercentileNanos (99) / 1e3,
+                this.latency.getPercentileNanos (99.9) / 1e3,this.latency.getMaxNanos () / 1e3);
+    }
+
+    public LatencyHistogram getLatency () {
+        return this.latency;
+    }
+
+    private long drive (Random random,long deadline) {
+        long[] sent     = new long[this.depth];
+        int    head     = 0;
+        int    tail     = 0;
+        long   answered = 0;
+        try (QueryClient client = new QueryClient (this.port)) {
+            while (true) {
+                boolean open = System.nanoTime () < deadline;
+                while (open && client.getPendingCount () < this.depth) {
+                    sent[tail] = System.nanoTime ();
+                    tail = (tail + 1) % this.depth;
+                    sendNext (client,random);
+                }
+                if (client.getPendingCount () == 0) {
+                    return answered;
+                }
+                // responses come back in request order, so the oldest send time is theirs
+                QueryClient.Response response = client.receive ();
+                this.latency.record (System.nanoTime () - sent[head]);
+                head = (head + 1) % this.depth;
+                answered++;
+                if (!response.isOk ()) {
+                    this.errors.incrementAndGet ();
+                }
+            }
+        } catch (IOException e) {
+            this.errors.incrementAndGet ();
+            return answered;
+        }
+    }
+
+    // 40% lookups by id, 20% contains, 20% receiver range queries, 15% product lookups
+    // and 5% status changes.
+    private void sendNext (QueryClient client,Random random) throws IOException {
+        Transaction sample = this.transactions.get (random.nextInt (this.transactions.size ()));
+        int         draw   = random.nextInt (100);
+        if (draw < 40) {
+            client.send (Operation.CHAINBLOCK_GET_BY_ID,sample.getId ());
+        } else if (draw < 60) {
+            client.send (Operation.CHAINBLOCK_CONTAINS,sample.getId () + random.nextInt (2) * this.transactions.size ());
+        } else if (draw < 80) {
+            client.send (Operation.CHAINBLOCK_BY_RECEIVER_AND_AMOUNT_RANGE,sample.getReceiver (),sample.getAmount (),
+                    sample.getAmount () * 1.1 + 0.01);
+        } else if (draw < 95) {
+            client.send (Operation.STOCK_FIND_BY_LABEL,label (random.nextInt (this.products)));
+        } else {
+            client.send (Operation.CHAINBLOCK_CHANGE_STATUS,sample.getId (),STATUSES[random.nextInt (STATUSES.length)]);
+        }
+    }
+
+    private static String label (int index) {
+        return "Product_" + index;
+    }
+}
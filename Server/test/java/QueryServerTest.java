@@ -0,0 +1,224 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class QueryServerTest {
+    private QueryServer server;
+    private QueryClient client;
+
+    @Before
+    public void setUp () throws IOException {
+        server = new QueryServer (new ChainblockImpl (),new Instock (new ArrayList<> ())).start (0);
+        client = new QueryClient (server.getPort ());
+    }
+
+    @After
+    public void tearDown () throws IOException {
+        client.close ();
+        server.close ();
+    }
+
+    @Test
+    public void testChainblockOperationsRoundTrip () throws IOException {
+        client.call (Operation.CHAINBLOCK_ADD,new TransactionImpl (1,TransactionStatus.FAILED,"Sender_1","Receiver_1",10));
+        client.call (Operation.CHAINBLOCK_ADD_ALL,List.of (
+                new TransactionImpl (2,TransactionStatus.SUCCESSFUL,"Sender_1","Receiver_2",30),
+                new TransactionImpl (3,TransactionStatus.FAILED,"Sender_2","Receiver_1",20)));
+        client.call (Operation.CHAINBLOCK_CHANGE_STATUS,2,TransactionStatus.FAILED);
+        assertEquals (3,client.call (Operation.CHAINBLOCK_COUNT));
+        assertEquals (true,client.call (Operation.CHAINBLOCK_CONTAINS,3));
+        assertEquals (new TransactionImpl (2,TransactionStatus.FAILED,"Sender_1","Receiver_2",30),
+                client.call (Operation.CHAINBLOCK_GET_BY_ID,2));
+        assertEquals (List.of (2,3,1),ids (client.call (Operation.CHAINBLOCK_BY_STATUS,TransactionStatus.FAILED)));
+        assertEquals (List.of ("Sender_1","Sender_2","Sender_1"),
+                client.call (Operation.CHAINBLOCK_SENDERS_WITH_STATUS,TransactionStatus.FAILED));
+        assertEquals (List.of (3),ids (client.call (Operation.CHAINBLOCK_IN_AMOUNT_RANGE,15.0,25.0)));
+        client.call (Operation.CHAINBLOCK_REMOVE,1);
+        assertEquals (false,client.call (Operation.CHAINBLOCK_CONTAINS,1));
+    }
+
+    @Test
+    public void testProductStockOperationsRoundTrip () throws IOException {
+        client.call (Operation.STOCK_ADD,new Product ("b",2.5,3));
+        client.call (Operation.STOCK_ADD,new Product ("a",4.0,3));
+        client.call (Operation.STOCK_CHANGE_QUANTITY,"b",7);
+        assertEquals (2,client.call (Operation.STOCK_COUNT));
+        assertEquals (7,((Product) client.call (Operation.STOCK_FIND_BY_LABEL,"b")).getQuantity ());
+        assertEquals (List.of ("a","b"),labels (client.call (Operation.STOCK_FIRST_BY_ALPHABETICAL_ORDER,2)));
+        assertEquals (List.of ("a"),labels (client.call (Operation.STOCK_FIRST_MOST_EXPENSIVE,1)));
+        assertEquals (List.of ("a"),labels (client.call (Operation.STOCK_BY_QUANTITY,3)));
+    }
+
+    @Test
+    public void testPipelinedResponsesArriveInRequestOrder () throws IOException {
+        for (int i = 0; i < 500; i++) {
+            client.send (Operation.CHAINBLOCK_ADD,new TransactionImpl (i,TransactionStatus.SUCCESSFUL,"Sender_1","Receiver_1",i));
+            client.send (Operation.CHAINBLOCK_COUNT);
+        }
+        for (int i = 0; i < 500; i++) {
+            QueryClient.Response add   = client.receive ();
+            QueryClient.Response count = client.receive ();
+            assertEquals (2 * i,add.getRequestId ());
+            assertEquals (i + 1,count.getValue ());
+        }
+        assertEquals (0,client.getPendingCount ());
+    }
+
+    @Test
+    public void testRejectedRequestDoesNotBreakConnection () throws IOException {
+        client.send (Operation.CHAINBLOCK_GET_BY_ID,42);
+        client.send (Operation.STOCK_FIND,5);
+        client.send (Operation.CHAINBLOCK_COUNT);
+        QueryClient.Response missing = client.receive ();
+        assertEquals (WireFormat.ILLEGAL_ARGUMENT,missing.getStatus ());
+        try {
+            missing.getValue ();
+            fail ();
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals (WireFormat.FAILURE,client.receive ().getStatus ());
+        assertEquals (0,client.receive ().getValue ());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCallRethrowsIllegalArgument () throws IOException {
+        client.call (Operation.CHAINBLOCK_BY_SENDER,"Nobody");
+    }
+
+    @Test
+    public void testUnknownOperationIsAnsweredAndSkipped () throws IOException {
+        try (Socket socket = new Socket (InetAddress.getLoopbackAddress (),server.getPort ())) {
+            DataOutputStream out = new DataOutputStream (socket.getOutputStream ());
+            out.writeInt (9);
+            out.writeInt (7);
+            out.writeByte (120);
+            out.writeInt (0);
+            out.writeInt (5);
+            out.writeInt (8);
+            out.writeByte (Operation.STOCK_COUNT.code ());
+            out.flush ();
+            DataInputStream in = new DataInputStream (socket.getInputStream ());
+            assertEquals (5,in.readInt ());
+            assertEquals (7,in.readInt ());
+            assertEquals (WireFormat.UNKNOWN_OPERATION,in.readByte ());
+            assertEquals (9,in.readInt ());
+            assertEquals (8,in.readInt ());
+            assertEquals (WireFormat.OK,in.readByte ());
+            assertEquals (0,in.readInt ());
+        }
+    }
+
+    @Test
+    public void testMalformedStatusIsRejectedAndSkipped () throws IOException {
+        try (Socket socket = new Socket (InetAddress.getLoopbackAddress (),server.getPort ())) {
+            DataOutputStream out = new DataOutputStream (socket.getOutputStream ());
+            out.writeInt (6);
+            out.writeInt (7);
+            out.writeByte (Operation.CHAINBLOCK_BY_STATUS.code ());
+            out.writeByte (42);
+            out.writeInt (5);
+            out.writeInt (8);
+            out.writeByte (Operation.STOCK_COUNT.code ());
+            out.flush ();
+            DataInputStream in = new DataInputStream (socket.getInputStream ());
+            int length = in.readInt ();
+            assertEquals (7,in.readInt ());
+            assertEquals (WireFormat.ILLEGAL_ARGUMENT,in.readByte ());
+            in.readFully (new byte[length - 5]);
+            assertEquals (9,in.readInt ());
+            assertEquals (8,in.readInt ());
+            assertEquals (WireFormat.OK,in.readByte ());
+            assertEquals (0,in.readInt ());
+        }
+    }
+
+    @Test
+    public void testPartyNamesOver64KbRoundTrip () throws IOException {
+        String sender = "S".repeat (70_000) + "\u00e9";
+        client.call (Operation.CHAINBLOCK_ADD,new TransactionImpl (1,TransactionStatus.FAILED,sender,null,10));
+        Transaction transaction = (Transaction) client.call (Operation.CHAINBLOCK_GET_BY_ID,1);
+        assertEquals (sender,transaction.getSender ());
+        assertNull (transaction.getReceiver ());
+    }
+
+    @Test
+    public void testOversizedResponseIsAnsweredWithFailure () throws IOException {
+        String party = "P".repeat (WireFormat.MAX_FRAME / 3);
+        client.call (Operation.CHAINBLOCK_ADD,new TransactionImpl (1,TransactionStatus.FAILED,party,party,10));
+        client.call (Operation.CHAINBLOCK_ADD,new TransactionImpl (2,TransactionStatus.FAILED,party,party,20));
+        client.send (Operation.CHAINBLOCK_ORDERED_BY_AMOUNT);
+        client.send (Operation.CHAINBLOCK_COUNT);
+        assertEquals (WireFormat.FAILURE,client.receive ().getStatus ());
+        assertEquals (2,client.receive ().getValue ());
+    }
+
+    @Test
+    public void testConcurrentClientsSeeEveryWrite () throws Exception {
+        List<Thread> threads = new ArrayList<> ();
+        for (int t = 0; t < 4; t++) {
+            int    first  = t * 1000;
+            Thread thread = new Thread (() -> {
+                try (QueryClient own = new QueryClient (server.getPort ())) {
+                    for (int i = first; i < first + 1000; i++) {
+                        own.send (Operation.CHAINBLOCK_ADD,new TransactionImpl (i,TransactionStatus.FAILED,"Sender_" + i % 7,"Receiver_1",i));
+                        own.send (Operation.CHAINBLOCK_BY_SENDER,"Sender_" + i % 7);
+                        if (own.getPendingCount () > 64) {
+                            while (own.getPendingCount () > 0) {
+                                own.receive ().getValue ();
+                            }
+                        }
+                    }
+                    while (own.getPendingCount () > 0) {
+                        own.receive ().getValue ();
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException (e);
+                }
+            });
+            threads.add (thread);
+            thread.start ();
+        }
+        for (Thread thread : threads) {
+            thread.join ();
+        }
+        assertEquals (4000,client.call (Operation.CHAINBLOCK_COUNT));
+    }
+
+    @Test
+    public void testLoadGeneratorAnswersEveryRequest () throws Exception {
+        LoadGenerator generator = new LoadGenerator (server.getPort (),2,8,200_000_000L,2000);
+        generator.load ();
+        long requests = generator.run ();
+        assertTrue (requests > 0);
+        assertEquals (requests,generator.getLatency ().getCount ());
+        assertEquals (2000,client.call (Operation.CHAINBLOCK_COUNT));
+    }
+
+    // Helper Methods //
+
+    private static List<Integer> ids (Object transactions) {
+        List<Integer> ids = new ArrayList<> ();
+        for (Object transaction : (List<?>) transactions) {
+            ids.add (((Transaction) transaction).getId ());
+        }
+        return ids;
+    }
+
+    private static List<String> labels (Object products) {
+        List<String> labels = new ArrayList<> ();
+        for (Object product : (List<?>) products) {
+            labels.add (((Product) product).getLabel ());
+        }
+        return labels;
+    }
+}